@@ -0,0 +1,126 @@
+package com.amdocs.chainstore.config;
+
+import com.amdocs.chainstore.exception.InventoryErrorException;
+import com.amdocs.chainstore.kafka.InventoryHeaders;
+import com.amdocs.chainstore.kafka.KafkaTopics;
+import com.amdocs.chainstore.kafka.PhoneInventoryEvent;
+import com.amdocs.chainstore.kafka.ProducerProfiles;
+import com.amdocs.chainstore.kafka.RequestOutcome;
+import com.fasterxml.jackson.core.type.TypeReference;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.MicrometerConsumerListener;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.KafkaMessageListenerContainer;
+import org.springframework.kafka.requestreply.CorrelationKey;
+import org.springframework.kafka.requestreply.ReplyingKafkaTemplate;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+@Configuration
+@EnableConfigurationProperties(ProducerProfileProperties.class)
+public class KafkaConfig {
+
+  @Value("${spring.kafka.bootstrap-servers}")
+  private String bootstrapServers;
+
+  // Every chainstore instance reads the whole reply topic in its own group and drops replies
+  // to requests it did not send
+  @Value("${chainstore.kafka.reply.group-id}")
+  private String replyGroupId;
+
+  @Value("${chainstore.kafka.reply.timeout:5s}")
+  private Duration replyTimeout;
+
+  @Value("${chainstore.kafka.reply.topic-partitions:3}")
+  private int replyTopicPartitions;
+
+  @Bean
+  public NewTopic phoneInventoryGetRepliesTopic() {
+    return TopicBuilder.name(KafkaTopics.PHONE_INVENTORY_GET_REPLIES).partitions(replyTopicPartitions).build();
+  }
+
+  // Declared because the replying template below is also a KafkaTemplate, which would otherwise
+  // make Boot back off from creating the plain one used by PhoneStoreProducer
+  @Bean
+  @Primary
+  public KafkaTemplate<String, Object> kafkaTemplate(ProducerFactory<String, Object> producerFactory) {
+    return new KafkaTemplate<>(producerFactory);
+  }
+
+  @Bean
+  public KafkaMessageListenerContainer<String, List<Map<String, Object>>> phoneInventoryReplyContainer(
+      MeterRegistry meterRegistry) {
+    Map<String, Object> configProps = new HashMap<>();
+    configProps.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+    configProps.put(ConsumerConfig.GROUP_ID_CONFIG, replyGroupId);
+    // Replies published before this instance started belong to nobody
+    configProps.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "latest");
+
+    JsonDeserializer<List<Map<String, Object>>> valueDeserializer =
+        new JsonDeserializer<>(new TypeReference<List<Map<String, Object>>>() { }).ignoreTypeHeaders();
+    DefaultKafkaConsumerFactory<String, List<Map<String, Object>>> consumerFactory =
+        new DefaultKafkaConsumerFactory<>(configProps, new StringDeserializer(),
+            new ErrorHandlingDeserializer<>(valueDeserializer));
+    // Kafka client metrics, among them the records-lag gauges of the reply topic
+    consumerFactory.addListener(new MicrometerConsumerListener<>(meterRegistry));
+
+    return new KafkaMessageListenerContainer<>(consumerFactory,
+        new ContainerProperties(KafkaTopics.PHONE_INVENTORY_GET_REPLIES));
+  }
+
+  @Bean
+  public ConcurrentKafkaListenerContainerFactory<String, RequestOutcome> outcomeListenerContainerFactory(
+      MeterRegistry meterRegistry) {
+    Map<String, Object> configProps = new HashMap<>();
+    configProps.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+    // Outcomes published before this instance started were for requests it never saw
+    configProps.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "latest");
+
+    JsonDeserializer<RequestOutcome> valueDeserializer =
+        new JsonDeserializer<>(RequestOutcome.class).ignoreTypeHeaders();
+    DefaultKafkaConsumerFactory<String, RequestOutcome> consumerFactory = new DefaultKafkaConsumerFactory<>(
+        configProps, new StringDeserializer(), new ErrorHandlingDeserializer<>(valueDeserializer));
+    consumerFactory.addListener(new MicrometerConsumerListener<>(meterRegistry));
+    ConcurrentKafkaListenerContainerFactory<String, RequestOutcome> factory =
+        new ConcurrentKafkaListenerContainerFactory<>();
+    factory.setConsumerFactory(consumerFactory);
+    return factory;
+  }
+
+  @Bean
+  public ReplyingKafkaTemplate<String, Object, List<Map<String, Object>>> replyingKafkaTemplate(
+      ProducerProfiles producerProfiles,
+      KafkaMessageListenerContainer<String, List<Map<String, Object>>> phoneInventoryReplyContainer) {
+    ReplyingKafkaTemplate<String, Object, List<Map<String, Object>>> template = new ReplyingKafkaTemplate<>(
+        producerProfiles.factoryFor(KafkaTopics.PHONE_INVENTORY_GET), phoneInventoryReplyContainer);
+    template.setDefaultReplyTimeout(replyTimeout);
+    template.setSharedReplyTopic(true);
+    // Correlate on the event's requestId so replies can be matched to the request in the logs
+    template.setCorrelationIdStrategy(record -> new CorrelationKey(
+        ((PhoneInventoryEvent) record.value()).getRequestId().getBytes(StandardCharsets.UTF_8)));
+    // A failed read comes back with an empty value and the failure in a header
+    template.setReplyErrorChecker(record -> {
+      String error = InventoryHeaders.read(record.headers(), InventoryHeaders.ERROR);
+      return error != null ? new InventoryErrorException(error) : null;
+    });
+    return template;
+  }
+}
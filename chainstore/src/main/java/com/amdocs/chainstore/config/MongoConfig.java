@@ -0,0 +1,17 @@
+package com.amdocs.chainstore.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.MongoTransactionManager;
+
+@Configuration
+public class MongoConfig {
+
+  // Store changes and their outbox rows are written in one transaction, which needs MongoDB to
+  // run as a replica set (a single-node one is enough)
+  @Bean
+  public MongoTransactionManager transactionManager(MongoDatabaseFactory databaseFactory) {
+    return new MongoTransactionManager(databaseFactory);
+  }
+}
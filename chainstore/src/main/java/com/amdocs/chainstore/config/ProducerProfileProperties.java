@@ -0,0 +1,34 @@
+package com.amdocs.chainstore.config;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * {@code chainstore.kafka.producer}: named producer profiles, the profile each topic is sent
+ * with, and the optional bound on sends waiting for an acknowledgement.
+ */
+@Data
+@ConfigurationProperties(prefix = "chainstore.kafka.producer")
+public class ProducerProfileProperties {
+
+  private Map<String, Profile> profiles = new HashMap<>();
+
+  // Topic name to profile name; topics not listed use the spring.kafka.producer settings
+  private Map<String, String> topics = new HashMap<>();
+
+  // 0 disables the bound
+  private int maxInFlightSends = 0;
+
+  private Duration acquireTimeout = Duration.ofMillis(100);
+
+  @Data
+  public static class Profile {
+    private Integer lingerMs;
+    private Integer batchSize;
+    private String compressionType;
+    private String acks;
+  }
+}
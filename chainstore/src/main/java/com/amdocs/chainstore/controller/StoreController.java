@@ -1,5 +1,6 @@
 package com.amdocs.chainstore.controller;
 
+import com.amdocs.chainstore.kafka.RequestOutcome;
 import com.amdocs.chainstore.model.Store;
 import com.amdocs.chainstore.model.StoreCreateRequest;
 import com.amdocs.chainstore.model.StoreUpdateRequest;
@@ -20,6 +21,7 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
 
 @RestController
 @RequestMapping("/store")
@@ -109,8 +111,9 @@ public class StoreController {
   }
 
   @DeleteMapping("/ids")
-  public ResponseEntity<Void> deletePhonesByIds(@RequestParam @NotEmpty(message = "IDs list cannot be empty") List<String> ids) {
-    storeService.deletePhonesByIds(ids);
+  public ResponseEntity<Void> deletePhonesByIds(@RequestParam @NotEmpty(message = "IDs list cannot be empty") List<String> ids,
+      @RequestParam(defaultValue = "false") boolean bestEffort) {
+    storeService.deletePhonesByIds(ids, bestEffort);
     return ResponseEntity.noContent().build();
   }
 
@@ -132,5 +135,20 @@ public class StoreController {
       throw new RuntimeException("Store not found with storeId: " + storeId);
     }
   }
-}
 
+  // Long-poll: answers as soon as phone-store reports the outcome of the command, or with 202 and
+  // the pending status once the wait is over. Unknown (or already evicted) requests are 404.
+  @GetMapping("/requests/{requestId}")
+  public DeferredResult<ResponseEntity<RequestOutcome>> getRequestStatus(@PathVariable String requestId,
+      @RequestParam(required = false) Long timeoutMs) {
+    DeferredResult<ResponseEntity<RequestOutcome>> result =
+        new DeferredResult<>(storeService.longPollTimeoutMillis(timeoutMs));
+    Runnable cancel = storeService.onRequestCompletion(requestId,
+        outcome -> result.setResult(ResponseEntity.ok(outcome)));
+    result.onTimeout(() -> result.setResult(storeService.getRequestStatus(requestId)
+        .map(pending -> ResponseEntity.status(HttpStatus.ACCEPTED).body(pending))
+        .orElseGet(() -> ResponseEntity.notFound().build())));
+    result.onCompletion(cancel);
+    return result;
+  }
+}
@@ -41,6 +41,62 @@ public class GlobalExceptionHandler {
     return new ResponseEntity<>(errorResponse, HttpStatus.NOT_FOUND);
   }
 
+  @ExceptionHandler(PhoneNotFoundException.class)
+  public ResponseEntity<Map<String, Object>> handlePhoneNotFoundException(
+      PhoneNotFoundException ex, WebRequest request) {
+
+    Map<String, Object> errorResponse = new HashMap<>();
+    errorResponse.put("timestamp", LocalDateTime.now());
+    errorResponse.put("status", HttpStatus.NOT_FOUND.value());
+    errorResponse.put("error", "Not Found");
+    errorResponse.put("message", ex.getMessage());
+    errorResponse.put("path", request.getDescription(false).replace("uri=", ""));
+
+    return new ResponseEntity<>(errorResponse, HttpStatus.NOT_FOUND);
+  }
+
+  @ExceptionHandler(InventoryUnavailableException.class)
+  public ResponseEntity<Map<String, Object>> handleInventoryUnavailableException(
+      InventoryUnavailableException ex, WebRequest request) {
+
+    Map<String, Object> errorResponse = new HashMap<>();
+    errorResponse.put("timestamp", LocalDateTime.now());
+    errorResponse.put("status", HttpStatus.SERVICE_UNAVAILABLE.value());
+    errorResponse.put("error", "Service Unavailable");
+    errorResponse.put("message", ex.getMessage());
+    errorResponse.put("path", request.getDescription(false).replace("uri=", ""));
+
+    return new ResponseEntity<>(errorResponse, HttpStatus.SERVICE_UNAVAILABLE);
+  }
+
+  @ExceptionHandler(InventoryTimeoutException.class)
+  public ResponseEntity<Map<String, Object>> handleInventoryTimeoutException(
+      InventoryTimeoutException ex, WebRequest request) {
+
+    Map<String, Object> errorResponse = new HashMap<>();
+    errorResponse.put("timestamp", LocalDateTime.now());
+    errorResponse.put("status", HttpStatus.GATEWAY_TIMEOUT.value());
+    errorResponse.put("error", "Gateway Timeout");
+    errorResponse.put("message", ex.getMessage());
+    errorResponse.put("path", request.getDescription(false).replace("uri=", ""));
+
+    return new ResponseEntity<>(errorResponse, HttpStatus.GATEWAY_TIMEOUT);
+  }
+
+  @ExceptionHandler(InventoryErrorException.class)
+  public ResponseEntity<Map<String, Object>> handleInventoryErrorException(
+      InventoryErrorException ex, WebRequest request) {
+
+    Map<String, Object> errorResponse = new HashMap<>();
+    errorResponse.put("timestamp", LocalDateTime.now());
+    errorResponse.put("status", HttpStatus.BAD_GATEWAY.value());
+    errorResponse.put("error", "Bad Gateway");
+    errorResponse.put("message", ex.getMessage());
+    errorResponse.put("path", request.getDescription(false).replace("uri=", ""));
+
+    return new ResponseEntity<>(errorResponse, HttpStatus.BAD_GATEWAY);
+  }
+
   @ExceptionHandler(Exception.class)
   public ResponseEntity<Map<String, Object>> handleGenericException(
       Exception ex, WebRequest request) {
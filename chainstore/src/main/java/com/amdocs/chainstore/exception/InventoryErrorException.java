@@ -0,0 +1,11 @@
+package com.amdocs.chainstore.exception;
+
+public class InventoryErrorException extends RuntimeException {
+  public InventoryErrorException(String message) {
+    super(message);
+  }
+
+  public InventoryErrorException(String message, Throwable cause) {
+    super(message, cause);
+  }
+}
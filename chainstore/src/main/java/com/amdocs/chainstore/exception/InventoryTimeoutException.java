@@ -0,0 +1,11 @@
+package com.amdocs.chainstore.exception;
+
+public class InventoryTimeoutException extends RuntimeException {
+  public InventoryTimeoutException(String message) {
+    super(message);
+  }
+
+  public InventoryTimeoutException(String message, Throwable cause) {
+    super(message, cause);
+  }
+}
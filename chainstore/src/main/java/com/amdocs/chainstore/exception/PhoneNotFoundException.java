@@ -0,0 +1,11 @@
+package com.amdocs.chainstore.exception;
+
+public class PhoneNotFoundException extends RuntimeException {
+  public PhoneNotFoundException(String message) {
+    super(message);
+  }
+
+  public PhoneNotFoundException(String message, Throwable cause) {
+    super(message, cause);
+  }
+}
@@ -0,0 +1,57 @@
+package com.amdocs.chainstore.kafka;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import java.util.Locale;
+import java.util.Map;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Serializer;
+
+/**
+ * Producer value serializer for inventory events. Writes JSON or CBOR, chosen with the
+ * {@value #WIRE_FORMAT_CONFIG} producer property, and announces the choice in the record headers.
+ * Events also get their {@link InventoryHeaders}.
+ */
+public class InventoryEventSerializer implements Serializer<Object> {
+
+  public static final String WIRE_FORMAT_CONFIG = "chainstore.wire-format";
+
+  private final ObjectMapper jsonMapper = new ObjectMapper();
+  private final ObjectMapper cborMapper = new CBORMapper();
+  private WireFormat format = WireFormat.JSON;
+
+  @Override
+  public void configure(Map<String, ?> configs, boolean isKey) {
+    Object configured = configs.get(WIRE_FORMAT_CONFIG);
+    if (configured != null) {
+      format = WireFormat.valueOf(configured.toString().trim().toUpperCase(Locale.ROOT));
+    }
+  }
+
+  @Override
+  public byte[] serialize(String topic, Object data) {
+    return serialize(topic, null, data);
+  }
+
+  @Override
+  public byte[] serialize(String topic, Headers headers, Object data) {
+    if (data == null) {
+      return null;
+    }
+    // Without headers the consumer cannot tell the format, so only JSON is safe
+    WireFormat recordFormat = headers == null ? WireFormat.JSON : format;
+    if (headers != null) {
+      recordFormat.writeHeaders(headers);
+      if (data instanceof PhoneInventoryEvent) {
+        InventoryHeaders.write(headers, (PhoneInventoryEvent) data);
+      }
+    }
+    try {
+      return (recordFormat == WireFormat.CBOR ? cborMapper : jsonMapper).writeValueAsBytes(data);
+    } catch (JsonProcessingException e) {
+      throw new SerializationException("Cannot write inventory event to " + topic, e);
+    }
+  }
+}
@@ -0,0 +1,39 @@
+package com.amdocs.chainstore.kafka;
+
+import java.nio.charset.StandardCharsets;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+
+/**
+ * Routing headers stamped on every {@link PhoneInventoryEvent}. phone-store routes and filters
+ * on them and only reads the record value when a handler needs the payload.
+ */
+public final class InventoryHeaders {
+
+  public static final String ACTION = "inventory-action";
+  public static final String STORE_ID = "inventory-store-id";
+  public static final String REQUEST_ID = "inventory-request-id";
+  // Set by phone-store on a GET reply when the read failed, with the failure as its value
+  public static final String ERROR = "inventory-error";
+
+  private InventoryHeaders() {
+  }
+
+  public static void write(Headers headers, PhoneInventoryEvent event) {
+    set(headers, ACTION, event.getAction());
+    set(headers, STORE_ID, event.getStoreId());
+    set(headers, REQUEST_ID, event.getRequestId());
+  }
+
+  public static String read(Headers headers, String name) {
+    Header header = headers.lastHeader(name);
+    return header != null ? new String(header.value(), StandardCharsets.UTF_8) : null;
+  }
+
+  private static void set(Headers headers, String name, String value) {
+    headers.remove(name);
+    if (value != null) {
+      headers.add(name, value.getBytes(StandardCharsets.UTF_8));
+    }
+  }
+}
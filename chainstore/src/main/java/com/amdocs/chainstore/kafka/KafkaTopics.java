@@ -7,5 +7,9 @@ public class KafkaTopics {
   public static final String PHONE_INVENTORY_GET = "phone-inventory-get";
   public static final String PHONE_INVENTORY_UPDATE = "phone-inventory-update";
   public static final String PHONE_INVENTORY_DELETE = "phone-inventory-delete";
+  // phone-store answers GET requests here, see PhoneInventoryClient
+  public static final String PHONE_INVENTORY_GET_REPLIES = "phone-inventory-get-replies";
+  // phone-store publishes the outcome of every UPDATE command here, see RequestStatusStore
+  public static final String PHONE_INVENTORY_OUTCOMES = "phone-inventory-outcomes";
 
 }
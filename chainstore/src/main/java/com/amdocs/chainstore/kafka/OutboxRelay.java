@@ -0,0 +1,239 @@
+package com.amdocs.chainstore.kafka;
+
+import com.amdocs.chainstore.exception.InventoryUnavailableException;
+import com.amdocs.chainstore.repository.OutboxEvent;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Publishes outbox rows in creation order. Only the chainstore instance holding the relay lease
+ * relays, so the rows of a key always leave through one producer; the others take over once the
+ * lease is not renewed. A batch is sent asynchronously (the producer batches and, with
+ * idempotence, keeps per-partition order) and marked sent once every send is acknowledged.
+ * Failed rows are released and retried, together with the later rows of their key, so rows of
+ * one key are not delivered out of order. Delivery is at-least-once: a relay that stalls past its
+ * lease may still deliver a row the next one has already sent again, which consumers skip by
+ * request id.
+ */
+@Component
+@Slf4j
+public class OutboxRelay {
+
+  private static final String HELD_BACK = "Held back behind a failed event with the same key";
+  private static final String LEASE_COLLECTION = "outbox_relay";
+  private static final String LEASE_ID = "relay";
+  // Rows created in the same millisecond keep their insertion order through their ObjectIds
+  private static final Sort CREATION_ORDER = Sort.by(Sort.Direction.ASC, "createdAt", "_id");
+
+  private final MongoTemplate mongoTemplate;
+  private final PhoneStoreProducer phoneStoreProducer;
+  private final String instanceId = UUID.randomUUID().toString();
+
+  @Value("${chainstore.outbox.batch-size:500}")
+  private int batchSize;
+
+  @Value("${chainstore.outbox.lease:30s}")
+  private Duration lease;
+
+  @Value("${chainstore.outbox.send-timeout:20s}")
+  private Duration sendTimeout;
+
+  @Value("${chainstore.outbox.retention:1d}")
+  private Duration retention;
+
+  // 0 disables the bound
+  @Value("${chainstore.outbox.max-pending:10000}")
+  private int maxPending;
+
+  public OutboxRelay(MongoTemplate mongoTemplate, PhoneStoreProducer phoneStoreProducer) {
+    this.mongoTemplate = mongoTemplate;
+    this.phoneStoreProducer = phoneStoreProducer;
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void ensureIndexes() {
+    IndexOperations indexOps = mongoTemplate.indexOps(OutboxEvent.class);
+    indexOps.ensureIndex(new Index()
+        .on("status", Sort.Direction.ASC)
+        .on("createdAt", Sort.Direction.ASC)
+        .on("_id", Sort.Direction.ASC)
+        .named("status_createdAt_id"));
+    // Sent rows are only kept for troubleshooting
+    indexOps.ensureIndex(new Index()
+        .on("sentAt", Sort.Direction.ASC)
+        .expire(retention)
+        .named("sentAt_ttl"));
+  }
+
+  @Scheduled(fixedDelayString = "${chainstore.outbox.poll-interval:200ms}")
+  public void relay() {
+    // Keep going while full batches are sent, so a backlog is drained without waiting; a batch
+    // with failures waits for the next poll
+    while (holdsLease() && relayBatch() == batchSize) {
+      log.debug("Outbox backlog, relaying next batch");
+    }
+  }
+
+  private int relayBatch() {
+    List<OutboxEvent> batch = claimBatch();
+    if (batch.isEmpty()) {
+      return 0;
+    }
+
+    // Rows of a key that could not be handed to the producer are not sent behind it
+    Set<String> unsentKeys = new HashSet<>();
+    Map<String, CompletableFuture<?>> sends = new LinkedHashMap<>();
+    Map<String, String> failures = new LinkedHashMap<>();
+    for (OutboxEvent outboxEvent : batch) {
+      if (unsentKeys.contains(outboxEvent.getKey())) {
+        failures.put(outboxEvent.getId(), HELD_BACK);
+        continue;
+      }
+      try {
+        sends.put(outboxEvent.getId(),
+            phoneStoreProducer.send(outboxEvent.getTopic(), outboxEvent.getKey(), outboxEvent.getEvent()));
+      } catch (RuntimeException e) {
+        failures.put(outboxEvent.getId(), e.getMessage());
+        unsentKeys.add(outboxEvent.getKey());
+      }
+    }
+
+    // In batch order: a row acknowledged after a failed one with the same key is released too,
+    // so the retry cannot deliver them out of order
+    long deadline = System.nanoTime() + sendTimeout.toNanos();
+    Set<String> failedKeys = new HashSet<>();
+    List<String> sentIds = new ArrayList<>();
+    for (OutboxEvent outboxEvent : batch) {
+      CompletableFuture<?> future = sends.get(outboxEvent.getId());
+      String error = future == null ? failures.get(outboxEvent.getId()) : await(future, deadline);
+      if (error == null && failedKeys.contains(outboxEvent.getKey())) {
+        error = HELD_BACK;
+      }
+      if (error == null) {
+        sentIds.add(outboxEvent.getId());
+      } else {
+        failures.put(outboxEvent.getId(), error);
+        failedKeys.add(outboxEvent.getKey());
+      }
+    }
+
+    if (!sentIds.isEmpty()) {
+      mongoTemplate.updateMulti(new Query(Criteria.where("_id").in(sentIds)),
+          new Update().set("status", OutboxEvent.Status.SENT).set("sentAt", Instant.now())
+              .unset("owner").unset("lockedUntil"),
+          OutboxEvent.class);
+    }
+    failures.forEach((id, error) -> mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(id)),
+        new Update().set("status", OutboxEvent.Status.PENDING).set("lastError", error)
+            .unset("owner").unset("lockedUntil"),
+        OutboxEvent.class));
+    if (!failures.isEmpty()) {
+      log.warn("Outbox relay: {} of {} events not sent, will retry: {}", failures.size(), batch.size(), failures);
+    }
+
+    log.debug("Outbox relay sent {} events", sentIds.size());
+    return sentIds.size();
+  }
+
+  // The error of a send, or null once it is acknowledged
+  private String await(CompletableFuture<?> future, long deadline) {
+    try {
+      future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+      return null;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return "Interrupted";
+    } catch (ExecutionException e) {
+      return e.getCause().getMessage();
+    } catch (TimeoutException e) {
+      return "No acknowledgement within " + sendTimeout;
+    }
+  }
+
+  // Takes or renews the relay lease; another instance holding it makes the upsert insert a duplicate
+  private boolean holdsLease() {
+    Instant now = Instant.now();
+    Query query = new Query(Criteria.where("_id").is(LEASE_ID)
+        .orOperator(Criteria.where("owner").is(instanceId), Criteria.where("lockedUntil").lt(now)));
+    try {
+      mongoTemplate.upsert(query, new Update().set("owner", instanceId).set("lockedUntil", now.plus(lease)),
+          LEASE_COLLECTION);
+      return true;
+    } catch (DuplicateKeyException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Rejects a new command while {@code chainstore.outbox.max-pending} rows are still unsent, so a
+   * relay or broker that falls behind turns into 503s at the request instead of a growing outbox.
+   */
+  public void requireCapacity(String action) {
+    if (maxPending <= 0) {
+      return;
+    }
+    // Counts no further than the bound, over the status prefix of the relay's index
+    long unsent = mongoTemplate.count(new Query(Criteria.where("status")
+            .in(OutboxEvent.Status.PENDING, OutboxEvent.Status.SENDING)).limit(maxPending),
+        OutboxEvent.class);
+    if (unsent >= maxPending) {
+      throw new InventoryUnavailableException(unsent + " inventory commands are waiting to be sent, rejected "
+          + action);
+    }
+  }
+
+  private List<OutboxEvent> claimBatch() {
+    Instant now = Instant.now();
+    Query candidates = new Query(claimable(now)).with(CREATION_ORDER).limit(batchSize);
+    candidates.fields().include("_id");
+    List<String> ids = mongoTemplate.find(candidates, OutboxEvent.class).stream()
+        .map(OutboxEvent::getId)
+        .collect(Collectors.toList());
+    if (ids.isEmpty()) {
+      return List.of();
+    }
+
+    // Rows claimed by another instance in the meantime no longer match
+    mongoTemplate.updateMulti(new Query(new Criteria().andOperator(Criteria.where("_id").in(ids), claimable(now))),
+        new Update().set("status", OutboxEvent.Status.SENDING).set("owner", instanceId)
+            .set("lockedUntil", now.plus(lease)).inc("attempts", 1),
+        OutboxEvent.class);
+    return mongoTemplate.find(new Query(Criteria.where("_id").in(ids)
+            .and("owner").is(instanceId)
+            .and("status").is(OutboxEvent.Status.SENDING))
+            .with(CREATION_ORDER),
+        OutboxEvent.class);
+  }
+
+  private static Criteria claimable(Instant now) {
+    return new Criteria().orOperator(
+        Criteria.where("status").is(OutboxEvent.Status.PENDING),
+        Criteria.where("status").is(OutboxEvent.Status.SENDING).and("lockedUntil").lt(now));
+  }
+}
@@ -0,0 +1,103 @@
+package com.amdocs.chainstore.kafka;
+
+import com.amdocs.chainstore.exception.InventoryErrorException;
+import com.amdocs.chainstore.exception.InventoryTimeoutException;
+import com.amdocs.chainstore.exception.InventoryUnavailableException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.requestreply.KafkaReplyTimeoutException;
+import org.springframework.kafka.requestreply.ReplyingKafkaTemplate;
+import org.springframework.kafka.requestreply.RequestReplyFuture;
+import org.springframework.stereotype.Component;
+
+/**
+ * Request-reply reads against phone-store: the event goes to the GET topic and the calling
+ * thread waits for the listener's result on {@link KafkaTopics#PHONE_INVENTORY_GET_REPLIES}.
+ * At most {@code chainstore.kafka.reply.max-in-flight} requests wait at the same time; callers
+ * beyond that are turned away instead of queueing behind slow replies. A read that failed in
+ * phone-store is reported as {@link InventoryErrorException}, not as an empty result. The wait
+ * for the reply is timed per action and outcome as {@code chainstore.kafka.reply}, with a
+ * percentile histogram for the p99.
+ */
+@Component
+@Slf4j
+public class PhoneInventoryClient {
+
+  private final ReplyingKafkaTemplate<String, Object, List<Map<String, Object>>> replyingKafkaTemplate;
+  private final Semaphore inFlight;
+  private final Duration acquireTimeout;
+  private final MeterRegistry meterRegistry;
+
+  public PhoneInventoryClient(
+      ReplyingKafkaTemplate<String, Object, List<Map<String, Object>>> replyingKafkaTemplate,
+      MeterRegistry meterRegistry,
+      @Value("${chainstore.kafka.reply.max-in-flight:256}") int maxInFlight,
+      @Value("${chainstore.kafka.reply.acquire-timeout:100ms}") Duration acquireTimeout) {
+    this.replyingKafkaTemplate = replyingKafkaTemplate;
+    this.inFlight = new Semaphore(maxInFlight);
+    this.acquireTimeout = acquireTimeout;
+    this.meterRegistry = meterRegistry;
+  }
+
+  public List<Map<String, Object>> request(String key, PhoneInventoryEvent event, Duration timeout) {
+    acquire(event);
+    long start = System.nanoTime();
+    String outcome = "error";
+    try {
+      RequestReplyFuture<String, Object, List<Map<String, Object>>> future = replyingKafkaTemplate.sendAndReceive(
+          new ProducerRecord<>(KafkaTopics.PHONE_INVENTORY_GET, key, event), timeout);
+      List<Map<String, Object>> reply = future.get().value();
+      outcome = "success";
+      log.debug("Reply to {} {} received in {} ms", event.getAction(), event.getRequestId(),
+          TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+      return reply != null ? reply : List.of();
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof KafkaReplyTimeoutException) {
+        outcome = "timeout";
+        throw new InventoryTimeoutException("No reply from phone inventory within " + timeout.toMillis()
+            + " ms for " + event.getAction() + " request " + event.getRequestId(), e.getCause());
+      }
+      if (e.getCause() instanceof InventoryErrorException) {
+        throw new InventoryErrorException("Phone inventory failed " + event.getAction() + " request "
+            + event.getRequestId() + ": " + e.getCause().getMessage(), e.getCause());
+      }
+      throw new RuntimeException("Phone inventory request " + event.getRequestId() + " failed", e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("Interrupted while waiting for phone inventory request " + event.getRequestId(), e);
+    } finally {
+      inFlight.release();
+      replyTimer(event, outcome).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  private Timer replyTimer(PhoneInventoryEvent event, String outcome) {
+    return Timer.builder("chainstore.kafka.reply")
+        .description("Time from sending a read request until its reply arrived")
+        .tag("action", String.valueOf(event.getAction()))
+        .tag("outcome", outcome)
+        .publishPercentileHistogram()
+        .register(meterRegistry);
+  }
+
+  private void acquire(PhoneInventoryEvent event) {
+    try {
+      if (!inFlight.tryAcquire(acquireTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+        throw new InventoryUnavailableException("Too many phone inventory requests in flight, rejected "
+            + event.getAction() + " request " + event.getRequestId());
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InventoryUnavailableException("Interrupted while waiting for a phone inventory request slot", e);
+    }
+  }
+}
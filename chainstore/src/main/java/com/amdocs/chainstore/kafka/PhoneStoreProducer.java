@@ -2,23 +2,130 @@ package com.amdocs.chainstore.kafka;
 
 import static com.amdocs.chainstore.kafka.KafkaTopics.*;
 
-import lombok.RequiredArgsConstructor;
-import org.springframework.kafka.core.KafkaTemplate;
+import com.amdocs.chainstore.config.ProducerProfileProperties;
+import com.amdocs.chainstore.exception.InventoryUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Component;
 
+/**
+ * Sends inventory commands and records, per topic and action, the send latency until the broker
+ * acknowledged ({@code chainstore.kafka.send}) and failed sends ({@code chainstore.kafka.send.errors}).
+ * With {@code chainstore.kafka.producer.max-in-flight-sends} set, a send blocks briefly and then
+ * fails while that many sends are unacknowledged, instead of filling the producer buffer. Commands
+ * are sent by {@link OutboxRelay}, so this only paces the relay, whose failed rows are retried;
+ * requests are turned away by the outbox bound, see {@link OutboxRelay#requireCapacity}.
+ */
 @Component
-@RequiredArgsConstructor
+@Slf4j
 public class PhoneStoreProducer {
 
-  private final KafkaTemplate<String, Object> kafkaTemplate;
+  private final ProducerProfiles producerProfiles;
+  private final MeterRegistry meterRegistry;
+  private final Semaphore inFlight;
+  private final Duration acquireTimeout;
 
-  public void publishToGetTopic(Object message) {
-    kafkaTemplate.send(PHONE_INVENTORY_GET, message);
+  public PhoneStoreProducer(ProducerProfiles producerProfiles, MeterRegistry meterRegistry,
+      ProducerProfileProperties properties) {
+    this.producerProfiles = producerProfiles;
+    this.meterRegistry = meterRegistry;
+    this.inFlight = properties.getMaxInFlightSends() > 0 ? new Semaphore(properties.getMaxInFlightSends()) : null;
+    this.acquireTimeout = properties.getAcquireTimeout();
   }
-  public void publishToDeleteTopic(Object message) {
-    kafkaTemplate.send(PHONE_INVENTORY_DELETE, message);
+
+  // The key picks the partition: events with the same key (store or phone id) stay in order,
+  // a null key spreads the event over all partitions. Reads go through PhoneInventoryClient.
+  public CompletableFuture<SendResult<String, Object>> publishToDeleteTopic(String key, Object message) {
+    return send(PHONE_INVENTORY_DELETE, key, message);
+  }
+  public CompletableFuture<SendResult<String, Object>> publishToUpdateTopic(String key, Object message) {
+    return send(PHONE_INVENTORY_UPDATE, key, message);
+  }
+
+  public CompletableFuture<SendResult<String, Object>> send(String topic, String key, Object message) {
+    acquire(topic);
+    long start = System.nanoTime();
+    CompletableFuture<SendResult<String, Object>> future;
+    try {
+      future = producerProfiles.templateFor(topic).send(topic, key, message);
+    } catch (RuntimeException e) {
+      // Serialization failure or producer buffer full for longer than max.block.ms
+      release();
+      recordFailure(topic, message, start, e);
+      throw e;
+    }
+
+    future.whenComplete((result, ex) -> {
+      release();
+      if (ex != null) {
+        recordFailure(topic, message, start, ex);
+        log.error("Failed to send to {} with key {}: {}", topic, key, ex.getMessage(), ex);
+      } else {
+        sendTimer(topic, message, "success").record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+      }
+    });
+    return future;
+  }
+
+  private void recordFailure(String topic, Object message, long start, Throwable ex) {
+    sendTimer(topic, message, "failure").record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    Counter.builder("chainstore.kafka.send.errors")
+        .tag("topic", topic)
+        .tag("action", action(message))
+        .tag("exception", rootCause(ex).getClass().getSimpleName())
+        .register(meterRegistry)
+        .increment();
+  }
+
+  private Timer sendTimer(String topic, Object message, String outcome) {
+    return Timer.builder("chainstore.kafka.send")
+        .description("Time from send until the broker acknowledged the record")
+        .tag("topic", topic)
+        .tag("action", action(message))
+        .tag("outcome", outcome)
+        .publishPercentileHistogram()
+        .register(meterRegistry);
+  }
+
+  private void acquire(String topic) {
+    if (inFlight == null) {
+      return;
+    }
+    try {
+      if (!inFlight.tryAcquire(acquireTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+        throw new InventoryUnavailableException("Too many unacknowledged sends, rejected send to " + topic);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InventoryUnavailableException("Interrupted while waiting to send to " + topic, e);
+    }
+  }
+
+  private void release() {
+    if (inFlight != null) {
+      inFlight.release();
+    }
+  }
+
+  private static String action(Object message) {
+    if (message instanceof PhoneInventoryEvent && ((PhoneInventoryEvent) message).getAction() != null) {
+      return ((PhoneInventoryEvent) message).getAction();
+    }
+    return "UNKNOWN";
   }
-  public void publishToUpdateTopic(Object message) {
-    kafkaTemplate.send(PHONE_INVENTORY_UPDATE, message);
+
+  private static Throwable rootCause(Throwable ex) {
+    Throwable cause = ex;
+    while (cause.getCause() != null && cause.getCause() != cause) {
+      cause = cause.getCause();
+    }
+    return cause;
   }
 }
@@ -0,0 +1,75 @@
+package com.amdocs.chainstore.kafka;
+
+import com.amdocs.chainstore.config.ProducerProfileProperties;
+import java.util.HashMap;
+import java.util.Map;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * One producer per profile in {@code chainstore.kafka.producer.profiles}, layered over the
+ * {@code spring.kafka.producer} settings, and the template each topic is sent with.
+ */
+@Component
+@Slf4j
+public class ProducerProfiles implements DisposableBean {
+
+  private final ProducerFactory<String, Object> defaultProducerFactory;
+  private final KafkaTemplate<String, Object> defaultTemplate;
+  private final Map<String, DefaultKafkaProducerFactory<String, Object>> factoriesByProfile = new HashMap<>();
+  private final Map<String, KafkaTemplate<String, Object>> templatesByTopic = new HashMap<>();
+  private final Map<String, ProducerFactory<String, Object>> factoriesByTopic = new HashMap<>();
+
+  public ProducerProfiles(ProducerFactory<String, Object> producerFactory, KafkaTemplate<String, Object> kafkaTemplate,
+      ProducerProfileProperties properties) {
+    this.defaultProducerFactory = producerFactory;
+    this.defaultTemplate = kafkaTemplate;
+
+    properties.getProfiles().forEach((name, profile) -> {
+      Map<String, Object> configs = new HashMap<>(producerFactory.getConfigurationProperties());
+      if (profile.getLingerMs() != null) {
+        configs.put(ProducerConfig.LINGER_MS_CONFIG, profile.getLingerMs());
+      }
+      if (profile.getBatchSize() != null) {
+        configs.put(ProducerConfig.BATCH_SIZE_CONFIG, profile.getBatchSize());
+      }
+      if (profile.getCompressionType() != null) {
+        configs.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, profile.getCompressionType());
+      }
+      if (profile.getAcks() != null) {
+        configs.put(ProducerConfig.ACKS_CONFIG, profile.getAcks());
+      }
+      configs.put(ProducerConfig.CLIENT_ID_CONFIG, "chainstore-" + name);
+      factoriesByProfile.put(name, new DefaultKafkaProducerFactory<>(configs));
+    });
+
+    properties.getTopics().forEach((topic, profileName) -> {
+      DefaultKafkaProducerFactory<String, Object> factory = factoriesByProfile.get(profileName);
+      if (factory == null) {
+        throw new IllegalStateException("Topic " + topic + " uses unknown producer profile: " + profileName);
+      }
+      factoriesByTopic.put(topic, factory);
+      templatesByTopic.put(topic, new KafkaTemplate<>(factory));
+      log.info("Topic {} is sent with producer profile {}", topic, profileName);
+    });
+  }
+
+  public KafkaTemplate<String, Object> templateFor(String topic) {
+    return templatesByTopic.getOrDefault(topic, defaultTemplate);
+  }
+
+  public ProducerFactory<String, Object> factoryFor(String topic) {
+    return factoriesByTopic.getOrDefault(topic, defaultProducerFactory);
+  }
+
+  @Override
+  public void destroy() {
+    // Not beans, so the context does not close them
+    factoriesByProfile.values().forEach(DefaultKafkaProducerFactory::destroy);
+  }
+}
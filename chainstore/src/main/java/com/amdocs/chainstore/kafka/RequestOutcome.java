@@ -0,0 +1,27 @@
+package com.amdocs.chainstore.kafka;
+
+import java.util.Map;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RequestOutcome {
+
+  // Set locally until phone-store reports COMPLETED, PARTIALLY_COMPLETED or FAILED
+  public static final String PENDING = "PENDING";
+
+  private String requestId;
+  private String action;
+  private String storeId;
+  private String status;
+  private String message;
+  private Map<String, Object> details;
+  private long timestamp;
+
+  public boolean isPending() {
+    return PENDING.equals(status);
+  }
+}
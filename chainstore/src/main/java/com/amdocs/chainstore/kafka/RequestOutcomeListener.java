@@ -0,0 +1,27 @@
+package com.amdocs.chainstore.kafka;
+
+import com.amdocs.chainstore.service.RequestStatusStore;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class RequestOutcomeListener {
+
+  private final RequestStatusStore requestStatusStore;
+
+  // Own group per instance: the client long-polling a request may be connected to any instance
+  @KafkaListener(topics = KafkaTopics.PHONE_INVENTORY_OUTCOMES, groupId = "${chainstore.kafka.outcome.group-id}",
+      containerFactory = "outcomeListenerContainerFactory")
+  public void onOutcome(RequestOutcome outcome) {
+    if (outcome == null || outcome.getRequestId() == null) {
+      log.warn("Ignoring outcome without requestId: {}", outcome);
+      return;
+    }
+    log.debug("Outcome {} for {} request {}", outcome.getStatus(), outcome.getAction(), outcome.getRequestId());
+    requestStatusStore.complete(outcome);
+  }
+}
@@ -0,0 +1,36 @@
+package com.amdocs.chainstore.kafka;
+
+import java.nio.charset.StandardCharsets;
+import org.apache.kafka.common.header.Headers;
+
+/**
+ * Encoding of a {@link PhoneInventoryEvent} on the wire. phone-store reads the
+ * {@value #CONTENT_TYPE_HEADER} header to pick the decoder, so the format can be switched per
+ * chainstore instance during a rollout.
+ */
+public enum WireFormat {
+  JSON("application/json"),
+  CBOR("application/cbor");
+
+  public static final String CONTENT_TYPE_HEADER = "content-type";
+  public static final String VERSION_HEADER = "inventory-envelope-version";
+  // Bumped on incompatible changes to the PhoneInventoryEvent envelope
+  public static final String CURRENT_VERSION = "1";
+
+  private final String contentType;
+
+  WireFormat(String contentType) {
+    this.contentType = contentType;
+  }
+
+  public String getContentType() {
+    return contentType;
+  }
+
+  public void writeHeaders(Headers headers) {
+    headers.remove(CONTENT_TYPE_HEADER);
+    headers.add(CONTENT_TYPE_HEADER, contentType.getBytes(StandardCharsets.UTF_8));
+    headers.remove(VERSION_HEADER);
+    headers.add(VERSION_HEADER, CURRENT_VERSION.getBytes(StandardCharsets.UTF_8));
+  }
+}
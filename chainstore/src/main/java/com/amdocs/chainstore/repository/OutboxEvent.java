@@ -0,0 +1,52 @@
+package com.amdocs.chainstore.repository;
+
+import com.amdocs.chainstore.kafka.PhoneInventoryEvent;
+import java.time.Instant;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * An inventory command waiting to be published by {@code OutboxRelay}. Written together with
+ * the store change it belongs to, so the command is sent if and only if the change is committed.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = OutboxEvent.COLLECTION)
+public class OutboxEvent {
+
+  public static final String COLLECTION = "outbox";
+
+  public enum Status {
+    PENDING,
+    // Claimed by a relay until lockedUntil
+    SENDING,
+    SENT
+  }
+
+  @Id
+  private String id;
+  private String topic;
+  private String key;
+  private PhoneInventoryEvent event;
+  private Status status;
+  private Instant createdAt;
+  private int attempts;
+  private String owner;
+  private Instant lockedUntil;
+  private Instant sentAt;
+  private String lastError;
+
+  public static OutboxEvent pending(String topic, String key, PhoneInventoryEvent event) {
+    OutboxEvent outboxEvent = new OutboxEvent();
+    outboxEvent.setTopic(topic);
+    outboxEvent.setKey(key);
+    outboxEvent.setEvent(event);
+    outboxEvent.setStatus(Status.PENDING);
+    outboxEvent.setCreatedAt(Instant.now());
+    return outboxEvent;
+  }
+}
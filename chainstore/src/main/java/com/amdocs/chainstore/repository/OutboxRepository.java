@@ -0,0 +1,8 @@
+package com.amdocs.chainstore.repository;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface OutboxRepository extends MongoRepository<OutboxEvent, String> {
+}
@@ -0,0 +1,113 @@
+package com.amdocs.chainstore.service;
+
+import com.amdocs.chainstore.kafka.RequestOutcome;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Status of the inventory commands sent by chainstore, keyed by requestId. Commands are
+ * registered as pending when they are published and completed by the outcome phone-store
+ * reports back. Entries are evicted {@code chainstore.requests.ttl} after their last change.
+ */
+@Component
+@Slf4j
+public class RequestStatusStore {
+
+  private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+  private final Duration ttl;
+
+  public RequestStatusStore(@Value("${chainstore.requests.ttl:10m}") Duration ttl) {
+    this.ttl = ttl;
+  }
+
+  public void registerPending(String requestId, String action, String storeId) {
+    RequestOutcome pending = new RequestOutcome(requestId, action, storeId, RequestOutcome.PENDING,
+        null, Map.of(), System.currentTimeMillis());
+    // The outcome may already be here when the command was sent by another instance
+    entries.computeIfAbsent(requestId, id -> new Entry(pending));
+  }
+
+  public void complete(RequestOutcome outcome) {
+    entries.computeIfAbsent(outcome.getRequestId(), id -> new Entry(null)).complete(outcome);
+  }
+
+  public Optional<RequestOutcome> get(String requestId) {
+    Entry entry = entries.get(requestId);
+    return entry == null ? Optional.empty() : Optional.ofNullable(entry.current());
+  }
+
+  /**
+   * Calls {@code callback} once the request has completed, right away when it already has.
+   *
+   * @return a handle that stops the callback from being called, for waits that gave up
+   */
+  public Runnable onCompletion(String requestId, Consumer<RequestOutcome> callback) {
+    Entry entry = entries.computeIfAbsent(requestId, id -> new Entry(null));
+    return entry.addWaiter(callback);
+  }
+
+  @Scheduled(fixedDelayString = "${chainstore.requests.eviction-interval:1m}")
+  public void evictExpired() {
+    long cutoff = System.currentTimeMillis() - ttl.toMillis();
+    int before = entries.size();
+    entries.values().removeIf(entry -> entry.lastUpdated() < cutoff);
+    if (entries.size() < before) {
+      log.debug("Evicted {} request statuses older than {}", before - entries.size(), ttl);
+    }
+  }
+
+  private static final class Entry {
+    private RequestOutcome outcome;
+    private long lastUpdated = System.currentTimeMillis();
+    private final List<Consumer<RequestOutcome>> waiters = new ArrayList<>();
+
+    private Entry(RequestOutcome outcome) {
+      this.outcome = outcome;
+    }
+
+    private synchronized RequestOutcome current() {
+      return outcome;
+    }
+
+    private synchronized long lastUpdated() {
+      return lastUpdated;
+    }
+
+    private void complete(RequestOutcome completed) {
+      List<Consumer<RequestOutcome>> toNotify;
+      synchronized (this) {
+        outcome = completed;
+        lastUpdated = System.currentTimeMillis();
+        toNotify = new ArrayList<>(waiters);
+        waiters.clear();
+      }
+      toNotify.forEach(waiter -> waiter.accept(completed));
+    }
+
+    private Runnable addWaiter(Consumer<RequestOutcome> waiter) {
+      RequestOutcome completed;
+      synchronized (this) {
+        if (outcome == null || outcome.isPending()) {
+          waiters.add(waiter);
+          return () -> removeWaiter(waiter);
+        }
+        completed = outcome;
+      }
+      waiter.accept(completed);
+      return () -> { };
+    }
+
+    private synchronized void removeWaiter(Consumer<RequestOutcome> waiter) {
+      waiters.remove(waiter);
+    }
+  }
+}
@@ -1,19 +1,30 @@
 package com.amdocs.chainstore.service;
 
 import com.amdocs.chainstore.exception.DuplicateStoreException;
+import com.amdocs.chainstore.exception.PhoneNotFoundException;
 import com.amdocs.chainstore.exception.StoreNotFoundException;
+import com.amdocs.chainstore.kafka.OutboxRelay;
+import com.amdocs.chainstore.kafka.PhoneInventoryClient;
+import com.amdocs.chainstore.kafka.KafkaTopics;
 import com.amdocs.chainstore.kafka.PhoneInventoryEvent;
-import com.amdocs.chainstore.kafka.PhoneStoreProducer;
+import com.amdocs.chainstore.kafka.RequestOutcome;
 import com.amdocs.chainstore.model.Store;
 import com.amdocs.chainstore.model.StoreCreateRequest;
 import com.amdocs.chainstore.model.StoreUpdateRequest;
+import com.amdocs.chainstore.repository.OutboxEvent;
+import com.amdocs.chainstore.repository.OutboxRepository;
 import com.amdocs.chainstore.repository.StoreRepository;
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
 public class StoreService {
@@ -22,7 +33,29 @@ public class StoreService {
   private StoreRepository repository;
 
   @Autowired
-  private PhoneStoreProducer phoneStoreProducer;
+  private OutboxRepository outboxRepository;
+
+  @Autowired
+  private OutboxRelay outboxRelay;
+
+  @Autowired
+  private PhoneInventoryClient phoneInventoryClient;
+
+  @Autowired
+  private RequestStatusStore requestStatusStore;
+
+  @Value("${chainstore.kafka.reply.timeout:5s}")
+  private Duration replyTimeout;
+
+  // The full catalog reply is much larger than a lookup by id or model
+  @Value("${chainstore.kafka.reply.catalog-timeout:15s}")
+  private Duration catalogReplyTimeout;
+
+  @Value("${chainstore.requests.long-poll-timeout:30s}")
+  private Duration longPollTimeout;
+
+  @Value("${chainstore.requests.max-long-poll-timeout:60s}")
+  private Duration maxLongPollTimeout;
 
   public Store createStore(StoreCreateRequest request) {
     // Check if store with same name and address already exists
@@ -43,19 +76,21 @@ public class StoreService {
         .orElseThrow(() -> new StoreNotFoundException("Store not found with id: " + id));
   }
 
+  // The outbox row commits or rolls back with the store deletion
+  @Transactional
   public void deleteStore(String id) {
     if (!repository.existsById(id)) {
       throw new StoreNotFoundException("Store not found with id: " + id);
     }
 
-    // Publish store deletion event to Kafka
+    // Store deletion event, published by OutboxRelay once the transaction commits
     PhoneInventoryEvent event = new PhoneInventoryEvent();
     event.setAction("DELETE_PHONE_BY_STORE_ID");
     event.setRequestId(UUID.randomUUID().toString());
     event.setTimestamp(System.currentTimeMillis());
     event.setStoreId(id);
 
-    phoneStoreProducer.publishToDeleteTopic(event);
+    enqueue(KafkaTopics.PHONE_INVENTORY_DELETE, id, event);
 
     repository.deleteById(id);
   }
@@ -82,7 +117,8 @@ public class StoreService {
     event.setStoreId((String) orderRequest.get("storeId"));
     event.setPayload(orderRequest);
 
-    phoneStoreProducer.publishToUpdateTopic(event);
+    enqueue(KafkaTopics.PHONE_INVENTORY_UPDATE, event.getStoreId(), event);
+    requestStatusStore.registerPending(event.getRequestId(), event.getAction(), event.getStoreId());
 
     Map<String, Object> response = new HashMap<>();
     response.put("status", "Order request sent");
@@ -97,9 +133,11 @@ public class StoreService {
     event.setAction("INCREASE_QUANTITY");
     event.setRequestId(UUID.randomUUID().toString());
     event.setTimestamp(System.currentTimeMillis());
+    event.setStoreId((String) quantityRequest.get("storeId"));
     event.setPayload(quantityRequest);
 
-    phoneStoreProducer.publishToUpdateTopic(event);
+    enqueue(KafkaTopics.PHONE_INVENTORY_UPDATE, quantityEventKey(event, quantityRequest), event);
+    requestStatusStore.registerPending(event.getRequestId(), event.getAction(), event.getStoreId());
 
     Map<String, Object> response = new HashMap<>();
     response.put("status", "Increase quantity request sent");
@@ -112,15 +150,31 @@ public class StoreService {
     event.setAction("DECREASE_QUANTITY");
     event.setRequestId(UUID.randomUUID().toString());
     event.setTimestamp(System.currentTimeMillis());
+    event.setStoreId((String) quantityRequest.get("storeId"));
     event.setPayload(quantityRequest);
 
-    phoneStoreProducer.publishToUpdateTopic(event);
+    enqueue(KafkaTopics.PHONE_INVENTORY_UPDATE, quantityEventKey(event, quantityRequest), event);
+    requestStatusStore.registerPending(event.getRequestId(), event.getAction(), event.getStoreId());
 
     Map<String, Object> response = new HashMap<>();
     response.put("status", "Decrease quantity request sent");
     response.put("requestId", event.getRequestId());
     return response;
   }
+  // Commands are published by OutboxRelay, the request thread only writes the outbox row. A
+  // command is registered after it was enqueued, so a rejected one leaves no pending status;
+  // registering also copes with an outcome that arrived first
+  private void enqueue(String topic, String key, PhoneInventoryEvent event) {
+    outboxRelay.requireCapacity(event.getAction());
+    outboxRepository.save(OutboxEvent.pending(topic, key, event));
+  }
+
+  // Quantity changes share the store key with orders when the store is known, so all stock
+  // updates of a store's phones land on one partition; otherwise they are keyed by phone
+  private String quantityEventKey(PhoneInventoryEvent event, Map<String, Object> quantityRequest) {
+    return event.getStoreId() != null ? event.getStoreId() : (String) quantityRequest.get("phoneId");
+  }
+
   public Map<String, Object> getPhoneById(String id) {
     PhoneInventoryEvent event = new PhoneInventoryEvent();
     event.setAction("GET_PHONE_BY_ID");
@@ -131,15 +185,11 @@ public class StoreService {
     payload.put("phoneId", id);
     event.setPayload(payload);
 
-    phoneStoreProducer.publishToGetTopic(event);
-
-    // In a real implementation, you would wait for the response from Kafka
-    // For now, returning a placeholder response
-    Map<String, Object> response = new HashMap<>();
-    response.put("status", "Get phone request sent");
-    response.put("requestId", event.getRequestId());
-    response.put("phoneId", id);
-    return response;
+    List<Map<String, Object>> phones = phoneInventoryClient.request(id, event, replyTimeout);
+    if (phones.isEmpty()) {
+      throw new PhoneNotFoundException("Phone not found with id: " + id);
+    }
+    return phones.get(0);
   }
 
   public List<Map<String, Object>> getPhonesByIds(List<String> ids) {
@@ -152,14 +202,7 @@ public class StoreService {
     payload.put("phoneIds", ids);
     event.setPayload(payload);
 
-    phoneStoreProducer.publishToGetTopic(event);
-
-    // Placeholder response
-    Map<String, Object> response = new HashMap<>();
-    response.put("status", "Get phones request sent");
-    response.put("requestId", event.getRequestId());
-    response.put("phoneIds", ids);
-    return List.of(response);
+    return phoneInventoryClient.request(null, event, replyTimeout);
   }
 
   public List<Map<String, Object>> getPhonesByModel(String model) {
@@ -172,14 +215,7 @@ public class StoreService {
     payload.put("model", model);
     event.setPayload(payload);
 
-    phoneStoreProducer.publishToGetTopic(event);
-
-    // Placeholder response
-    Map<String, Object> response = new HashMap<>();
-    response.put("status", "Get phones by model request sent");
-    response.put("requestId", event.getRequestId());
-    response.put("model", model);
-    return List.of(response);
+    return phoneInventoryClient.request(null, event, replyTimeout);
   }
 
   public List<Map<String, Object>> getPhonesByModels(List<String> models) {
@@ -192,14 +228,7 @@ public class StoreService {
     payload.put("models", models);
     event.setPayload(payload);
 
-    phoneStoreProducer.publishToGetTopic(event);
-
-    // Placeholder response
-    Map<String, Object> response = new HashMap<>();
-    response.put("status", "Get phones by models request sent");
-    response.put("requestId", event.getRequestId());
-    response.put("models", models);
-    return List.of(response);
+    return phoneInventoryClient.request(null, event, replyTimeout);
   }
 
   public List<Map<String, Object>> getAllPhones() {
@@ -211,13 +240,7 @@ public class StoreService {
     // No payload needed for get all phones
     event.setPayload(new HashMap<>());
 
-    phoneStoreProducer.publishToGetTopic(event);
-
-    // Placeholder response
-    Map<String, Object> response = new HashMap<>();
-    response.put("status", "Get all phones request sent");
-    response.put("requestId", event.getRequestId());
-    return List.of(response);
+    return phoneInventoryClient.request(null, event, catalogReplyTimeout);
   }
 
   public void deletePhoneById(String id) {
@@ -230,10 +253,10 @@ public class StoreService {
     payload.put("phoneId", id);
     event.setPayload(payload);
 
-    phoneStoreProducer.publishToDeleteTopic(event);
+    enqueue(KafkaTopics.PHONE_INVENTORY_DELETE, id, event);
   }
 
-  public void deletePhonesByIds(List<String> ids) {
+  public void deletePhonesByIds(List<String> ids, boolean bestEffort) {
     PhoneInventoryEvent event = new PhoneInventoryEvent();
     event.setAction("DELETE_PHONES_BY_IDS");
     event.setRequestId(UUID.randomUUID().toString());
@@ -241,21 +264,26 @@ public class StoreService {
 
     Map<String, Object> payload = new HashMap<>();
     payload.put("phoneIds", ids);
+    payload.put("bestEffort", bestEffort);
     event.setPayload(payload);
 
-    phoneStoreProducer.publishToDeleteTopic(event);
+    enqueue(KafkaTopics.PHONE_INVENTORY_DELETE, null, event);
   }
 
   public Map<String, Object> addPhones(List<Map<String, Object>> phonesRequest, String storeId) {
     PhoneInventoryEvent event = new PhoneInventoryEvent();
     event.setAction("ADD_PHONES");
+    event.setRequestId(UUID.randomUUID().toString());
+    event.setTimestamp(System.currentTimeMillis());
     event.setStoreId(storeId);
     event.setPayload(phonesRequest);
 
-    phoneStoreProducer.publishToUpdateTopic(event);
+    enqueue(KafkaTopics.PHONE_INVENTORY_UPDATE, storeId, event);
+    requestStatusStore.registerPending(event.getRequestId(), event.getAction(), event.getStoreId());
 
     Map<String, Object> response = new HashMap<>();
     response.put("status", "Add phones request sent");
+    response.put("requestId", event.getRequestId());
     response.put("phoneCount", phonesRequest.size());
 
     return response;
@@ -277,17 +305,31 @@ public class StoreService {
     payload.put("storeId", storeId);
     event.setPayload(payload);
 
-    phoneStoreProducer.publishToGetTopic(event);
+    List<Map<String, Object>> phones = phoneInventoryClient.request(storeId, event, replyTimeout);
 
-    // Placeholder response
     Map<String, Object> response = new HashMap<>();
-    response.put("status", "Get phones by store ID request sent");
     response.put("requestId", event.getRequestId());
     response.put("storeId", storeId);
     response.put("storeName", store.getStoreName());
+    response.put("phones", phones);
 
     return response;
   }
 
-}
+  // Outcomes of the commands above, reported by phone-store through the outcome topic
+
+  public Optional<RequestOutcome> getRequestStatus(String requestId) {
+    return requestStatusStore.get(requestId);
+  }
 
+  public Runnable onRequestCompletion(String requestId, Consumer<RequestOutcome> callback) {
+    return requestStatusStore.onCompletion(requestId, callback);
+  }
+
+  public long longPollTimeoutMillis(Long requestedMillis) {
+    if (requestedMillis == null) {
+      return longPollTimeout.toMillis();
+    }
+    return Math.max(1, Math.min(requestedMillis, maxLongPollTimeout.toMillis()));
+  }
+}
@@ -0,0 +1,158 @@
+package com.amdocs.chainstore.kafka;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.amdocs.chainstore.exception.InventoryUnavailableException;
+import com.amdocs.chainstore.repository.OutboxEvent;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.kafka.KafkaException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class OutboxRelayTest {
+
+  private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+  private final PhoneStoreProducer producer = mock(PhoneStoreProducer.class);
+  private final List<String> sentIds = new ArrayList<>();
+  private final List<String> releasedIds = new ArrayList<>();
+
+  private OutboxRelay relay;
+
+  @BeforeEach
+  void setUp() {
+    relay = new OutboxRelay(mongoTemplate, producer);
+    ReflectionTestUtils.setField(relay, "batchSize", 3);
+    ReflectionTestUtils.setField(relay, "lease", Duration.ofSeconds(30));
+    ReflectionTestUtils.setField(relay, "sendTimeout", Duration.ofSeconds(1));
+
+    when(producer.send(anyString(), anyString(), any())).thenReturn(CompletableFuture.completedFuture(null));
+    when(mongoTemplate.updateMulti(any(Query.class), any(Update.class), eq(OutboxEvent.class))).thenAnswer(invocation -> {
+      Update update = invocation.getArgument(1);
+      if (status(update) == OutboxEvent.Status.SENT) {
+        Query query = invocation.getArgument(0);
+        Document ids = (Document) query.getQueryObject().get("_id");
+        ((Collection<?>) ids.get("$in")).forEach(id -> sentIds.add((String) id));
+      }
+      return null;
+    });
+    when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(OutboxEvent.class))).thenAnswer(invocation -> {
+      Update update = invocation.getArgument(1);
+      if (status(update) == OutboxEvent.Status.PENDING) {
+        Query query = invocation.getArgument(0);
+        releasedIds.add((String) query.getQueryObject().get("_id"));
+      }
+      return null;
+    });
+  }
+
+  @Test
+  void fullBatch_ShouldBeFollowedByTheNextOne() {
+    List<OutboxEvent> first = List.of(row("a1", "A"), row("b1", "B"), row("a2", "A"));
+    when(mongoTemplate.find(any(Query.class), eq(OutboxEvent.class))).thenReturn(first, first, List.of());
+
+    relay.relay();
+
+    assertThat(sentIds).containsExactly("a1", "b1", "a2");
+    verify(mongoTemplate, times(3)).find(any(Query.class), eq(OutboxEvent.class));
+  }
+
+  @Test
+  void batchThatFailsEntirely_ShouldWaitForTheNextPoll() {
+    List<OutboxEvent> batch = List.of(row("a1", "A"), row("b1", "B"), row("c1", "C"));
+    when(mongoTemplate.find(any(Query.class), eq(OutboxEvent.class))).thenReturn(batch);
+    when(producer.send(anyString(), anyString(), any()))
+        .thenReturn(CompletableFuture.failedFuture(new KafkaException("Broker unavailable")));
+
+    relay.relay();
+
+    // One claim: the ids, then the claimed rows
+    verify(mongoTemplate, times(2)).find(any(Query.class), eq(OutboxEvent.class));
+    assertThat(sentIds).isEmpty();
+    assertThat(releasedIds).containsExactlyInAnyOrder("a1", "b1", "c1");
+  }
+
+  @Test
+  void failedSend_ShouldReleaseLaterRowsOfItsKey() {
+    OutboxEvent a1 = row("a1", "A");
+    List<OutboxEvent> batch = List.of(a1, row("b1", "B"), row("a2", "A"));
+    when(mongoTemplate.find(any(Query.class), eq(OutboxEvent.class))).thenReturn(batch);
+    when(producer.send(KafkaTopics.PHONE_INVENTORY_UPDATE, "A", a1.getEvent()))
+        .thenReturn(CompletableFuture.failedFuture(new KafkaException("Request timed out")));
+
+    relay.relay();
+
+    // a2 was acknowledged, but marking it sent would deliver it before the retried a1
+    assertThat(sentIds).containsExactly("b1");
+    assertThat(releasedIds).containsExactlyInAnyOrder("a1", "a2");
+  }
+
+  @Test
+  void rowThatCannotBeHandedOver_ShouldHoldBackLaterRowsOfItsKey() {
+    OutboxEvent a2 = row("a2", "A");
+    OutboxEvent a3 = row("a3", "A");
+    List<OutboxEvent> batch = List.of(row("a1", "A"), a2, a3);
+    when(mongoTemplate.find(any(Query.class), eq(OutboxEvent.class))).thenReturn(batch);
+    when(producer.send(KafkaTopics.PHONE_INVENTORY_UPDATE, "A", a2.getEvent()))
+        .thenThrow(new KafkaException("Producer closed"));
+
+    relay.relay();
+
+    verify(producer, never()).send(KafkaTopics.PHONE_INVENTORY_UPDATE, "A", a3.getEvent());
+    assertThat(sentIds).containsExactly("a1");
+    assertThat(releasedIds).containsExactlyInAnyOrder("a2", "a3");
+  }
+
+  @Test
+  void instanceWithoutTheLease_ShouldNotRelay() {
+    when(mongoTemplate.upsert(any(Query.class), any(Update.class), eq("outbox_relay")))
+        .thenThrow(new DuplicateKeyException("E11000 duplicate key error collection: outbox_relay"));
+
+    relay.relay();
+
+    verify(mongoTemplate, never()).find(any(Query.class), eq(OutboxEvent.class));
+    verify(producer, never()).send(anyString(), anyString(), any());
+  }
+
+  @Test
+  void fullOutbox_ShouldRejectNewCommands() {
+    ReflectionTestUtils.setField(relay, "maxPending", 100);
+    when(mongoTemplate.count(any(Query.class), eq(OutboxEvent.class))).thenReturn(99L, 100L);
+
+    relay.requireCapacity("ORDER_PHONES");
+
+    assertThatThrownBy(() -> relay.requireCapacity("ORDER_PHONES"))
+        .isInstanceOf(InventoryUnavailableException.class);
+  }
+
+  private static OutboxEvent row(String id, String key) {
+    PhoneInventoryEvent event = new PhoneInventoryEvent("INCREASE_QUANTITY", key, null,
+        System.currentTimeMillis(), UUID.randomUUID().toString());
+    OutboxEvent outboxEvent = OutboxEvent.pending(KafkaTopics.PHONE_INVENTORY_UPDATE, key, event);
+    outboxEvent.setId(id);
+    return outboxEvent;
+  }
+
+  private static OutboxEvent.Status status(Update update) {
+    return (OutboxEvent.Status) update.getUpdateObject().get("$set", Document.class).get("status");
+  }
+}
@@ -0,0 +1,65 @@
+package com.phonestore.benchmarks;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.phonestore.model.PhoneInventoryItem;
+import com.phonestore.model.PhoneInventoryItemRequest;
+import com.phonestore.service.PhoneImportResult;
+import com.phonestore.service.PhoneInventoryService;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link PhoneInventoryService#addPhones}: mapping requests to items and caching the saved items,
+ * and {@link PhoneInventoryService#importPhones}: the same requests read from their JSON array
+ * element by element. The repository's {@code insertAll} is stubbed to accept every item.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AddPhonesBenchmark {
+
+  @Param({"10", "1000"})
+  public int phones;
+
+  private PhoneInventoryService service;
+  private List<PhoneInventoryItemRequest> requests;
+  private ObjectMapper objectMapper;
+  private byte[] encodedRequests;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    service = InventoryFixtures.phoneInventoryService(List.of());
+    objectMapper = InventoryFixtures.objectMapper();
+    requests = InventoryFixtures.phoneRequests(objectMapper, phones);
+    encodedRequests = objectMapper.writeValueAsBytes(InventoryFixtures.phoneRequestPayload(phones));
+  }
+
+  @Benchmark
+  public List<PhoneInventoryItem> addPhones() {
+    return service.addPhones(requests, InventoryFixtures.STORE_ID);
+  }
+
+  @Benchmark
+  public PhoneImportResult importPhones() throws IOException {
+    try (JsonParser parser = objectMapper.createParser(encodedRequests)) {
+      return service.importPhones(parser, InventoryFixtures.STORE_ID, batch -> { });
+    }
+  }
+}
@@ -0,0 +1,161 @@
+package com.phonestore.benchmarks;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.phonestore.kafka.InventoryAction;
+import com.phonestore.kafka.InventoryEventDeserializer;
+import com.phonestore.kafka.KafkaTopics;
+import com.phonestore.kafka.PhoneInventoryEvent;
+import com.phonestore.kafka.handler.InventoryEventHandlerRegistry;
+import com.phonestore.model.PhoneInventoryItem;
+import com.phonestore.model.PhoneInventoryItemRequest;
+import com.phonestore.service.PhoneInventoryService;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The path from a decoded event to the handler's result, as taken by
+ * {@code InventoryKafkaConsumer}: action lookup, payload binding, handler and service, with the
+ * repository stubbed in memory. The {@code legacy*} benchmarks take the same events through the
+ * switch the consumer used before the typed handlers, which cast the {@code Map} payload or
+ * bound it with {@code convertValue}, as the baseline. Run with {@code -prof gc} to see the
+ * allocation per event.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DispatchBenchmark {
+
+  private static final int PHONES = 1_000;
+
+  private InventoryEventHandlerRegistry registry;
+  private PhoneInventoryEvent getPhoneById;
+  private PhoneInventoryEvent getPhonesByModels;
+  private PhoneInventoryEvent addPhones;
+
+  private ObjectMapper objectMapper;
+  private PhoneInventoryService service;
+  private LegacyEvent legacyGetPhoneById;
+  private LegacyEvent legacyGetPhonesByModels;
+  private LegacyEvent legacyAddPhones;
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    objectMapper = InventoryFixtures.objectMapper();
+    List<PhoneInventoryItem> phones = InventoryFixtures.phones(PHONES);
+    service = InventoryFixtures.phoneInventoryService(phones);
+    registry = InventoryFixtures.registry(service, objectMapper);
+
+    InventoryEventDeserializer deserializer = new InventoryEventDeserializer();
+    Map<String, Object> phoneIdPayload = Map.of("phoneId", phones.get(PHONES / 2).getId().toString());
+    Map<String, Object> modelsPayload = Map.of("models", List.of("Apple", "google"));
+    List<Map<String, Object>> phonesPayload = InventoryFixtures.phoneRequestPayload(10);
+    getPhoneById = decode(deserializer, objectMapper, KafkaTopics.PHONE_INVENTORY_GET,
+        InventoryAction.GET_PHONE_BY_ID, phoneIdPayload);
+    getPhonesByModels = decode(deserializer, objectMapper, KafkaTopics.PHONE_INVENTORY_GET,
+        InventoryAction.GET_PHONES_BY_MODELS, modelsPayload);
+    addPhones = decode(deserializer, objectMapper, KafkaTopics.PHONE_INVENTORY_UPDATE,
+        InventoryAction.ADD_PHONES, phonesPayload);
+
+    legacyGetPhoneById = legacyDecode(objectMapper, InventoryAction.GET_PHONE_BY_ID, phoneIdPayload);
+    legacyGetPhonesByModels = legacyDecode(objectMapper, InventoryAction.GET_PHONES_BY_MODELS, modelsPayload);
+    legacyAddPhones = legacyDecode(objectMapper, InventoryAction.ADD_PHONES, phonesPayload);
+  }
+
+  @Benchmark
+  public List<PhoneInventoryItem> getPhoneById() {
+    return registry.dispatch(KafkaTopics.PHONE_INVENTORY_GET, getPhoneById);
+  }
+
+  @Benchmark
+  public List<PhoneInventoryItem> getPhonesByModels() {
+    return registry.dispatch(KafkaTopics.PHONE_INVENTORY_GET, getPhonesByModels);
+  }
+
+  @Benchmark
+  public List<PhoneInventoryItem> addTenPhones() {
+    return registry.dispatch(KafkaTopics.PHONE_INVENTORY_UPDATE, addPhones);
+  }
+
+  @Benchmark
+  public List<PhoneInventoryItem> legacyGetPhoneById() {
+    return legacyDispatch(legacyGetPhoneById);
+  }
+
+  @Benchmark
+  public List<PhoneInventoryItem> legacyGetPhonesByModels() {
+    return legacyDispatch(legacyGetPhonesByModels);
+  }
+
+  @Benchmark
+  public List<PhoneInventoryItem> legacyAddTenPhones() {
+    return legacyDispatch(legacyAddPhones);
+  }
+
+  // The consumer's switch before the typed handlers, less its logging (off in logback.xml anyway)
+  @SuppressWarnings("unchecked")
+  private List<PhoneInventoryItem> legacyDispatch(LegacyEvent event) {
+    switch (event.action) {
+      case "GET_PHONE_BY_ID": {
+        Map<String, Object> payloadMap = (Map<String, Object>) event.payload;
+        String phoneId = (String) payloadMap.get("phoneId");
+        if (phoneId == null || phoneId.trim().isEmpty()) {
+          return List.of();
+        }
+        PhoneInventoryItem phone = service.getById(phoneId);
+        return phone != null ? List.of(phone) : List.of();
+      }
+      case "GET_PHONES_BY_MODELS": {
+        Map<String, Object> payloadMap = (Map<String, Object>) event.payload;
+        List<String> models = (List<String>) payloadMap.get("models");
+        if (models == null || models.isEmpty()) {
+          return List.of();
+        }
+        return service.getByModels(models);
+      }
+      case "ADD_PHONES": {
+        List<PhoneInventoryItemRequest> phoneRequests = objectMapper.convertValue(event.payload,
+            objectMapper.getTypeFactory().constructCollectionType(List.class, PhoneInventoryItemRequest.class));
+        return service.addPhones(phoneRequests, event.storeId);
+      }
+      default:
+        return List.of();
+    }
+  }
+
+  private static PhoneInventoryEvent decode(InventoryEventDeserializer deserializer, ObjectMapper objectMapper,
+      String topic, InventoryAction action, Object payload) throws Exception {
+    byte[] json = objectMapper.writeValueAsBytes(InventoryFixtures.event(action.name(), payload));
+    return deserializer.deserialize(topic, json);
+  }
+
+  private static LegacyEvent legacyDecode(ObjectMapper objectMapper, InventoryAction action, Object payload)
+      throws Exception {
+    byte[] json = objectMapper.writeValueAsBytes(InventoryFixtures.event(action.name(), payload));
+    return objectMapper.readValue(json, LegacyEvent.class);
+  }
+
+  /** The event as it was decoded before the typed handlers: the payload as a {@code Map} tree. */
+  @JsonIgnoreProperties(ignoreUnknown = true)
+  public static class LegacyEvent {
+    public String action;
+    public String storeId;
+    public Object payload;
+    public String timestamp;
+  }
+}
@@ -0,0 +1,129 @@
+package com.phonestore.benchmarks;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.phonestore.kafka.InventoryAction;
+import com.phonestore.kafka.InventoryEventDeserializer;
+import com.phonestore.kafka.InventoryHeaders;
+import com.phonestore.kafka.KafkaTopics;
+import com.phonestore.kafka.PhoneInventoryEvent;
+import com.phonestore.kafka.WireFormat;
+import com.phonestore.model.PhoneInventoryItemRequest;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * An ADD_PHONES event on the wire, encoded by chainstore's {@code InventoryEventSerializer} as
+ * in production. {@code serialize} measures that encoding and reports the encoded size as the
+ * {@code encodedBytes} counter. The other benchmarks decode the event as the UPDATE listener
+ * receives it: the envelope through {@link InventoryEventDeserializer}, then the payload bound
+ * to a list of {@link PhoneInventoryItemRequest} through the application ObjectMapper. The
+ * {@code routed*} variants keep the routing headers the serializer writes, so the value is only
+ * read when the payload is bound. Runs for both wire formats.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EventDeserializationBenchmark {
+
+  @Param({"JSON", "CBOR"})
+  public WireFormat format;
+
+  @Param({"1000"})
+  public int phones;
+
+  private com.amdocs.chainstore.kafka.InventoryEventSerializer serializer;
+  private com.amdocs.chainstore.kafka.PhoneInventoryEvent event;
+  private byte[] encoded;
+  private RecordHeaders headers;
+  private RecordHeaders routedHeaders;
+  private InventoryEventDeserializer deserializer;
+  private ObjectMapper objectMapper;
+  private JavaType payloadType;
+  private PhoneInventoryEvent decoded;
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    objectMapper = InventoryFixtures.objectMapper();
+    payloadType = objectMapper.getTypeFactory().constructCollectionType(List.class, PhoneInventoryItemRequest.class);
+
+    serializer = new com.amdocs.chainstore.kafka.InventoryEventSerializer();
+    serializer.configure(Map.of(com.amdocs.chainstore.kafka.InventoryEventSerializer.WIRE_FORMAT_CONFIG,
+        format.name()), false);
+    event = new com.amdocs.chainstore.kafka.PhoneInventoryEvent(InventoryAction.ADD_PHONES.name(),
+        InventoryFixtures.STORE_ID, InventoryFixtures.phoneRequestPayload(phones), System.currentTimeMillis(),
+        UUID.randomUUID().toString());
+    routedHeaders = new RecordHeaders();
+    encoded = serializer.serialize(KafkaTopics.PHONE_INVENTORY_UPDATE, routedHeaders, event);
+    // As sent by chainstore before the routing headers
+    headers = new RecordHeaders(routedHeaders.toArray());
+    InventoryHeaders.ALL.forEach(headers::remove);
+
+    deserializer = new InventoryEventDeserializer();
+    decoded = deserializer.deserialize(KafkaTopics.PHONE_INVENTORY_UPDATE, headers, encoded);
+  }
+
+  /** The size of the encoded event, reported next to the {@code serialize} score. */
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class EncodedSize {
+    public long encodedBytes;
+
+    @Setup(Level.Iteration)
+    public void record(EventDeserializationBenchmark benchmark) {
+      encodedBytes = benchmark.encoded.length;
+    }
+  }
+
+  @Benchmark
+  public byte[] serialize(EncodedSize size) {
+    return serializer.serialize(KafkaTopics.PHONE_INVENTORY_UPDATE, new RecordHeaders(), event);
+  }
+
+  @Benchmark
+  public PhoneInventoryEvent envelope() {
+    return deserializer.deserialize(KafkaTopics.PHONE_INVENTORY_UPDATE, headers, encoded);
+  }
+
+  @Benchmark
+  public Object envelopeAndPayload() throws IOException {
+    PhoneInventoryEvent event = deserializer.deserialize(KafkaTopics.PHONE_INVENTORY_UPDATE, headers, encoded);
+    return event.getPayload().bind(objectMapper, payloadType);
+  }
+
+  @Benchmark
+  public Object payloadOnly() throws IOException {
+    return decoded.getPayload().bind(objectMapper, payloadType);
+  }
+
+  @Benchmark
+  public PhoneInventoryEvent routedEnvelope() {
+    return deserializer.deserialize(KafkaTopics.PHONE_INVENTORY_UPDATE, routedHeaders, encoded);
+  }
+
+  @Benchmark
+  public Object routedEnvelopeAndPayload() throws IOException {
+    PhoneInventoryEvent event = deserializer.deserialize(KafkaTopics.PHONE_INVENTORY_UPDATE, routedHeaders, encoded);
+    return event.getPayload().bind(objectMapper, payloadType);
+  }
+}
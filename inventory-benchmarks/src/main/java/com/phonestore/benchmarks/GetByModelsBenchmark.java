@@ -0,0 +1,92 @@
+package com.phonestore.benchmarks;
+
+import com.mongodb.client.MongoClient;
+import com.phonestore.config.MongoIndexInitializer;
+import com.phonestore.model.PhoneInventoryItem;
+import com.phonestore.repository.PhoneRepository;
+import com.phonestore.repository.PhoneRepositoryCustomImpl;
+import com.phonestore.service.PhoneInventoryService;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+
+/**
+ * {@link PhoneInventoryService#getByModels} against a MongoDB holding collections of growing
+ * size, with the application's indexes. {@code modelIn} is the single {@code $in} query the
+ * service issues; {@code fullScan} is the path it took before, reading the whole collection and
+ * filtering it in Java. Needs the MongoDB given by {@code -Dbenchmark.mongo-uri} (default
+ * {@code mongodb://localhost:27017}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class GetByModelsBenchmark {
+
+  private static final String DATABASE = "phone-store-benchmarks";
+  private static final int INSERT_BATCH = 10_000;
+
+  @Param({"10000", "100000", "1000000"})
+  public int phones;
+
+  private MongoClient client;
+  private MongoTemplate mongoTemplate;
+  private PhoneRepository repository;
+  private PhoneInventoryService service;
+  private final List<String> models = List.of("Apple", "google", "Nokia");
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    client = InventoryFixtures.mongoClient();
+    mongoTemplate = new MongoTemplate(client, DATABASE);
+    mongoTemplate.dropCollection(PhoneInventoryItem.class);
+    List<PhoneInventoryItem> items = InventoryFixtures.phones(phones);
+    for (int from = 0; from < items.size(); from += INSERT_BATCH) {
+      mongoTemplate.insert(items.subList(from, Math.min(from + INSERT_BATCH, items.size())), PhoneInventoryItem.class);
+    }
+    new MongoIndexInitializer(mongoTemplate).provisionIndexes();
+
+    repository = new MongoRepositoryFactory(mongoTemplate)
+        .getRepository(PhoneRepository.class, new PhoneRepositoryCustomImpl(mongoTemplate));
+    service = InventoryFixtures.phoneInventoryService(repository);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    mongoTemplate.dropCollection(PhoneInventoryItem.class);
+    client.close();
+  }
+
+  @Benchmark
+  public List<PhoneInventoryItem> modelIn() {
+    return service.getByModels(models);
+  }
+
+  @Benchmark
+  public List<PhoneInventoryItem> fullScan() {
+    List<String> upperCaseModels = models.stream()
+        .map(String::toUpperCase)
+        .collect(Collectors.toList());
+
+    return repository.findAll().stream()
+        .filter(item -> upperCaseModels.contains(item.getModel().toString().toUpperCase()))
+        .collect(Collectors.toList());
+  }
+}
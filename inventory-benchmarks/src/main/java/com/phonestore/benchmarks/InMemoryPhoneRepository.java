@@ -0,0 +1,71 @@
+package com.phonestore.benchmarks;
+
+import com.phonestore.model.PhoneInventoryItem;
+import com.phonestore.repository.InsertChunkResult;
+import com.phonestore.repository.PhoneRepository;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Stub {@link PhoneRepository} over a list held in memory, so the benchmarks measure the service
+ * and dispatch code rather than Mongo. Only the methods the benchmarked paths call are
+ * implemented; anything else fails loudly.
+ */
+final class InMemoryPhoneRepository implements InvocationHandler {
+
+  private final Map<String, PhoneInventoryItem> phonesById = new LinkedHashMap<>();
+
+  private InMemoryPhoneRepository(List<PhoneInventoryItem> phones) {
+    phones.forEach(phone -> phonesById.put(phone.getId().toString(), phone));
+  }
+
+  static PhoneRepository of(List<PhoneInventoryItem> phones) {
+    return (PhoneRepository) Proxy.newProxyInstance(PhoneRepository.class.getClassLoader(),
+        new Class<?>[] {PhoneRepository.class}, new InMemoryPhoneRepository(phones));
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public Object invoke(Object proxy, Method method, Object[] args) {
+    switch (method.getName()) {
+      case "findById":
+        return Optional.ofNullable(phonesById.get(args[0].toString()));
+      case "findByModelIn":
+        return findByModelIn((Collection<PhoneInventoryItem.ModelEnum>) args[0]);
+      case "saveAll":
+        // Nothing is kept, a benchmark iteration must not grow the data set
+        List<PhoneInventoryItem> saved = new ArrayList<>();
+        ((Iterable<PhoneInventoryItem>) args[0]).forEach(saved::add);
+        return saved;
+      case "insertAll":
+        int count = ((List<PhoneInventoryItem>) args[0]).size();
+        return new InsertChunkResult(0, count, count, List.of());
+      case "toString":
+        return "InMemoryPhoneRepository(" + phonesById.size() + " phones)";
+      case "hashCode":
+        return System.identityHashCode(proxy);
+      case "equals":
+        return proxy == args[0];
+      default:
+        throw new UnsupportedOperationException("Not stubbed: PhoneRepository." + method.getName());
+    }
+  }
+
+  // The same filter Mongo applies for the $in query, done over the whole collection
+  private List<PhoneInventoryItem> findByModelIn(Collection<PhoneInventoryItem.ModelEnum> models) {
+    List<PhoneInventoryItem> result = new ArrayList<>();
+    for (PhoneInventoryItem phone : phonesById.values()) {
+      if (models.contains(phone.getModel())) {
+        result.add(phone);
+      }
+    }
+    return result;
+  }
+}
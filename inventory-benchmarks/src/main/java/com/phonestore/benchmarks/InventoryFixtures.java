@@ -0,0 +1,144 @@
+package com.phonestore.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.phonestore.kafka.InventoryMetrics;
+import com.phonestore.kafka.InventoryOutcomePublisher;
+import com.phonestore.kafka.handler.AddPhonesHandler;
+import com.phonestore.kafka.handler.GetPhoneByIdHandler;
+import com.phonestore.kafka.handler.GetPhonesByModelsHandler;
+import com.phonestore.kafka.handler.InventoryEventHandlerRegistry;
+import com.phonestore.model.PhoneInventoryItem;
+import com.phonestore.model.PhoneInventoryItemRequest;
+import com.phonestore.repository.PhoneRepository;
+import com.phonestore.service.PhoneBulkInserter;
+import com.phonestore.service.PhoneCache;
+import com.phonestore.service.PhoneInventoryService;
+import com.phonestore.service.ShardedStock;
+import com.phonestore.service.StoreInventoryView;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Test data and hand-wired service objects shared by the benchmarks. The data is generated from
+ * a fixed seed so every run, and every commit, measures the same input.
+ */
+final class InventoryFixtures {
+
+  static final String STORE_ID = "store-001";
+  private static final PhoneInventoryItem.ModelEnum[] MODELS = PhoneInventoryItem.ModelEnum.values();
+  private static final String[] TYPES = {"iPhone 16", "Galaxy S24", "OnePlus 12", "Xiaomi 14", "Pixel 9"};
+
+  private InventoryFixtures() {
+  }
+
+  /** The ObjectMapper Spring Boot configures for the application, without the Boot context. */
+  static ObjectMapper objectMapper() {
+    return Jackson2ObjectMapperBuilder.json().build();
+  }
+
+  static List<PhoneInventoryItem> phones(int count) {
+    Random random = new Random(42);
+    List<PhoneInventoryItem> phones = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      PhoneInventoryItem phone = new PhoneInventoryItem();
+      phone.setId(new UUID(random.nextLong(), random.nextLong()));
+      phone.setModel(MODELS[i % MODELS.length]);
+      phone.setType(TYPES[i % TYPES.length]);
+      phone.setQuantity(random.nextInt(100));
+      phone.setPrice(100 + random.nextInt(900) + 0.99);
+      phone.setIsAvailable(phone.getQuantity() > 0);
+      phone.setStoreId("store-" + (i % 50));
+      phone.setDateAdded(OffsetDateTime.now());
+      phones.add(phone);
+    }
+    return phones;
+  }
+
+  /** ADD_PHONES payload items, as chainstore sends them. */
+  static List<Map<String, Object>> phoneRequestPayload(int count) {
+    Random random = new Random(42);
+    List<Map<String, Object>> requests = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      Map<String, Object> request = new LinkedHashMap<>();
+      request.put("type", TYPES[i % TYPES.length]);
+      request.put("model", MODELS[i % MODELS.length].getValue());
+      request.put("quantity", random.nextInt(100));
+      request.put("price", 100 + random.nextInt(900) + 0.99);
+      requests.add(request);
+    }
+    return requests;
+  }
+
+  static List<PhoneInventoryItemRequest> phoneRequests(ObjectMapper objectMapper, int count) {
+    return objectMapper.convertValue(phoneRequestPayload(count),
+        objectMapper.getTypeFactory().constructCollectionType(List.class, PhoneInventoryItemRequest.class));
+  }
+
+  static Map<String, Object> event(String action, Object payload) {
+    Map<String, Object> event = new LinkedHashMap<>();
+    event.put("action", action);
+    event.put("storeId", STORE_ID);
+    event.put("payload", payload);
+    event.put("timestamp", OffsetDateTime.now().toString());
+    // No requestId: outcomes are only published for commands somebody waits on
+    return event;
+  }
+
+  /**
+   * A client for the MongoDB given by {@code -Dbenchmark.mongo-uri} (default
+   * {@code mongodb://localhost:27017}), for the benchmarks that measure real queries.
+   */
+  static MongoClient mongoClient() {
+    String uri = System.getProperty("benchmark.mongo-uri", "mongodb://localhost:27017");
+    return MongoClients.create(MongoClientSettings.builder()
+        .applyConnectionString(new ConnectionString(uri))
+        .applyToClusterSettings(cluster -> cluster.serverSelectionTimeout(2, TimeUnit.SECONDS))
+        .applyToConnectionPoolSettings(pool -> pool.maxSize(32))
+        .build());
+  }
+
+  static PhoneInventoryService phoneInventoryService(List<PhoneInventoryItem> phones) {
+    return phoneInventoryService(InMemoryPhoneRepository.of(phones));
+  }
+
+  static PhoneInventoryService phoneInventoryService(PhoneRepository repository) {
+    PhoneInventoryService service = new PhoneInventoryService();
+    ReflectionTestUtils.setField(service, "repository", repository);
+    ReflectionTestUtils.setField(service, "phoneCache", new PhoneCache(10_000, Duration.ofMinutes(5)));
+    // One chunk per batch on the calling thread, so the measured thread does all the work
+    ReflectionTestUtils.setField(service, "bulkInserter", new PhoneBulkInserter(repository, 1000, 1));
+    ReflectionTestUtils.setField(service, "importBatchSize", 5000);
+    // Disabled: store reads go straight to the repository
+    StoreInventoryView storeInventoryView = new StoreInventoryView(null, repository, null, false, 5000,
+        Duration.ofMinutes(10));
+    ReflectionTestUtils.setField(service, "storeInventoryView", storeInventoryView);
+    // No phone is sharded, so the shard repository is never reached
+    ReflectionTestUtils.setField(service, "shardedStock",
+        new ShardedStock(null, repository, storeInventoryView, List.of(), 8));
+    return service;
+  }
+
+  static InventoryEventHandlerRegistry registry(PhoneInventoryService service, ObjectMapper objectMapper) {
+    // Events carry no requestId, so the publisher never reaches its KafkaTemplate
+    InventoryOutcomePublisher outcomePublisher = new InventoryOutcomePublisher(null);
+    return new InventoryEventHandlerRegistry(List.of(
+        new AddPhonesHandler(service, outcomePublisher, objectMapper),
+        new GetPhoneByIdHandler(service),
+        new GetPhonesByModelsHandler(service)),
+        objectMapper, new InventoryMetrics(new SimpleMeterRegistry()));
+  }
+}
@@ -0,0 +1,89 @@
+package com.phonestore.benchmarks;
+
+import com.mongodb.client.MongoClient;
+import com.phonestore.model.PhoneInventoryItem;
+import com.phonestore.repository.PhoneRepository;
+import com.phonestore.repository.PhoneRepositoryCustomImpl;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+
+/**
+ * Quantity increments from 16 threads spread over {@code phones} documents. {@code atomicIncrement}
+ * is the single guarded {@code $inc} the service issues; {@code readModifyWrite} is the
+ * findById / save pair it used before, which also loses updates under contention. Needs the
+ * MongoDB given by {@code -Dbenchmark.mongo-uri} (default {@code mongodb://localhost:27017}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(16)
+@Fork(1)
+public class QuantityUpdateBenchmark {
+
+  private static final String DATABASE = "phone-store-benchmarks";
+
+  // 1 is a launch-day hot phone, 1000 a catalog with little contention
+  @Param({"1", "1000"})
+  public int phones;
+
+  private MongoClient client;
+  private MongoTemplate mongoTemplate;
+  private PhoneRepository repository;
+  private String[] phoneIds;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    client = InventoryFixtures.mongoClient();
+    mongoTemplate = new MongoTemplate(client, DATABASE);
+    mongoTemplate.dropCollection(PhoneInventoryItem.class);
+    List<PhoneInventoryItem> items = InventoryFixtures.phones(phones);
+    mongoTemplate.insert(items, PhoneInventoryItem.class);
+    phoneIds = items.stream().map(item -> item.getId().toString()).toArray(String[]::new);
+
+    repository = new MongoRepositoryFactory(mongoTemplate)
+        .getRepository(PhoneRepository.class, new PhoneRepositoryCustomImpl(mongoTemplate));
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    mongoTemplate.dropCollection(PhoneInventoryItem.class);
+    client.close();
+  }
+
+  @Benchmark
+  public Optional<PhoneInventoryItem> atomicIncrement() {
+    return repository.increaseQuantity(anyPhone(), 1);
+  }
+
+  @Benchmark
+  public Optional<PhoneInventoryItem> readModifyWrite() {
+    return repository.findById(anyPhone()).map(item -> {
+      item.setQuantity(item.getQuantity() + 1);
+      return repository.save(item);
+    });
+  }
+
+  private String anyPhone() {
+    return phoneIds[ThreadLocalRandom.current().nextInt(phoneIds.length)];
+  }
+}
@@ -0,0 +1,74 @@
+package com.phonestore.benchmarks;
+
+import com.mongodb.client.MongoClient;
+import com.phonestore.repository.AdjustmentOutcome;
+import com.phonestore.repository.StockShard;
+import com.phonestore.repository.StockShardRepositoryCustomImpl;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.mongodb.MongoTransactionManager;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+/**
+ * Launch-day contention: 16 threads taking one unit at a time from the same phone's sharded stock.
+ * With one shard every decrement updates the same document, as an unsharded phone does; compare
+ * the throughput across {@code shards}. Unlike the other benchmarks this one needs a MongoDB,
+ * given by {@code -Dbenchmark.mongo-uri} (default {@code mongodb://localhost:27017}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(16)
+@Fork(1)
+public class ShardedStockContentionBenchmark {
+
+  private static final String DATABASE = "phone-store-benchmarks";
+  // Enough that no run drains a shard, so every decrement succeeds on its first probe
+  private static final int STOCK_PER_SHARD = 10_000_000;
+
+  @Param({"1", "2", "4", "8", "16"})
+  public int shards;
+
+  private MongoClient client;
+  private MongoTemplate mongoTemplate;
+  private StockShardRepositoryCustomImpl repository;
+  private String phoneId;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    client = InventoryFixtures.mongoClient();
+    mongoTemplate = new MongoTemplate(client, DATABASE);
+    mongoTemplate.dropCollection(StockShard.class);
+    repository = new StockShardRepositoryCustomImpl(mongoTemplate,
+        new MongoTransactionManager(mongoTemplate.getMongoDatabaseFactory()));
+    phoneId = UUID.randomUUID().toString();
+    repository.split(phoneId, InventoryFixtures.STORE_ID, STOCK_PER_SHARD * shards, shards);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    mongoTemplate.dropCollection(StockShard.class);
+    client.close();
+  }
+
+  @Benchmark
+  public AdjustmentOutcome decrement() {
+    return repository.decrement(phoneId, InventoryFixtures.STORE_ID, 1, shards);
+  }
+}
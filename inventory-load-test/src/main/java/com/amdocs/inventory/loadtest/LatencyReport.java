@@ -0,0 +1,82 @@
+package com.amdocs.inventory.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Prints the percentile table of a run and writes the same numbers as JSON, so runs before and
+ * after a capacity change can be compared.
+ */
+final class LatencyReport {
+
+  private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+  private LatencyReport() {
+  }
+
+  static void write(LoadTestSettings settings, LoadGenerator.Result result) throws IOException {
+    double seconds = result.elapsedNanos() / 1_000_000_000.0;
+    Map<String, Object> operations = new LinkedHashMap<>();
+    Histogram total = new Histogram(3);
+    long totalErrors = 0;
+
+    System.out.printf("%nTarget rate %d/s for %s, %.1f s measured%n", settings.getRate(), settings.getDuration(), seconds);
+    System.out.printf("%-18s %8s %7s %9s %9s %9s %9s %9s %9s%n",
+        "operation", "count", "errors", "ops/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+    for (Operation operation : settings.getMix().keySet()) {
+      Histogram histogram = result.latencies(operation);
+      long errors = result.errors(operation);
+      total.add(histogram);
+      totalErrors += errors;
+      operations.put(operation.getMixName(), summary(histogram, errors, seconds));
+      print(operation.getMixName(), histogram, errors, seconds);
+    }
+    print("total", total, totalErrors, seconds);
+
+    Map<String, Object> report = new LinkedHashMap<>();
+    report.put("targetRate", settings.getRate());
+    report.put("durationSeconds", seconds);
+    report.put("concurrency", settings.getConcurrency());
+    report.put("mix", settings.getMix());
+    report.put("operations", operations);
+    report.put("total", summary(total, totalErrors, seconds));
+
+    File file = new File(settings.getReportFile());
+    if (file.getParentFile() != null) {
+      file.getParentFile().mkdirs();
+    }
+    new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file, report);
+    System.out.println("Report written to " + file.getAbsolutePath());
+  }
+
+  private static void print(String name, Histogram histogram, long errors, double seconds) {
+    System.out.printf("%-18s %8d %7d %9.1f", name, histogram.getTotalCount(), errors, histogram.getTotalCount() / seconds);
+    for (double percentile : PERCENTILES) {
+      System.out.printf(" %9.2f", millis(histogram.getValueAtPercentile(percentile)));
+    }
+    System.out.printf(" %9.2f%n", millis(histogram.getMaxValue()));
+  }
+
+  private static Map<String, Object> summary(Histogram histogram, long errors, double seconds) {
+    Map<String, Object> summary = new LinkedHashMap<>();
+    summary.put("count", histogram.getTotalCount());
+    summary.put("errors", errors);
+    summary.put("throughputPerSecond", histogram.getTotalCount() / seconds);
+    Map<String, Double> percentiles = new LinkedHashMap<>();
+    for (double percentile : PERCENTILES) {
+      percentiles.put("p" + percentile, millis(histogram.getValueAtPercentile(percentile)));
+    }
+    percentiles.put("max", millis(histogram.getMaxValue()));
+    summary.put("latencyMillis", percentiles);
+    return summary;
+  }
+
+  private static double millis(long micros) {
+    return micros / 1000.0;
+  }
+}
@@ -0,0 +1,132 @@
+package com.amdocs.inventory.loadtest;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Open-loop generator: operations are started on a fixed schedule at the target rate, whether or
+ * not earlier ones have finished. Latency is measured from the scheduled start, so time spent
+ * queueing for a worker counts, and a slow system cannot hide its backlog by slowing the
+ * generator down (coordinated omission).
+ */
+final class LoadGenerator {
+
+  private final LoadTestSettings settings;
+  private final StoreClient client;
+  private final String storeId;
+  private final List<String> phoneIds;
+  private final Operation[] schedule;
+
+  LoadGenerator(LoadTestSettings settings, StoreClient client, String storeId, List<String> phoneIds) {
+    this.settings = settings;
+    this.client = client;
+    this.storeId = storeId;
+    this.phoneIds = phoneIds;
+    this.schedule = expand(settings.getMix());
+  }
+
+  Result run(Duration duration) throws InterruptedException {
+    Result result = new Result();
+    ExecutorService workers = Executors.newFixedThreadPool(settings.getConcurrency());
+    long intervalNanos = TimeUnit.SECONDS.toNanos(1) / settings.getRate();
+    long start = System.nanoTime();
+    long end = start + duration.toNanos();
+    try {
+      for (long next = start; next < end; next += intervalNanos) {
+        long wait = next - System.nanoTime();
+        if (wait > 0) {
+          LockSupport.parkNanos(wait);
+        }
+        long scheduled = next;
+        Operation operation = schedule[ThreadLocalRandom.current().nextInt(schedule.length)];
+        workers.execute(() -> execute(operation, scheduled, result));
+      }
+    } finally {
+      workers.shutdown();
+      // In-flight operations still finish and are counted
+      workers.awaitTermination(settings.getOutcomeTimeout().toSeconds() + 30, TimeUnit.SECONDS);
+      result.elapsedNanos = System.nanoTime() - start;
+    }
+    return result;
+  }
+
+  private void execute(Operation operation, long scheduled, Result result) {
+    try {
+      String phoneId = phoneIds.get(ThreadLocalRandom.current().nextInt(phoneIds.size()));
+      switch (operation) {
+        case ORDER_PHONES:
+          client.orderPhone(storeId, phoneId);
+          break;
+        case INCREASE_QUANTITY:
+          client.increaseQuantity(storeId, phoneId);
+          break;
+        case CATALOG:
+          client.catalog();
+          break;
+        case ADD_PHONES:
+          client.addPhones(storeId, settings.getPhonesPerAdd());
+          break;
+        default:
+          throw new IllegalStateException("Unhandled operation " + operation);
+      }
+      result.record(operation, System.nanoTime() - scheduled);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      result.error(operation);
+    } catch (Exception e) {
+      result.error(operation);
+    }
+  }
+
+  // One slot per unit of weight, so a uniform pick follows the mix
+  private static Operation[] expand(Map<Operation, Integer> mix) {
+    return mix.entrySet().stream()
+        .flatMap(entry -> Collections.nCopies(entry.getValue(), entry.getKey()).stream())
+        .toArray(Operation[]::new);
+  }
+
+  /** Latencies in microseconds per operation, and error counts. */
+  static final class Result {
+    private final Map<Operation, Histogram> latencies = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> errors = new EnumMap<>(Operation.class);
+    private long elapsedNanos;
+
+    private Result() {
+      for (Operation operation : Operation.values()) {
+        latencies.put(operation, new ConcurrentHistogram(3));
+        errors.put(operation, new LongAdder());
+      }
+    }
+
+    private void record(Operation operation, long nanos) {
+      latencies.get(operation).recordValue(TimeUnit.NANOSECONDS.toMicros(nanos));
+    }
+
+    private void error(Operation operation) {
+      errors.get(operation).increment();
+    }
+
+    Histogram latencies(Operation operation) {
+      return latencies.get(operation);
+    }
+
+    long errors(Operation operation) {
+      return errors.get(operation).sum();
+    }
+
+    long elapsedNanos() {
+      return elapsedNanos;
+    }
+  }
+}
@@ -0,0 +1,41 @@
+package com.amdocs.inventory.loadtest;
+
+import java.util.List;
+
+/**
+ * Boots chainstore and phone-store against embedded Kafka and Mongo, seeds one store, drives the
+ * configured request mix at the target rate and reports end-to-end latency percentiles.
+ *
+ * <pre>
+ * mvn exec:java -Dloadtest.rate=300 -Dloadtest.duration=2m \
+ *     -Dloadtest.mix=orderPhones=50,increaseQuantity=30,catalog=5,addPhones=15
+ * </pre>
+ *
+ * See {@link LoadTestSettings} for all parameters.
+ */
+public final class LoadTest {
+
+  private LoadTest() {
+  }
+
+  public static void main(String[] args) throws Exception {
+    LoadTestSettings settings = LoadTestSettings.fromSystemProperties();
+    try (LoadTestEnvironment environment = LoadTestEnvironment.start(settings)) {
+      StoreClient client = new StoreClient(environment.chainstoreUrl(), settings.getOutcomeTimeout());
+      String storeId = client.createStore();
+      List<String> phoneIds = client.addPhones(storeId, settings.getSeedPhones());
+      if (phoneIds.isEmpty()) {
+        throw new IllegalStateException("Seeding store " + storeId + " returned no phone ids");
+      }
+      System.out.printf("Seeded store %s with %d phones%n", storeId, phoneIds.size());
+
+      LoadGenerator generator = new LoadGenerator(settings, client, storeId, phoneIds);
+      if (!settings.getWarmup().isZero()) {
+        System.out.println("Warming up for " + settings.getWarmup());
+        generator.run(settings.getWarmup());
+      }
+      System.out.println("Measuring for " + settings.getDuration());
+      LatencyReport.write(settings, generator.run(settings.getDuration()));
+    }
+  }
+}
@@ -0,0 +1,102 @@
+package com.amdocs.inventory.loadtest;
+
+import com.amdocs.chainstore.ChainstoreApplication;
+import com.phonestore.InventoryServiceApplication;
+import de.flapdoodle.embed.mongo.commands.ServerAddress;
+import de.flapdoodle.embed.mongo.distribution.Version;
+import de.flapdoodle.embed.mongo.transitions.Mongod;
+import de.flapdoodle.embed.mongo.transitions.RunningMongodProcess;
+import de.flapdoodle.reverse.TransitionWalker;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.KafkaMessageListenerContainer;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+import org.springframework.kafka.test.utils.ContainerTestUtils;
+
+/**
+ * Both services in this JVM, wired to an embedded Kafka broker and to an embedded mongod (or the
+ * Mongo given by {@code loadtest.mongo-uri}). Each service runs in its own application context
+ * with its own port and database.
+ */
+final class LoadTestEnvironment implements AutoCloseable {
+
+  // Matches inventory.kafka.topic-partitions and chainstore.kafka.reply.topic-partitions
+  private static final int TOPIC_PARTITIONS = 3;
+
+  private final EmbeddedKafkaKraftBroker kafka;
+  private final TransitionWalker.ReachedState<RunningMongodProcess> mongod;
+  private final ConfigurableApplicationContext phoneStore;
+  private final ConfigurableApplicationContext chainstore;
+
+  private LoadTestEnvironment(EmbeddedKafkaKraftBroker kafka, TransitionWalker.ReachedState<RunningMongodProcess> mongod,
+      ConfigurableApplicationContext phoneStore, ConfigurableApplicationContext chainstore) {
+    this.kafka = kafka;
+    this.mongod = mongod;
+    this.phoneStore = phoneStore;
+    this.chainstore = chainstore;
+  }
+
+  static LoadTestEnvironment start(LoadTestSettings settings) {
+    EmbeddedKafkaKraftBroker kafka = new EmbeddedKafkaKraftBroker(1, TOPIC_PARTITIONS);
+    kafka.afterPropertiesSet();
+    String brokers = kafka.getBrokersAsString();
+    System.out.println("Embedded Kafka started at " + brokers);
+
+    TransitionWalker.ReachedState<RunningMongodProcess> mongod = null;
+    String mongoUri = settings.getMongoUri();
+    if (mongoUri == null) {
+      mongod = Mongod.instance().start(Version.Main.V6_0);
+      ServerAddress address = mongod.current().getServerAddress();
+      mongoUri = "mongodb://" + address.getHost() + ":" + address.getPort();
+      System.out.println("Embedded mongod started at " + mongoUri);
+    }
+
+    ConfigurableApplicationContext phoneStore = new SpringApplicationBuilder(InventoryServiceApplication.class)
+        .properties(
+            "spring.config.location=classpath:/loadtest/phone-store.yaml",
+            "spring.kafka.bootstrap-servers=" + brokers,
+            "spring.data.mongodb.uri=" + mongoUri + "/phone-store-loadtest")
+        .run();
+    ConfigurableApplicationContext chainstore = new SpringApplicationBuilder(ChainstoreApplication.class)
+        .properties(
+            "spring.config.location=classpath:/loadtest/chainstore.yaml",
+            "spring.kafka.bootstrap-servers=" + brokers,
+            "spring.data.mongodb.uri=" + mongoUri + "/chain-store-loadtest")
+        .run();
+
+    // Both services consume from the latest offset, so nothing may be sent before every
+    // listener owns its partitions
+    awaitAssignment(phoneStore);
+    awaitAssignment(chainstore);
+    chainstore.getBeansOfType(KafkaMessageListenerContainer.class).values()
+        .forEach(container -> ContainerTestUtils.waitForAssignment(container, TOPIC_PARTITIONS));
+
+    return new LoadTestEnvironment(kafka, mongod, phoneStore, chainstore);
+  }
+
+  String chainstoreUrl() {
+    return "http://localhost:" + ((WebServerApplicationContext) chainstore).getWebServer().getPort();
+  }
+
+  private static void awaitAssignment(ConfigurableApplicationContext context) {
+    for (MessageListenerContainer container : context.getBean(KafkaListenerEndpointRegistry.class)
+        .getListenerContainers()) {
+      if (container.isRunning()) {
+        ContainerTestUtils.waitForAssignment(container, TOPIC_PARTITIONS);
+      }
+    }
+  }
+
+  @Override
+  public void close() {
+    chainstore.close();
+    phoneStore.close();
+    if (mongod != null) {
+      mongod.close();
+    }
+    kafka.destroy();
+  }
+}
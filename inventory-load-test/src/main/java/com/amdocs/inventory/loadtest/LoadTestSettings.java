@@ -0,0 +1,42 @@
+package com.amdocs.inventory.loadtest;
+
+import java.time.Duration;
+import java.util.Map;
+import lombok.Value;
+import org.springframework.boot.convert.DurationStyle;
+
+/** Load test parameters, read from {@code -Dloadtest.*} system properties. */
+@Value
+class LoadTestSettings {
+
+  int rate;
+  Duration warmup;
+  Duration duration;
+  Map<Operation, Integer> mix;
+  int concurrency;
+  int seedPhones;
+  int phonesPerAdd;
+  Duration outcomeTimeout;
+  String mongoUri;
+  String reportFile;
+
+  static LoadTestSettings fromSystemProperties() {
+    return new LoadTestSettings(
+        Integer.getInteger("loadtest.rate", 200),
+        duration("loadtest.warmup", "10s"),
+        duration("loadtest.duration", "60s"),
+        Operation.parseMix(System.getProperty("loadtest.mix",
+            "orderPhones=40,increaseQuantity=30,catalog=10,addPhones=20")),
+        Integer.getInteger("loadtest.concurrency", 64),
+        Integer.getInteger("loadtest.seed-phones", 200),
+        Integer.getInteger("loadtest.phones-per-add", 5),
+        duration("loadtest.outcome-timeout", "30s"),
+        // Unset: an embedded mongod is started for the run
+        System.getProperty("loadtest.mongo-uri"),
+        System.getProperty("loadtest.report-file", "target/loadtest-report.json"));
+  }
+
+  private static Duration duration(String property, String defaultValue) {
+    return DurationStyle.detectAndParse(System.getProperty(property, defaultValue));
+  }
+}
@@ -0,0 +1,53 @@
+package com.amdocs.inventory.loadtest;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+/** The StoreController calls the load generator mixes, named as in {@code loadtest.mix}. */
+enum Operation {
+  ORDER_PHONES("orderPhones"),
+  INCREASE_QUANTITY("increaseQuantity"),
+  CATALOG("catalog"),
+  ADD_PHONES("addPhones");
+
+  private final String mixName;
+
+  Operation(String mixName) {
+    this.mixName = mixName;
+  }
+
+  String getMixName() {
+    return mixName;
+  }
+
+  /** Parses a mix such as {@code orderPhones=40,increaseQuantity=30,catalog=10,addPhones=20}. */
+  static Map<Operation, Integer> parseMix(String mix) {
+    Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+    for (String entry : mix.split(",")) {
+      String[] parts = entry.trim().split("=");
+      if (parts.length != 2) {
+        throw new IllegalArgumentException("Invalid mix entry '" + entry + "', expected name=weight");
+      }
+      Operation operation = fromMixName(parts[0].trim());
+      int weight = Integer.parseInt(parts[1].trim());
+      if (weight < 0) {
+        throw new IllegalArgumentException("Mix weight cannot be negative: " + entry);
+      }
+      weights.put(operation, weight);
+    }
+    if (weights.values().stream().mapToInt(Integer::intValue).sum() == 0) {
+      throw new IllegalArgumentException("Mix has no operation with a positive weight: " + mix);
+    }
+    return weights;
+  }
+
+  private static Operation fromMixName(String name) {
+    for (Operation operation : values()) {
+      if (operation.mixName.toLowerCase(Locale.ROOT).equals(name.toLowerCase(Locale.ROOT))) {
+        return operation;
+      }
+    }
+    throw new IllegalArgumentException("Unknown operation in mix: " + name);
+  }
+}
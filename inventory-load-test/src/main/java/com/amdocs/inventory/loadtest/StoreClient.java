@@ -0,0 +1,123 @@
+package com.amdocs.inventory.loadtest;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Calls the chainstore REST API the way store-ui does. Commands are only done once phone-store
+ * reported their outcome, which is awaited through the {@code /store/requests/{requestId}}
+ * long-poll, so their latency covers REST, the outbox, Kafka and the Mongo write.
+ */
+final class StoreClient {
+
+  private static final String[] MODELS = {"Apple", "Samsung", "OnePlus", "Xiaomi", "Google"};
+  private static final String[] TYPES = {"iPhone 16", "Galaxy S24", "OnePlus 12", "Xiaomi 14", "Pixel 9"};
+  private static final TypeReference<Map<String, Object>> MAP = new TypeReference<>() { };
+
+  private final HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+  private final ObjectMapper objectMapper = new ObjectMapper();
+  private final String baseUrl;
+  private final Duration outcomeTimeout;
+
+  StoreClient(String baseUrl, Duration outcomeTimeout) {
+    this.baseUrl = baseUrl;
+    this.outcomeTimeout = outcomeTimeout;
+  }
+
+  String createStore() throws IOException, InterruptedException {
+    Map<String, Object> store = Map.of(
+        "storeName", "Load Test Store " + ThreadLocalRandom.current().nextInt(1000),
+        "address", "1 Benchmark Road, Test City",
+        "managerName", "Load Tester");
+    return (String) objectMapper.readValue(call("POST", "/store/createStore", store), MAP).get("id");
+  }
+
+  List<String> addPhones(String storeId, int count) throws IOException, InterruptedException {
+    List<Map<String, Object>> phones = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      Map<String, Object> phone = new LinkedHashMap<>();
+      phone.put("type", TYPES[i % TYPES.length]);
+      phone.put("model", MODELS[i % MODELS.length]);
+      phone.put("quantity", 1000);
+      phone.put("price", 499.99);
+      phones.add(phone);
+    }
+    Map<String, Object> outcome = awaitOutcome(command("POST", "/store/" + storeId + "/addPhones", phones));
+    @SuppressWarnings("unchecked")
+    Map<String, Object> details = (Map<String, Object>) outcome.getOrDefault("details", Map.of());
+    @SuppressWarnings("unchecked")
+    List<String> phoneIds = (List<String>) details.getOrDefault("phoneIds", List.of());
+    return phoneIds;
+  }
+
+  void orderPhone(String storeId, String phoneId) throws IOException, InterruptedException {
+    Map<String, Object> order = Map.of(
+        "storeId", storeId,
+        "orders", List.of(Map.of("phoneId", phoneId, "quantity", 1, "storeId", storeId)));
+    awaitOutcome(command("POST", "/store/orderPhones", order));
+  }
+
+  void increaseQuantity(String storeId, String phoneId) throws IOException, InterruptedException {
+    awaitOutcome(command("PUT", "/store/increaseQuantity",
+        Map.of("storeId", storeId, "phoneId", phoneId, "quantity", 1)));
+  }
+
+  void catalog() throws IOException, InterruptedException {
+    call("GET", "/store/catalog", null);
+  }
+
+  private String command(String method, String path, Object body) throws IOException, InterruptedException {
+    return (String) objectMapper.readValue(call(method, path, body), MAP).get("requestId");
+  }
+
+  // Throws when the command failed or no outcome arrived in time, so the caller counts an error
+  private Map<String, Object> awaitOutcome(String requestId) throws IOException, InterruptedException {
+    long deadline = System.nanoTime() + outcomeTimeout.toNanos();
+    while (true) {
+      long remainingMillis = Math.max(1, (deadline - System.nanoTime()) / 1_000_000);
+      HttpResponse<String> response = send("GET",
+          "/store/requests/" + requestId + "?timeoutMs=" + Math.min(remainingMillis, 30_000), null);
+      if (response.statusCode() == 200) {
+        Map<String, Object> outcome = objectMapper.readValue(response.body(), MAP);
+        if ("FAILED".equals(outcome.get("status"))) {
+          throw new IOException("Request " + requestId + " failed: " + outcome.get("message"));
+        }
+        return outcome;
+      }
+      if (response.statusCode() != 202) {
+        throw new IOException("Status of request " + requestId + " answered with " + response.statusCode());
+      }
+      if (System.nanoTime() >= deadline) {
+        throw new IOException("No outcome for request " + requestId + " within " + outcomeTimeout);
+      }
+    }
+  }
+
+  private String call(String method, String path, Object body) throws IOException, InterruptedException {
+    HttpResponse<String> response = send(method, path, body);
+    if (response.statusCode() / 100 != 2) {
+      throw new IOException(method + " " + path + " answered with " + response.statusCode() + ": " + response.body());
+    }
+    return response.body();
+  }
+
+  private HttpResponse<String> send(String method, String path, Object body) throws IOException, InterruptedException {
+    HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+        .timeout(outcomeTimeout.plusSeconds(5))
+        .header("Content-Type", "application/json");
+    request.method(method, body == null ? HttpRequest.BodyPublishers.noBody()
+        : HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)));
+    return http.send(request.build(), HttpResponse.BodyHandlers.ofString());
+  }
+}
@@ -1,17 +1,41 @@
 package com.phonestore.config;
 
+import com.phonestore.kafka.InventoryEventDeserializer;
+import com.phonestore.kafka.InventoryEventSerializer;
+import com.phonestore.kafka.InventoryWriteBehindConsumer;
+import com.phonestore.kafka.KafkaTopics;
 import com.phonestore.kafka.PhoneInventoryEvent;
+import com.phonestore.kafka.PollMetricsInterceptor;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.admin.NewTopic;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
 import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 import org.springframework.kafka.annotation.EnableKafka;
+import org.springframework.kafka.config.TopicBuilder;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
-import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.MicrometerConsumerListener;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.support.serializer.DelegatingByTypeSerializer;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
+import org.springframework.util.backoff.ExponentialBackOff;
 
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -22,24 +46,156 @@ public class KafkaConfig {
   @Value("${spring.kafka.bootstrap-servers}")
   private String bootstrapServers;
 
+  @Value("${inventory.kafka.update-batch.max-poll-records:500}")
+  private int batchMaxPollRecords;
+
+  @Value("${inventory.kafka.write-behind.max-poll-records:500}")
+  private int writeBehindMaxPollRecords;
+
+  @Value("${inventory.kafka.write-behind.flush-interval:200ms}")
+  private Duration writeBehindFlushInterval;
+
+  @Value("${inventory.kafka.topic-partitions:3}")
+  private int topicPartitions;
+
+  @Value("${inventory.kafka.retry.initial-delay-ms:1000}")
+  private long retryInitialDelayMs;
+
+  @Value("${inventory.kafka.retry.multiplier:2.0}")
+  private double retryMultiplier;
+
+  @Value("${inventory.kafka.retry.max-delay-ms:30000}")
+  private long retryMaxDelayMs;
+
+  @Value("${inventory.kafka.retry.attempts:4}")
+  private int retryAttempts;
+
+  // Listener concurrency per topic is only useful up to the partition count, so the topics are
+  // declared here (existing topics with fewer partitions are grown by KafkaAdmin)
   @Bean
-  public ConsumerFactory<String, PhoneInventoryEvent> consumerFactory() {
-    Map<String, Object> configProps = new HashMap<>();
-    configProps.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
-    configProps.put(ConsumerConfig.GROUP_ID_CONFIG, "phone-inventory-group");
-    configProps.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
-    configProps.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, JsonDeserializer.class);
-    configProps.put(JsonDeserializer.TRUSTED_PACKAGES, "*");
-    configProps.put(JsonDeserializer.VALUE_DEFAULT_TYPE, PhoneInventoryEvent.class.getName());
+  public NewTopic phoneInventoryGetTopic() {
+    return TopicBuilder.name(KafkaTopics.PHONE_INVENTORY_GET).partitions(topicPartitions).build();
+  }
 
-    return new DefaultKafkaConsumerFactory<>(configProps);
+  @Bean
+  public NewTopic phoneInventoryUpdateTopic() {
+    return TopicBuilder.name(KafkaTopics.PHONE_INVENTORY_UPDATE).partitions(topicPartitions).build();
   }
 
   @Bean
-  public ConcurrentKafkaListenerContainerFactory<String, PhoneInventoryEvent> kafkaListenerContainerFactory() {
+  public NewTopic phoneInventoryDeleteTopic() {
+    return TopicBuilder.name(KafkaTopics.PHONE_INVENTORY_DELETE).partitions(topicPartitions).build();
+  }
+
+  @Bean
+  public NewTopic phoneInventoryOutcomesTopic() {
+    return TopicBuilder.name(KafkaTopics.PHONE_INVENTORY_OUTCOMES).partitions(topicPartitions).build();
+  }
+
+  // Declared because deadLetterKafkaTemplate would otherwise make Boot back off from this one
+  @Bean
+  @Primary
+  public KafkaTemplate<String, Object> kafkaTemplate(ProducerFactory<String, Object> producerFactory) {
+    return new KafkaTemplate<>(producerFactory);
+  }
+
+  // Used for retry and dead-letter topics and for DLT replay. Records that failed
+  // deserialization only have their raw bytes, which must be forwarded as they are, with their
+  // original content-type header.
+  @Bean
+  public KafkaTemplate<String, Object> deadLetterKafkaTemplate(ProducerFactory<String, Object> producerFactory) {
+    DelegatingByTypeSerializer valueSerializer = new DelegatingByTypeSerializer(
+        Map.of(byte[].class, new ByteArraySerializer(), Object.class, new InventoryEventSerializer()), true);
+    return new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(producerFactory.getConfigurationProperties(),
+        new StringSerializer(), valueSerializer));
+  }
+
+  @Bean
+  public ConsumerFactory<String, PhoneInventoryEvent> consumerFactory(MeterRegistry meterRegistry) {
+    return instrumented(new DefaultKafkaConsumerFactory<>(consumerConfigs(meterRegistry)), meterRegistry);
+  }
+
+  @Bean
+  public ConcurrentKafkaListenerContainerFactory<String, PhoneInventoryEvent> kafkaListenerContainerFactory(
+      ConsumerFactory<String, PhoneInventoryEvent> consumerFactory, KafkaTemplate<String, Object> kafkaTemplate) {
+    ConcurrentKafkaListenerContainerFactory<String, PhoneInventoryEvent> factory =
+        new ConcurrentKafkaListenerContainerFactory<>();
+    factory.setConsumerFactory(consumerFactory);
+    // Sends the @SendTo results of the GET listener to the reply topic named in the request
+    factory.setReplyTemplate(kafkaTemplate);
+    return factory;
+  }
+
+  @Bean
+  public ConcurrentKafkaListenerContainerFactory<String, PhoneInventoryEvent> batchKafkaListenerContainerFactory(
+      @Qualifier("deadLetterKafkaTemplate") KafkaTemplate<String, Object> deadLetterKafkaTemplate,
+      MeterRegistry meterRegistry) {
+    Map<String, Object> configProps = consumerConfigs(meterRegistry);
+    configProps.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, batchMaxPollRecords);
+
+    ConcurrentKafkaListenerContainerFactory<String, PhoneInventoryEvent> factory =
+        new ConcurrentKafkaListenerContainerFactory<>();
+    factory.setConsumerFactory(instrumented(new DefaultKafkaConsumerFactory<>(configProps), meterRegistry));
+    factory.setBatchListener(true);
+    // Offsets of a poll are committed only after the listener has returned for the whole batch
+    factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.BATCH);
+    factory.setCommonErrorHandler(batchErrorHandler(deadLetterKafkaTemplate));
+    return factory;
+  }
+
+  // Batch listener that commits its offsets itself, each partition after its flush
+  @Bean
+  public ConcurrentKafkaListenerContainerFactory<String, PhoneInventoryEvent> writeBehindKafkaListenerContainerFactory(
+      @Qualifier("deadLetterKafkaTemplate") KafkaTemplate<String, Object> deadLetterKafkaTemplate,
+      MeterRegistry meterRegistry, ObjectProvider<InventoryWriteBehindConsumer> writeBehindConsumer) {
+    Map<String, Object> configProps = consumerConfigs(meterRegistry);
+    configProps.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, writeBehindMaxPollRecords);
+
     ConcurrentKafkaListenerContainerFactory<String, PhoneInventoryEvent> factory =
         new ConcurrentKafkaListenerContainerFactory<>();
-    factory.setConsumerFactory(consumerFactory());
+    factory.setConsumerFactory(instrumented(new DefaultKafkaConsumerFactory<>(configProps), meterRegistry));
+    factory.setBatchListener(true);
+    // Never acknowledged: the listener commits through the consumer once the deltas are written
+    factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+    // Idle events flush what is pending when no more records arrive
+    factory.getContainerProperties().setIdleEventInterval(writeBehindFlushInterval.toMillis());
+    writeBehindConsumer.ifAvailable(factory.getContainerProperties()::setConsumerRebalanceListener);
+    factory.setCommonErrorHandler(batchErrorHandler(deadLetterKafkaTemplate));
     return factory;
   }
-}
\ No newline at end of file
+
+  // Retry topics do not support batch listeners: a record reported through
+  // BatchListenerFailedException is retried in place with backoff, then dead-lettered, while
+  // the records before it in the poll are committed
+  private DefaultErrorHandler batchErrorHandler(KafkaTemplate<String, Object> deadLetterKafkaTemplate) {
+    ExponentialBackOff backOff = new ExponentialBackOff(retryInitialDelayMs, retryMultiplier);
+    backOff.setMaxInterval(retryMaxDelayMs);
+    backOff.setMaxAttempts(retryAttempts - 1);
+    DeadLetterPublishingRecoverer recoverer = new DeadLetterPublishingRecoverer(deadLetterKafkaTemplate,
+        (record, exception) -> new TopicPartition(record.topic() + KafkaTopics.DLT_SUFFIX, -1));
+    return new DefaultErrorHandler(recoverer, backOff);
+  }
+
+  // Binds the Kafka client metrics of every consumer, among them records-lag-max and the
+  // per-partition records-lag gauges
+  private DefaultKafkaConsumerFactory<String, PhoneInventoryEvent> instrumented(
+      DefaultKafkaConsumerFactory<String, PhoneInventoryEvent> consumerFactory, MeterRegistry meterRegistry) {
+    consumerFactory.addListener(new MicrometerConsumerListener<>(meterRegistry));
+    return consumerFactory;
+  }
+
+  private Map<String, Object> consumerConfigs(MeterRegistry meterRegistry) {
+    Map<String, Object> configProps = new HashMap<>();
+    configProps.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+    configProps.put(ConsumerConfig.GROUP_ID_CONFIG, "phone-inventory-group");
+    configProps.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+    // Records that cannot be deserialized reach the error handler, which dead-letters them,
+    // instead of failing every poll of the partition
+    configProps.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ErrorHandlingDeserializer.class);
+    configProps.put(ErrorHandlingDeserializer.VALUE_DESERIALIZER_CLASS, InventoryEventDeserializer.class);
+    configProps.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+    configProps.put(ConsumerConfig.INTERCEPTOR_CLASSES_CONFIG, PollMetricsInterceptor.class.getName());
+    configProps.put(PollMetricsInterceptor.METER_REGISTRY_CONFIG, meterRegistry);
+    return configProps;
+  }
+}
@@ -4,6 +4,8 @@ import java.util.UUID;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.convert.converter.Converter;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.MongoTransactionManager;
 import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
 
 import java.time.OffsetDateTime;
@@ -23,6 +25,13 @@ public class MongoConfig {
     ));
   }
 
+  // Moves between stock shards are transactions, which needs MongoDB to run as a replica set (a
+  // single-node one is enough) once inventory.sharded-stock.phone-ids is set
+  @Bean
+  public MongoTransactionManager transactionManager(MongoDatabaseFactory databaseFactory) {
+    return new MongoTransactionManager(databaseFactory);
+  }
+
   public class OffsetDateTimeReadConverter implements Converter<Date, OffsetDateTime> {
     @Override
     public OffsetDateTime convert(Date date) {
@@ -0,0 +1,134 @@
+package com.phonestore.config;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.phonestore.model.PhoneInventoryItem;
+import com.phonestore.repository.StockShard;
+import com.phonestore.repository.StoreInventory;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.stereotype.Component;
+
+/**
+ * Creates the compound indexes behind the {@code PhoneRepository} query shapes at startup.
+ * {@code PhoneInventoryItem} is generated from {@code phone-inventory.yaml}, so the indexes
+ * cannot be declared on the document class itself.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class MongoIndexInitializer {
+
+  static final String STORE_MODEL_INDEX = "storeId_model";
+  static final String MODEL_AVAILABILITY_INDEX = "model_isAvailable";
+  static final String STORE_AVAILABILITY_QUANTITY_INDEX = "storeId_isAvailable_quantity";
+  static final String STOCK_SHARD_PHONE_INDEX = "phoneId";
+  static final String STORE_INVENTORY_PHONE_INDEX = "phoneIds";
+
+  private final MongoTemplate mongoTemplate;
+
+  @Value("${inventory.mongo.index-diagnostics:false}")
+  private boolean diagnosticsEnabled;
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void provisionIndexes() {
+    IndexOperations indexOps = mongoTemplate.indexOps(PhoneInventoryItem.class);
+
+    indexOps.ensureIndex(new Index()
+        .on("storeId", Sort.Direction.ASC)
+        .on("model", Sort.Direction.ASC)
+        .named(STORE_MODEL_INDEX));
+    indexOps.ensureIndex(new Index()
+        .on("model", Sort.Direction.ASC)
+        .on("isAvailable", Sort.Direction.ASC)
+        .named(MODEL_AVAILABILITY_INDEX));
+    indexOps.ensureIndex(new Index()
+        .on("storeId", Sort.Direction.ASC)
+        .on("isAvailable", Sort.Direction.ASC)
+        .on("quantity", Sort.Direction.ASC)
+        .named(STORE_AVAILABILITY_QUANTITY_INDEX));
+    // Sharded stock is read and dropped by phone
+    mongoTemplate.indexOps(StockShard.class).ensureIndex(new Index()
+        .on("phoneId", Sort.Direction.ASC)
+        .named(STOCK_SHARD_PHONE_INDEX));
+    // Store summaries are updated by phone id
+    mongoTemplate.indexOps(StoreInventory.class).ensureIndex(new Index()
+        .on("phoneIds", Sort.Direction.ASC)
+        .named(STORE_INVENTORY_PHONE_INDEX));
+
+    Set<String> existing = indexOps.getIndexInfo().stream()
+        .map(IndexInfo::getName)
+        .collect(Collectors.toSet());
+    List<String> missing = List.of(STORE_MODEL_INDEX, MODEL_AVAILABILITY_INDEX, STORE_AVAILABILITY_QUANTITY_INDEX)
+        .stream()
+        .filter(name -> !existing.contains(name))
+        .collect(Collectors.toList());
+    if (missing.isEmpty()) {
+      log.info("Phone inventory indexes verified: {}", existing);
+    } else {
+      log.error("Phone inventory indexes missing after provisioning: {}", missing);
+    }
+
+    if (diagnosticsEnabled) {
+      explainQueryShapes();
+    }
+  }
+
+  private void explainQueryShapes() {
+    MongoCollection<Document> collection =
+        mongoTemplate.getCollection(mongoTemplate.getCollectionName(PhoneInventoryItem.class));
+    String sampleId = UUID.randomUUID().toString();
+
+    // One representative filter per PhoneRepository / PhoneInventoryService query shape
+    Map<String, Bson> shapes = new LinkedHashMap<>();
+    shapes.put("findByStoreId / deleteByStoreId", Filters.eq("storeId", "diagnostics"));
+    shapes.put("findByModelIn", Filters.in("model", PhoneInventoryItem.ModelEnum.APPLE.name()));
+    shapes.put("findByIdAndStoreId", Filters.and(Filters.eq("_id", sampleId), Filters.eq("storeId", "diagnostics")));
+    shapes.put("available stock by store", Filters.and(Filters.eq("storeId", "diagnostics"),
+        Filters.eq("isAvailable", true), Filters.gt("quantity", 0)));
+
+    shapes.forEach((shape, filter) -> {
+      try {
+        Document explain = collection.find(filter).explain();
+        Object winningPlan = ((Document) explain.get("queryPlanner")).get("winningPlan");
+        if (containsStage(winningPlan, "COLLSCAN")) {
+          log.warn("Query shape '{}' still uses a COLLSCAN: {}", shape, winningPlan);
+        } else {
+          log.info("Query shape '{}' is served by an index", shape);
+        }
+      } catch (Exception e) {
+        log.warn("Could not explain query shape '{}': {}", shape, e.getMessage());
+      }
+    });
+  }
+
+  private boolean containsStage(Object plan, String stage) {
+    if (plan instanceof Document) {
+      Document document = (Document) plan;
+      if (stage.equals(document.get("stage"))) {
+        return true;
+      }
+      return document.values().stream().anyMatch(value -> containsStage(value, stage));
+    }
+    if (plan instanceof List) {
+      return ((List<?>) plan).stream().anyMatch(value -> containsStage(value, stage));
+    }
+    return false;
+  }
+}
@@ -1,14 +1,29 @@
 package com.phonestore.controller;
 
 import com.phonestore.api.InventoryApi;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.phonestore.kafka.DeadLetterReplayResult;
+import com.phonestore.kafka.DeadLetterReplayService;
 import com.phonestore.model.PhoneInventoryItem;
 import com.phonestore.model.PhoneInventoryItemRequest;
+import com.phonestore.repository.StoreInventory;
+import com.phonestore.service.BulkDeleteResult;
+import com.phonestore.service.PhoneCache;
+import com.phonestore.service.PhoneImportResult;
+import com.phonestore.service.PhoneInventoryPage;
 import com.phonestore.service.PhoneInventoryService;
+import com.phonestore.service.StoreInventoryRebuildResult;
 import com.phonestore.exception.ValidationException;
 import jakarta.validation.constraints.NotEmpty;
-import java.util.ArrayList;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
 import javax.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.*;
@@ -23,17 +38,28 @@ import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping("/inventory")
 @Validated
 public class PhoneInventoryController implements InventoryApi {
 
+  private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+  private static final int STREAM_FLUSH_INTERVAL = 500;
+
   private final PhoneInventoryService service;
+  private final PhoneCache phoneCache;
+  private final ObjectMapper objectMapper;
+  private final DeadLetterReplayService deadLetterReplayService;
 
   @Autowired
-  public PhoneInventoryController(PhoneInventoryService service) {
+  public PhoneInventoryController(PhoneInventoryService service, PhoneCache phoneCache, ObjectMapper objectMapper,
+      DeadLetterReplayService deadLetterReplayService) {
     this.service = service;
+    this.phoneCache = phoneCache;
+    this.objectMapper = objectMapper;
+    this.deadLetterReplayService = deadLetterReplayService;
   }
 
   @GetMapping("/id/{id}")
@@ -68,11 +94,41 @@ public class PhoneInventoryController implements InventoryApi {
     if (models.stream().anyMatch(model -> model == null || model.trim().isEmpty())) {
       throw new ValidationException("All models must be valid and non-empty");
     }
-    List<PhoneInventoryItem> result = new ArrayList<>();
-    for (String model : models) {
-      result.addAll(service.getByModel(model));
+    return ResponseEntity.ok(service.getByModels(models));
+  }
+
+  @GetMapping("/catalog")
+  public ResponseEntity<PhoneInventoryPage> getCatalogPage(
+      @RequestParam(required = false) String after,
+      @RequestParam(required = false) Integer size) {
+    if (size != null && size <= 0) {
+      throw new ValidationException("Page size must be greater than 0");
     }
-    return ResponseEntity.ok(result);
+    try {
+      return ResponseEntity.ok(service.getPage(after, size));
+    } catch (IllegalArgumentException e) {
+      throw new ValidationException("Invalid catalog cursor: " + after);
+    }
+  }
+
+  @GetMapping(value = "/catalog/stream", produces = "application/x-ndjson")
+  public ResponseEntity<StreamingResponseBody> streamCatalog() {
+    // One JSON document per line, written while the Mongo cursor is iterated
+    StreamingResponseBody body = (OutputStream out) -> {
+      try (Stream<PhoneInventoryItem> items = service.streamAll()) {
+        Iterator<PhoneInventoryItem> iterator = items.iterator();
+        int written = 0;
+        while (iterator.hasNext()) {
+          out.write(objectMapper.writeValueAsBytes(iterator.next()));
+          out.write('\n');
+          if (++written % STREAM_FLUSH_INTERVAL == 0) {
+            out.flush();
+          }
+        }
+        out.flush();
+      }
+    };
+    return ResponseEntity.ok().contentType(NDJSON).body(body);
   }
 
   @PostMapping
@@ -88,6 +144,24 @@ public class PhoneInventoryController implements InventoryApi {
     List<PhoneInventoryItem> createdItems = service.addPhones(phoneRequests,null);
     return ResponseEntity.status(HttpStatus.CREATED).body(createdItems);
   }
+
+  /**
+   * Same as {@link #addPhones} for arrays of any size: the body is read element by element and
+   * inserted in batches instead of being bound as one list. Invalid elements are skipped and
+   * reported in the result.
+   */
+  @PostMapping(value = "/import", consumes = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<PhoneImportResult> importPhones(InputStream body,
+      @RequestParam(required = false) String storeId) throws IOException {
+    try (JsonParser parser = objectMapper.createParser(body)) {
+      PhoneImportResult result = service.importPhones(parser, storeId, batch -> { });
+      return ResponseEntity.status(HttpStatus.CREATED).body(result);
+    } catch (JsonProcessingException e) {
+      throw new ValidationException("Malformed phone array: " + e.getOriginalMessage());
+    } catch (IllegalArgumentException e) {
+      throw new ValidationException(e.getMessage());
+    }
+  }
   @DeleteMapping("/id/{id}")
   public ResponseEntity<Void> deleteById(@PathVariable String id) {
     if (id == null || id.trim().isEmpty()) {
@@ -105,13 +179,15 @@ public class PhoneInventoryController implements InventoryApi {
   }
 
   @DeleteMapping("/ids")
-  public ResponseEntity<Void> deleteByIds(
-      @RequestParam @NotEmpty(message = "IDs list cannot be empty") List<String> ids) {
+  public ResponseEntity<BulkDeleteResult> deleteByIds(
+      @RequestParam @NotEmpty(message = "IDs list cannot be empty") List<String> ids,
+      @RequestParam(defaultValue = "false") boolean bestEffort) {
     if (ids.stream().anyMatch(id -> id == null || id.trim().isEmpty())) {
       throw new ValidationException("All IDs must be valid and non-empty");
     }
-    service.deletePhonesByIds(ids);
-    return ResponseEntity.noContent().build();
+    BulkDeleteResult result = service.deletePhonesByIds(ids, bestEffort);
+    // Best-effort callers need to know which ids were missing
+    return bestEffort ? ResponseEntity.ok(result) : ResponseEntity.noContent().build();
   }
 
   @PutMapping("/{id}/increase")
@@ -154,4 +230,42 @@ public class PhoneInventoryController implements InventoryApi {
     service.decreaseQuantity(id, amount,null);
     return ResponseEntity.ok().build();
   }
-}
\ No newline at end of file
+
+  @GetMapping("/cache/stats")
+  public ResponseEntity<Map<String, Object>> getCacheStats() {
+    return ResponseEntity.ok(phoneCache.stats());
+  }
+
+  @GetMapping("/stores/{storeId}/summary")
+  public ResponseEntity<StoreInventory> getStoreInventory(@PathVariable String storeId) {
+    StoreInventory summary = service.getStoreInventory(storeId);
+    return summary == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(summary);
+  }
+
+  // Regenerates the store summaries from the phone collection, of one store or of all of them
+  @PostMapping("/stores/summary/rebuild")
+  public ResponseEntity<StoreInventoryRebuildResult> rebuildStoreInventory(
+      @RequestParam(required = false) String storeId) {
+    if (storeId != null && storeId.trim().isEmpty()) {
+      throw new ValidationException("Store ID cannot be empty");
+    }
+    try {
+      return ResponseEntity.ok(service.rebuildStoreInventory(storeId));
+    } catch (IllegalStateException e) {
+      throw new ValidationException(e.getMessage());
+    }
+  }
+
+  // Drains <topic>-dlt back into <topic> once the cause of the failures is fixed
+  @PostMapping("/dead-letters/{topic}/replay")
+  public ResponseEntity<DeadLetterReplayResult> replayDeadLetters(@PathVariable String topic,
+      @RequestParam(defaultValue = "100") int maxRecords) {
+    if (!DeadLetterReplayService.isReplayable(topic)) {
+      throw new ValidationException("No dead-letter topic for: " + topic);
+    }
+    if (maxRecords <= 0) {
+      throw new ValidationException("maxRecords must be positive");
+    }
+    return ResponseEntity.ok(deadLetterReplayService.replay(topic, maxRecords));
+  }
+}
@@ -0,0 +1,14 @@
+package com.phonestore.kafka;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeadLetterReplayResult {
+  private String deadLetterTopic;
+  private String targetTopic;
+  private int replayed;
+}
@@ -0,0 +1,132 @@
+package com.phonestore.kafka;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.internals.RecordHeader;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Drains a dead-letter topic back into its source topic, typically after the cause of the
+ * failures has been fixed. Record values are forwarded byte for byte; progress is committed
+ * under its own consumer group, so a replay picks up where the previous one stopped.
+ */
+@Component
+@Slf4j
+public class DeadLetterReplayService {
+
+  private static final Set<String> REPLAYABLE_TOPICS =
+      Set.of(KafkaTopics.PHONE_INVENTORY_UPDATE, KafkaTopics.PHONE_INVENTORY_DELETE);
+  private static final String REPLAY_GROUP_ID = "phone-inventory-dlt-replay";
+  private static final Duration POLL_TIMEOUT = Duration.ofSeconds(2);
+
+  private final KafkaTemplate<String, Object> deadLetterKafkaTemplate;
+  private final String bootstrapServers;
+
+  public DeadLetterReplayService(@Qualifier("deadLetterKafkaTemplate") KafkaTemplate<String, Object> deadLetterKafkaTemplate,
+      @Value("${spring.kafka.bootstrap-servers}") String bootstrapServers) {
+    this.deadLetterKafkaTemplate = deadLetterKafkaTemplate;
+    this.bootstrapServers = bootstrapServers;
+  }
+
+  public static boolean isReplayable(String topic) {
+    return REPLAYABLE_TOPICS.contains(topic);
+  }
+
+  /**
+   * Republishes up to {@code maxRecords} records of {@code topic}'s DLT to {@code topic}.
+   */
+  public DeadLetterReplayResult replay(String topic, int maxRecords) {
+    if (!isReplayable(topic)) {
+      throw new IllegalArgumentException("Topic " + topic + " has no dead-letter topic");
+    }
+    String deadLetterTopic = topic + KafkaTopics.DLT_SUFFIX;
+
+    try (KafkaConsumer<String, byte[]> consumer = new KafkaConsumer<>(consumerConfigs(maxRecords),
+        new StringDeserializer(), new ByteArrayDeserializer())) {
+      // Assigned rather than subscribed: no group rebalance to wait for before the first poll
+      List<TopicPartition> partitions = consumer.partitionsFor(deadLetterTopic).stream()
+          .map(info -> new TopicPartition(deadLetterTopic, info.partition()))
+          .collect(Collectors.toList());
+      consumer.assign(partitions);
+
+      int replayed = 0;
+      while (replayed < maxRecords) {
+        ConsumerRecords<String, byte[]> records = consumer.poll(POLL_TIMEOUT);
+        if (records.isEmpty()) {
+          break;
+        }
+
+        List<CompletableFuture<?>> sends = new ArrayList<>();
+        Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+        for (ConsumerRecord<String, byte[]> record : records) {
+          if (replayed == maxRecords) {
+            break;
+          }
+          sends.add(deadLetterKafkaTemplate.send(replayRecord(topic, record)));
+          offsets.put(new TopicPartition(record.topic(), record.partition()),
+              new OffsetAndMetadata(record.offset() + 1));
+          replayed++;
+        }
+
+        // Offsets are only committed once every republished record is acknowledged
+        CompletableFuture.allOf(sends.toArray(new CompletableFuture[0])).get(30, TimeUnit.SECONDS);
+        consumer.commitSync(offsets);
+      }
+
+      log.info("Replayed {} records from {} to {}", replayed, deadLetterTopic, topic);
+      return new DeadLetterReplayResult(deadLetterTopic, topic, replayed);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("Interrupted while replaying " + deadLetterTopic, e);
+    } catch (ExecutionException | TimeoutException e) {
+      throw new RuntimeException("Failed to republish records from " + deadLetterTopic, e);
+    }
+  }
+
+  // The value is forwarded as is, so its encoding and routing headers must come along
+  private static ProducerRecord<String, Object> replayRecord(String topic, ConsumerRecord<String, byte[]> record) {
+    List<String> names = new ArrayList<>(List.of(WireFormat.CONTENT_TYPE_HEADER, WireFormat.VERSION_HEADER));
+    names.addAll(InventoryHeaders.ALL);
+    List<Header> headers = new ArrayList<>();
+    for (String name : names) {
+      Header header = record.headers().lastHeader(name);
+      if (header != null) {
+        headers.add(new RecordHeader(name, header.value()));
+      }
+    }
+    return new ProducerRecord<>(topic, null, record.key(), record.value(), headers);
+  }
+
+  private Map<String, Object> consumerConfigs(int maxRecords) {
+    Map<String, Object> configProps = new HashMap<>();
+    configProps.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+    configProps.put(ConsumerConfig.GROUP_ID_CONFIG, REPLAY_GROUP_ID);
+    configProps.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+    configProps.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+    configProps.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, Math.min(maxRecords, 500));
+    return configProps;
+  }
+}
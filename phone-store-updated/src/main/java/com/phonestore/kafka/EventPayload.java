@@ -0,0 +1,137 @@
+package com.phonestore.kafka;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import java.io.IOException;
+
+/**
+ * The still-unbound {@code payload} of a {@link PhoneInventoryEvent}. The envelope deserializer
+ * only buffers the payload's tokens; the handler chosen for the action then binds them straight
+ * into its payload type, without an intermediate {@code Map} tree. When the event was routed by
+ * its {@link InventoryHeaders}, the record value has not been read at all and the payload is
+ * located in it on first use; the value is kept, so the event can be forwarded as received.
+ */
+@JsonDeserialize(using = EventPayload.Deserializer.class)
+@JsonSerialize(using = EventPayload.Serializer.class)
+public final class EventPayload {
+
+  private static final String PAYLOAD_FIELD = "payload";
+
+  private TokenBuffer tokens;
+  // Encoded event and the mapper for its format, for events routed by their headers
+  private final ObjectMapper envelopeMapper;
+  private final byte[] envelope;
+  private boolean extracted;
+
+  private EventPayload(TokenBuffer tokens, ObjectMapper envelopeMapper, byte[] envelope) {
+    this.tokens = tokens;
+    this.envelopeMapper = envelopeMapper;
+    this.envelope = envelope;
+    this.extracted = envelope == null;
+  }
+
+  public static EventPayload of(TokenBuffer tokens) {
+    return new EventPayload(tokens, null, null);
+  }
+
+  public static EventPayload lazy(ObjectMapper envelopeMapper, byte[] envelope) {
+    return new EventPayload(null, envelopeMapper, envelope);
+  }
+
+  /** Binds the payload into {@code type}; null when the event has no payload. */
+  public <T> T bind(ObjectMapper mapper, JavaType type) throws IOException {
+    TokenBuffer buffered = tokens();
+    if (buffered == null) {
+      return null;
+    }
+    try (JsonParser parser = buffered.asParser(mapper)) {
+      return mapper.readValue(parser, type);
+    }
+  }
+
+  /**
+   * A parser over the payload, for handlers that read it incrementally instead of binding it;
+   * null when the event has no payload.
+   */
+  public JsonParser parser(ObjectMapper mapper) throws IOException {
+    TokenBuffer buffered = tokens();
+    return buffered == null ? null : buffered.asParser(mapper);
+  }
+
+  /**
+   * The record value the payload is located in, for events routed by their headers; null when
+   * the payload was buffered from a parsed envelope.
+   */
+  public byte[] envelope() {
+    return envelope;
+  }
+
+  private TokenBuffer tokens() throws IOException {
+    if (!extracted) {
+      // A malformed value throws again on every call, it is never half extracted
+      tokens = extract(envelopeMapper, envelope);
+      extracted = true;
+    }
+    return tokens;
+  }
+
+  // Skips over the other envelope fields without binding them
+  private static TokenBuffer extract(ObjectMapper mapper, byte[] envelope) throws IOException {
+    try (JsonParser parser = mapper.createParser(envelope)) {
+      if (parser.nextToken() != JsonToken.START_OBJECT) {
+        throw new IOException("Inventory event is not an object");
+      }
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        String field = parser.currentName();
+        JsonToken value = parser.nextToken();
+        if (PAYLOAD_FIELD.equals(field)) {
+          if (value == JsonToken.VALUE_NULL) {
+            return null;
+          }
+          TokenBuffer buffer = new TokenBuffer(parser);
+          buffer.copyCurrentStructure(parser);
+          return buffer;
+        }
+        parser.skipChildren();
+      }
+      return null;
+    }
+  }
+
+  @Override
+  public String toString() {
+    if (!extracted) {
+      return "<" + envelope.length + " bytes, not read>";
+    }
+    return String.valueOf(tokens);
+  }
+
+  public static class Deserializer extends JsonDeserializer<EventPayload> {
+    @Override
+    public EventPayload deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+      return EventPayload.of(context.bufferAsCopyOfValue(parser));
+    }
+  }
+
+  public static class Serializer extends JsonSerializer<EventPayload> {
+    @Override
+    public void serialize(EventPayload value, JsonGenerator generator, SerializerProvider provider) throws IOException {
+      TokenBuffer tokens = value.tokens();
+      if (tokens == null) {
+        generator.writeNull();
+      } else {
+        tokens.serialize(generator);
+      }
+    }
+  }
+}
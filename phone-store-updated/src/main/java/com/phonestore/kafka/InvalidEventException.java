@@ -0,0 +1,12 @@
+package com.phonestore.kafka;
+
+public class InvalidEventException extends RuntimeException {
+
+  public InvalidEventException(String message) {
+    super(message);
+  }
+
+  public InvalidEventException(String message, Throwable cause) {
+    super(message, cause);
+  }
+}
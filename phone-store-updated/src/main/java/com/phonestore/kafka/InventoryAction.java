@@ -0,0 +1,40 @@
+package com.phonestore.kafka;
+
+import java.util.Optional;
+
+public enum InventoryAction {
+  GET_PHONE_BY_ID(KafkaTopics.PHONE_INVENTORY_GET),
+  GET_PHONES_BY_IDS(KafkaTopics.PHONE_INVENTORY_GET),
+  GET_PHONES_BY_MODEL(KafkaTopics.PHONE_INVENTORY_GET),
+  GET_PHONES_BY_MODELS(KafkaTopics.PHONE_INVENTORY_GET),
+  GET_ALL_PHONES(KafkaTopics.PHONE_INVENTORY_GET),
+  GET_PHONES_BY_STORE_ID(KafkaTopics.PHONE_INVENTORY_GET),
+  ADD_PHONES(KafkaTopics.PHONE_INVENTORY_UPDATE),
+  ORDER_PHONES(KafkaTopics.PHONE_INVENTORY_UPDATE),
+  INCREASE_QUANTITY(KafkaTopics.PHONE_INVENTORY_UPDATE),
+  DECREASE_QUANTITY(KafkaTopics.PHONE_INVENTORY_UPDATE),
+  DELETE_PHONES_BY_IDS(KafkaTopics.PHONE_INVENTORY_DELETE),
+  DELETE_PHONE_BY_ID(KafkaTopics.PHONE_INVENTORY_DELETE),
+  DELETE_PHONE_BY_STORE_ID(KafkaTopics.PHONE_INVENTORY_DELETE);
+
+  private final String topic;
+
+  InventoryAction(String topic) {
+    this.topic = topic;
+  }
+
+  public String getTopic() {
+    return topic;
+  }
+
+  public static Optional<InventoryAction> fromName(String name) {
+    if (name == null) {
+      return Optional.empty();
+    }
+    try {
+      return Optional.of(valueOf(name));
+    } catch (IllegalArgumentException e) {
+      return Optional.empty();
+    }
+  }
+}
@@ -0,0 +1,56 @@
+package com.phonestore.kafka;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import java.io.IOException;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+
+/**
+ * Reads a {@link PhoneInventoryEvent} in the {@link WireFormat} named by the record headers, so
+ * JSON and CBOR producers can share the topics during a rollout. The payload is only buffered
+ * here; it is bound to its typed payload class on dispatch. Records carrying
+ * {@link InventoryHeaders} are not read at all: the event is built from the headers and the
+ * payload is located in the value only when a handler binds it.
+ */
+public class InventoryEventDeserializer implements Deserializer<PhoneInventoryEvent> {
+
+  private final ObjectMapper jsonMapper = new ObjectMapper()
+      .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+  private final ObjectMapper cborMapper = new CBORMapper()
+      .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+  @Override
+  public PhoneInventoryEvent deserialize(String topic, byte[] data) {
+    return deserialize(topic, null, data);
+  }
+
+  @Override
+  public PhoneInventoryEvent deserialize(String topic, Headers headers, byte[] data) {
+    if (data == null) {
+      return null;
+    }
+    String version = WireFormat.headerValue(headers, WireFormat.VERSION_HEADER);
+    if (version != null && !WireFormat.CURRENT_VERSION.equals(version)) {
+      throw new SerializationException("Unsupported inventory envelope version " + version + " on " + topic);
+    }
+    try {
+      WireFormat format = WireFormat.fromHeaders(headers);
+      ObjectMapper mapper = format == WireFormat.CBOR ? cborMapper : jsonMapper;
+      String action = WireFormat.headerValue(headers, InventoryHeaders.ACTION);
+      if (action != null) {
+        PhoneInventoryEvent event = new PhoneInventoryEvent();
+        event.setAction(action);
+        event.setStoreId(WireFormat.headerValue(headers, InventoryHeaders.STORE_ID));
+        event.setRequestId(WireFormat.headerValue(headers, InventoryHeaders.REQUEST_ID));
+        event.setPayload(EventPayload.lazy(mapper, data));
+        return event;
+      }
+      return mapper.readValue(data, PhoneInventoryEvent.class);
+    } catch (IOException | IllegalArgumentException e) {
+      throw new SerializationException("Cannot read inventory event from " + topic, e);
+    }
+  }
+}
@@ -0,0 +1,44 @@
+package com.phonestore.kafka;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Serializer;
+
+/**
+ * Writes events forwarded to retry and dead-letter topics as JSON. The forwarded record keeps
+ * the original headers, so the content type is rewritten to match the new encoding. Events
+ * routed by their headers are forwarded as received instead, with their headers untouched:
+ * their payload may be exactly what made them fail, and must not have to be read again.
+ */
+public class InventoryEventSerializer implements Serializer<Object> {
+
+  private final ObjectMapper jsonMapper = new ObjectMapper();
+
+  @Override
+  public byte[] serialize(String topic, Object data) {
+    return serialize(topic, null, data);
+  }
+
+  @Override
+  public byte[] serialize(String topic, Headers headers, Object data) {
+    if (data == null) {
+      return null;
+    }
+    if (data instanceof PhoneInventoryEvent) {
+      EventPayload payload = ((PhoneInventoryEvent) data).getPayload();
+      if (payload != null && payload.envelope() != null) {
+        return payload.envelope();
+      }
+    }
+    if (headers != null) {
+      WireFormat.JSON.writeHeaders(headers);
+    }
+    try {
+      return jsonMapper.writeValueAsBytes(data);
+    } catch (JsonProcessingException e) {
+      throw new SerializationException("Cannot write inventory event to " + topic, e);
+    }
+  }
+}
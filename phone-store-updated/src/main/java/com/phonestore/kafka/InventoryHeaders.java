@@ -0,0 +1,23 @@
+package com.phonestore.kafka;
+
+import java.util.List;
+
+/**
+ * Routing headers chainstore stamps on every {@link PhoneInventoryEvent}, so a record can be
+ * routed or filtered without reading its value. Records from older producers lack them and are
+ * routed by the decoded envelope instead.
+ */
+public final class InventoryHeaders {
+
+  public static final String ACTION = "inventory-action";
+  public static final String STORE_ID = "inventory-store-id";
+  public static final String REQUEST_ID = "inventory-request-id";
+
+  public static final List<String> ALL = List.of(ACTION, STORE_ID, REQUEST_ID);
+
+  // Set on a GET reply when the read failed, with the failure as its value
+  public static final String ERROR = "inventory-error";
+
+  private InventoryHeaders() {
+  }
+}
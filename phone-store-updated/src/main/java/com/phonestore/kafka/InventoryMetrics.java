@@ -0,0 +1,74 @@
+package com.phonestore.kafka;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Meters of the inventory event pipeline:
+ * <ul>
+ *   <li>{@code inventory.events}: handling time per topic, action and outcome</li>
+ *   <li>{@code inventory.events.errors}: rejected or failed events per action and exception</li>
+ *   <li>{@code inventory.events.coalesced}: quantity events folded into a batch bulk write</li>
+ *   <li>{@code inventory.events.filtered}: records skipped by their headers, per reason</li>
+ *   <li>{@code inventory.kafka.batch.records}: events per UPDATE batch poll</li>
+ * </ul>
+ */
+@Component
+@RequiredArgsConstructor
+public class InventoryMetrics {
+
+  public static final String UNKNOWN_ACTION = "UNKNOWN";
+
+  private final MeterRegistry meterRegistry;
+
+  public Timer.Sample start() {
+    return Timer.start(meterRegistry);
+  }
+
+  public void stop(Timer.Sample sample, String topic, String action, String outcome) {
+    sample.stop(Timer.builder("inventory.events")
+        .description("Time to handle one inventory event")
+        .tag("topic", topic)
+        .tag("action", action)
+        .tag("outcome", outcome)
+        .publishPercentileHistogram()
+        .register(meterRegistry));
+  }
+
+  public void error(String topic, String action, Throwable e) {
+    Counter.builder("inventory.events.errors")
+        .tag("topic", topic)
+        .tag("action", action)
+        .tag("exception", e.getClass().getSimpleName())
+        .register(meterRegistry)
+        .increment();
+  }
+
+  public void filtered(String topic, String reason) {
+    Counter.builder("inventory.events.filtered")
+        .tag("topic", topic)
+        .tag("reason", reason)
+        .register(meterRegistry)
+        .increment();
+  }
+
+  public void coalesced(InventoryAction action) {
+    Counter.builder("inventory.events.coalesced")
+        .tag("action", action.name())
+        .register(meterRegistry)
+        .increment();
+  }
+
+  public void batchReceived(String topic, int records) {
+    DistributionSummary.builder("inventory.kafka.batch.records")
+        .description("Events delivered to the batch listener per poll")
+        .tag("topic", topic)
+        .publishPercentileHistogram()
+        .register(meterRegistry)
+        .record(records);
+  }
+}
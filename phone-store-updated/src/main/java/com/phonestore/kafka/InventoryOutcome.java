@@ -0,0 +1,27 @@
+package com.phonestore.kafka;
+
+import java.util.Map;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventoryOutcome {
+
+  public enum Status {
+    COMPLETED,
+    // ORDER_PHONES where some lines could not be fulfilled
+    PARTIALLY_COMPLETED,
+    FAILED
+  }
+
+  private String requestId;
+  private String action;
+  private String storeId;
+  private Status status;
+  private String message;
+  private Map<String, Object> details;
+  private long timestamp;
+}
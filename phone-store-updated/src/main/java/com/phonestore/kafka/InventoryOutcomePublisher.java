@@ -0,0 +1,43 @@
+package com.phonestore.kafka;
+
+import java.util.Map;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Publishes the outcome of an UPDATE command to {@link KafkaTopics#PHONE_INVENTORY_OUTCOMES},
+ * keyed by the command's requestId. Commands without a requestId have nobody waiting for them
+ * and are skipped.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class InventoryOutcomePublisher {
+
+  private final KafkaTemplate<String, Object> kafkaTemplate;
+
+  public void completed(PhoneInventoryEvent event, String message, Map<String, Object> details) {
+    publish(event, InventoryOutcome.Status.COMPLETED, message, details);
+  }
+
+  public void partiallyCompleted(PhoneInventoryEvent event, String message, Map<String, Object> details) {
+    publish(event, InventoryOutcome.Status.PARTIALLY_COMPLETED, message, details);
+  }
+
+  public void failed(PhoneInventoryEvent event, String message) {
+    publish(event, InventoryOutcome.Status.FAILED, message, Map.of());
+  }
+
+  private void publish(PhoneInventoryEvent event, InventoryOutcome.Status status, String message,
+      Map<String, Object> details) {
+    if (event.getRequestId() == null) {
+      return;
+    }
+    InventoryOutcome outcome = new InventoryOutcome(event.getRequestId(), event.getAction(), event.getStoreId(),
+        status, message, details, System.currentTimeMillis());
+    log.debug("Publishing outcome {} for {} request {}", status, event.getAction(), event.getRequestId());
+    kafkaTemplate.send(KafkaTopics.PHONE_INVENTORY_OUTCOMES, event.getRequestId(), outcome);
+  }
+}
@@ -0,0 +1,46 @@
+package com.phonestore.kafka;
+
+import java.util.Optional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.kafka.listener.adapter.RecordFilterStrategy;
+import org.springframework.stereotype.Component;
+
+/**
+ * Drops UPDATE and DELETE records by their {@link InventoryHeaders}, before anything of the value
+ * is read: unknown actions, actions of another topic, and commands already handled by this
+ * instance. Records without routing headers are always delivered.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class InventoryRecordFilter implements RecordFilterStrategy<String, PhoneInventoryEvent> {
+
+  private final ProcessedRequests processedRequests;
+  private final InventoryMetrics metrics;
+
+  @Override
+  public boolean filter(ConsumerRecord<String, PhoneInventoryEvent> record) {
+    String action = WireFormat.headerValue(record.headers(), InventoryHeaders.ACTION);
+    if (action == null) {
+      return false;
+    }
+    String requestId = WireFormat.headerValue(record.headers(), InventoryHeaders.REQUEST_ID);
+    Optional<InventoryAction> inventoryAction = InventoryAction.fromName(action);
+    String reason;
+    if (inventoryAction.isEmpty()) {
+      reason = "unknown-action";
+    } else if (!record.topic().startsWith(inventoryAction.get().getTopic())) {
+      // Also matches the retry topics, which are named <topic>-retry-<n>
+      reason = "wrong-topic";
+    } else if (processedRequests.isProcessed(requestId)) {
+      reason = "duplicate";
+    } else {
+      return false;
+    }
+    log.debug("Skipping {} request {} on {}: {}", action, requestId, record.topic(), reason);
+    metrics.filtered(record.topic(), reason);
+    return true;
+  }
+}
@@ -0,0 +1,140 @@
+package com.phonestore.kafka;
+
+import com.phonestore.kafka.handler.InventoryEventHandlerRegistry;
+import com.phonestore.repository.AdjustmentOutcome;
+import com.phonestore.repository.QuantityAdjustment;
+import com.phonestore.service.PhoneInventoryService;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.stereotype.Component;
+
+/**
+ * Batch mode for the UPDATE topic, enabled with {@code inventory.kafka.update-batch.enabled}.
+ * Consecutive INCREASE_QUANTITY / DECREASE_QUANTITY events of a poll are summed per phone and
+ * written in one bulk, guarded on the lowest running total of each phone's events: a phone whose
+ * events would not all have applied one by one is replayed event by event instead. Any other
+ * event flushes the pending deltas first and is then handled by {@link InventoryKafkaConsumer}, so
+ * ordering relative to ADD_PHONES and ORDER_PHONES is kept.
+ * A failing bulk write propagates, so the poll's offsets are not committed. A failing single
+ * event is reported by index, so only that record is retried and then dead-lettered. For the same
+ * reason no {@link InventoryRecordFilter} is installed here, it would shift the indexes; repeated
+ * commands are skipped in the loop instead.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "inventory.kafka.update-batch.enabled", havingValue = "true")
+public class InventoryUpdateBatchConsumer {
+
+  private final PhoneInventoryService phoneInventoryService;
+  private final InventoryKafkaConsumer inventoryKafkaConsumer;
+  private final InventoryEventHandlerRegistry handlerRegistry;
+  private final InventoryOutcomePublisher outcomePublisher;
+  private final InventoryMetrics metrics;
+  private final ProcessedRequests processedRequests;
+
+  @KafkaListener(topics = KafkaTopics.PHONE_INVENTORY_UPDATE, groupId = KafkaTopics.GROUP_ID,
+      containerFactory = "batchKafkaListenerContainerFactory",
+      concurrency = "${inventory.kafka.concurrency.update:1}")
+  public void handleUpdateBatch(List<PhoneInventoryEvent> events) {
+    log.info("Received UPDATE batch of {} events", events.size());
+    metrics.batchReceived(KafkaTopics.PHONE_INVENTORY_UPDATE, events.size());
+
+    Map<String, QuantityAdjustment> adjustments = new LinkedHashMap<>();
+    Map<String, List<QuantityEvent>> eventsByPhone = new LinkedHashMap<>();
+    int coalesced = 0;
+
+    for (int index = 0; index < events.size(); index++) {
+      PhoneInventoryEvent event = events.get(index);
+      if (event == null) {
+        // Failed deserialization (ErrorHandlingDeserializer)
+        flush(adjustments, eventsByPhone);
+        throw new BatchListenerFailedException("Undeserializable record in UPDATE batch", index);
+      }
+      if (processedRequests.isProcessed(event.getRequestId())) {
+        metrics.filtered(KafkaTopics.PHONE_INVENTORY_UPDATE, "duplicate");
+        continue;
+      }
+      Optional<QuantityEvent> quantityEvent = QuantityEvent.of(event, handlerRegistry);
+      if (quantityEvent.isEmpty()) {
+        flush(adjustments, eventsByPhone);
+        try {
+          inventoryKafkaConsumer.handleUpdateTopic(event);
+        } catch (RuntimeException e) {
+          // Everything before this event has been applied: commit up to it and retry or
+          // dead-letter this one, see KafkaConfig.batchKafkaListenerContainerFactory
+          throw new BatchListenerFailedException("Failed to handle " + event.getAction(), e, index);
+        }
+        continue;
+      }
+
+      QuantityEvent change = quantityEvent.get();
+      adjustments.merge(change.phoneId, new QuantityAdjustment(change.phoneId, null, change.delta()),
+          QuantityAdjustment::followedBy);
+      eventsByPhone.computeIfAbsent(change.phoneId, id -> new ArrayList<>()).add(change);
+      metrics.coalesced(change.action);
+      coalesced++;
+    }
+    flush(adjustments, eventsByPhone);
+
+    log.info("Processed UPDATE batch of {} events, {} quantity events coalesced", events.size(), coalesced);
+  }
+
+  private void flush(Map<String, QuantityAdjustment> adjustments, Map<String, List<QuantityEvent>> eventsByPhone) {
+    if (adjustments.isEmpty()) {
+      return;
+    }
+
+    Map<String, AdjustmentOutcome> outcomes = phoneInventoryService.applyQuantityDeltas(adjustments.values());
+    log.debug("Applied {} coalesced quantity deltas in one bulk write", outcomes.size());
+
+    // Walk the events rather than the outcomes, so that no event is left without one
+    eventsByPhone.forEach((phoneId, phoneEvents) -> {
+      AdjustmentOutcome outcome = outcomes.get(phoneId);
+      if (outcome == AdjustmentOutcome.APPLIED) {
+        phoneEvents.forEach(this::complete);
+      } else if (outcome == AdjustmentOutcome.NOT_FOUND) {
+        // Unknown phones are ignored, as by the single-event listener
+        log.warn("Quantity update for unknown phoneId: {} ignored", phoneId);
+        phoneEvents.forEach(this::complete);
+      } else {
+        // Some event would have taken the stock below zero: replay this phone's events one by one,
+        // which applies them exactly as the single-event listener would
+        log.debug("Coalesced events for phoneId: {} rejected, replaying {} events individually",
+            phoneId, phoneEvents.size());
+        phoneEvents.forEach(this::applyIndividually);
+      }
+    });
+
+    adjustments.clear();
+    eventsByPhone.clear();
+  }
+
+  private void applyIndividually(QuantityEvent event) {
+    try {
+      if (event.action == InventoryAction.INCREASE_QUANTITY) {
+        phoneInventoryService.increaseQuantity(event.phoneId, event.quantity);
+      } else {
+        phoneInventoryService.decreaseQuantityForSpecificPhoneId(event.phoneId, event.quantity);
+      }
+      complete(event);
+    } catch (IllegalArgumentException e) {
+      log.error("Error processing {} for phoneId: {}: {}", event.action, event.phoneId, e.getMessage());
+      outcomePublisher.failed(event.source, e.getMessage());
+      processedRequests.markProcessed(event.source.getRequestId());
+    }
+  }
+
+  private void complete(QuantityEvent event) {
+    event.completed(outcomePublisher);
+    processedRequests.markProcessed(event.source.getRequestId());
+  }
+}
@@ -0,0 +1,357 @@
+package com.phonestore.kafka;
+
+import com.phonestore.kafka.handler.InventoryEventHandlerRegistry;
+import com.phonestore.repository.AdjustmentOutcome;
+import com.phonestore.repository.QuantityAdjustment;
+import com.phonestore.service.PhoneInventoryService;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.EventListener;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.event.ListenerContainerIdleEvent;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Write-behind mode for the UPDATE topic, enabled with {@code inventory.kafka.write-behind.enabled}.
+ *
+ * <p>Each assigned partition keeps in-memory counters for the phones its quantity events touch,
+ * loaded from Mongo on first use. INCREASE_QUANTITY / DECREASE_QUANTITY events are validated
+ * against those counters and only recorded; a decrement the counter cannot cover is checked
+ * against Mongo once more and then rejected right away. The recorded deltas of a partition are
+ * flushed with one guarded bulk write once {@code max-pending-events} are waiting or the oldest
+ * is {@code flush-interval} old, and only then are their outcomes published and the partition's
+ * offset committed. A crash therefore loses nothing: unflushed events are consumed again (and,
+ * as elsewhere in this service, a flush whose commit fails may be applied twice).
+ *
+ * <p>The counters are authoritative as long as this consumer is the only writer of a phone. When
+ * the phone is also changed elsewhere, the flush, guarded on the lowest running total of each
+ * phone's events, still keeps Mongo from going below zero; a phone whose events are refused is
+ * replayed event by event, as by the batch listener.
+ * Any other event flushes every partition of the consumer first, drops the counters, and is then
+ * handled by {@link InventoryKafkaConsumer}.
+ *
+ * <p>Revoked partitions are flushed and committed before they move; newly assigned partitions
+ * start from empty counters, so their state is rebuilt from Mongo. A flush that fails rewinds the
+ * consumer to the first uncommitted offset of each partition and drops its state.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "inventory.kafka.write-behind.enabled", havingValue = "true")
+public class InventoryWriteBehindConsumer implements ConsumerAwareRebalanceListener {
+
+  public static final String LISTENER_ID = "inventory-write-behind";
+
+  private final PhoneInventoryService phoneInventoryService;
+  private final InventoryKafkaConsumer inventoryKafkaConsumer;
+  private final InventoryEventHandlerRegistry handlerRegistry;
+  private final InventoryOutcomePublisher outcomePublisher;
+  private final InventoryMetrics metrics;
+  private final ProcessedRequests processedRequests;
+  private final Duration flushInterval;
+  private final int maxPendingEvents;
+
+  // Each partition is only touched by the consumer thread it is assigned to
+  private final Map<TopicPartition, PartitionState> partitions = new ConcurrentHashMap<>();
+
+  public InventoryWriteBehindConsumer(PhoneInventoryService phoneInventoryService,
+      InventoryKafkaConsumer inventoryKafkaConsumer, InventoryEventHandlerRegistry handlerRegistry,
+      InventoryOutcomePublisher outcomePublisher, InventoryMetrics metrics, ProcessedRequests processedRequests,
+      @Value("${inventory.kafka.write-behind.flush-interval:200ms}") Duration flushInterval,
+      @Value("${inventory.kafka.write-behind.max-pending-events:1000}") int maxPendingEvents,
+      @Value("${inventory.kafka.update-batch.enabled:false}") boolean updateBatchEnabled) {
+    if (updateBatchEnabled) {
+      throw new IllegalStateException("inventory.kafka.write-behind and inventory.kafka.update-batch are exclusive");
+    }
+    this.phoneInventoryService = phoneInventoryService;
+    this.inventoryKafkaConsumer = inventoryKafkaConsumer;
+    this.handlerRegistry = handlerRegistry;
+    this.outcomePublisher = outcomePublisher;
+    this.metrics = metrics;
+    this.processedRequests = processedRequests;
+    this.flushInterval = flushInterval;
+    this.maxPendingEvents = maxPendingEvents;
+  }
+
+  @KafkaListener(id = LISTENER_ID, topics = KafkaTopics.PHONE_INVENTORY_UPDATE, groupId = KafkaTopics.GROUP_ID,
+      containerFactory = "writeBehindKafkaListenerContainerFactory",
+      concurrency = "${inventory.kafka.concurrency.update:1}")
+  public void handleUpdates(List<ConsumerRecord<String, PhoneInventoryEvent>> records, Consumer<?, ?> consumer) {
+    metrics.batchReceived(KafkaTopics.PHONE_INVENTORY_UPDATE, records.size());
+
+    for (int index = 0; index < records.size(); index++) {
+      ConsumerRecord<String, PhoneInventoryEvent> record = records.get(index);
+      TopicPartition partition = new TopicPartition(record.topic(), record.partition());
+      PartitionState state = partitions.computeIfAbsent(partition, tp -> new PartitionState());
+      PhoneInventoryEvent event = record.value();
+
+      try {
+        if (event == null) {
+          // Failed deserialization (ErrorHandlingDeserializer): dead-lettered by the error handler
+          flushAll(consumer);
+          throw new BatchListenerFailedException("Undeserializable record in UPDATE batch", index);
+        }
+        if (processedRequests.isProcessed(event.getRequestId())) {
+          metrics.filtered(KafkaTopics.PHONE_INVENTORY_UPDATE, "duplicate");
+          state.processed(record.offset());
+          continue;
+        }
+
+        Optional<QuantityEvent> quantityEvent = QuantityEvent.of(event, handlerRegistry);
+        if (quantityEvent.isEmpty()) {
+          // Whatever the event changes, the counters no longer reflect it
+          flushAll(consumer);
+          partitions.keySet().removeAll(consumer.assignment());
+          try {
+            inventoryKafkaConsumer.handleUpdateTopic(event);
+          } catch (RuntimeException e) {
+            // Everything before this event is flushed and committed: retry or dead-letter this one
+            throw new BatchListenerFailedException("Failed to handle " + event.getAction(), e, index);
+          }
+          commit(consumer, partition, record.offset() + 1);
+          continue;
+        }
+
+        record(state, quantityEvent.get());
+        state.processed(record.offset());
+        if (state.pendingEvents.size() >= maxPendingEvents) {
+          flush(consumer, partition, state);
+        }
+      } catch (BatchListenerFailedException e) {
+        throw e;
+      } catch (RuntimeException e) {
+        log.error("Write-behind failed at {}@{}, consuming again from the last commit", partition, record.offset(), e);
+        rewind(consumer, records, index);
+        return;
+      }
+    }
+
+    try {
+      flushDue(consumer);
+    } catch (RuntimeException e) {
+      log.error("Write-behind flush failed, consuming again from the last commit", e);
+      rewind(consumer, List.of(), 0);
+    }
+  }
+
+  // Published on the consumer thread, so the consumer can be used to commit
+  @EventListener(condition = "event.listenerId.startsWith('" + LISTENER_ID + "')")
+  public void onIdle(ListenerContainerIdleEvent event) {
+    try {
+      flushAll(event.getConsumer());
+    } catch (RuntimeException e) {
+      log.error("Write-behind flush failed, consuming again from the last commit", e);
+      rewind(event.getConsumer(), List.of(), 0);
+    }
+  }
+
+  @Override
+  public void onPartitionsRevokedBeforeCommit(Consumer<?, ?> consumer, Collection<TopicPartition> revoked) {
+    for (TopicPartition partition : revoked) {
+      PartitionState state = partitions.remove(partition);
+      if (state == null) {
+        continue;
+      }
+      try {
+        flush(consumer, partition, state);
+      } catch (RuntimeException e) {
+        // The next owner consumes the unflushed events again from the last commit
+        log.error("Could not flush {} before it was revoked", partition, e);
+      }
+    }
+  }
+
+  @Override
+  public void onPartitionsLost(Consumer<?, ?> consumer, Collection<TopicPartition> lost) {
+    // Too late to commit: the next owner consumes the unflushed events again
+    partitions.keySet().removeAll(lost);
+  }
+
+  @Override
+  public void onPartitionsAssigned(Consumer<?, ?> consumer, Collection<TopicPartition> assigned) {
+    // Counters of a partition owned before may be stale: rebuild them from Mongo as events arrive
+    partitions.keySet().removeAll(assigned);
+    log.info("Write-behind counters reset for {}", assigned);
+  }
+
+  private void record(PartitionState state, QuantityEvent change) {
+    Counter counter = state.counters.get(change.phoneId);
+    if (counter == null) {
+      Integer quantity = phoneInventoryService.getQuantity(change.phoneId);
+      if (quantity == null) {
+        // Unknown phones are ignored, as by the single-event listener, once the flush is done
+        state.pendingEvents.add(change);
+        return;
+      }
+      counter = new Counter(quantity);
+      state.counters.put(change.phoneId, counter);
+    }
+
+    if (counter.available() + change.delta() < 0) {
+      // Stock may have been added elsewhere since the counter was loaded
+      Integer quantity = phoneInventoryService.getQuantity(change.phoneId);
+      counter.stored = quantity == null ? 0 : quantity;
+      if (counter.available() + change.delta() < 0) {
+        String reason = "Cannot decrease quantity by " + change.quantity
+            + ". Current quantity is only " + counter.available();
+        log.warn("Rejected {} for phoneId: {}: {}", change.action, change.phoneId, reason);
+        outcomePublisher.failed(change.source, reason);
+        processedRequests.markProcessed(change.source.getRequestId());
+        return;
+      }
+    }
+
+    counter.pending += change.delta();
+    counter.lowest = Math.min(counter.lowest, counter.pending);
+    state.pendingEvents.add(change);
+    metrics.coalesced(change.action);
+  }
+
+  private void flushDue(Consumer<?, ?> consumer) {
+    long now = System.nanoTime();
+    for (TopicPartition partition : consumer.assignment()) {
+      PartitionState state = partitions.get(partition);
+      if (state != null && state.uncommittedFrom >= 0 && now - state.firstPendingAt >= flushInterval.toNanos()) {
+        flush(consumer, partition, state);
+      }
+    }
+  }
+
+  private void flushAll(Consumer<?, ?> consumer) {
+    for (TopicPartition partition : consumer.assignment()) {
+      PartitionState state = partitions.get(partition);
+      if (state != null) {
+        flush(consumer, partition, state);
+      }
+    }
+  }
+
+  private void flush(Consumer<?, ?> consumer, TopicPartition partition, PartitionState state) {
+    if (state.uncommittedFrom < 0) {
+      return;
+    }
+
+    List<QuantityAdjustment> adjustments = new ArrayList<>();
+    state.counters.forEach((phoneId, counter) -> {
+      if (counter.pending != 0 || counter.lowest < 0) {
+        adjustments.add(new QuantityAdjustment(phoneId, null, counter.pending, counter.lowest));
+      }
+    });
+    Map<String, AdjustmentOutcome> outcomes = adjustments.isEmpty() ? Map.of()
+        : phoneInventoryService.applyQuantityDeltas(adjustments);
+
+    Set<String> refused = new HashSet<>();
+    outcomes.forEach((phoneId, outcome) -> {
+      Counter counter = state.counters.get(phoneId);
+      if (outcome == AdjustmentOutcome.APPLIED) {
+        counter.stored += counter.pending;
+        counter.pending = 0;
+        counter.lowest = 0;
+      } else {
+        // Changed or deleted elsewhere: settle this phone's events one by one and reload it later
+        refused.add(phoneId);
+        state.counters.remove(phoneId);
+      }
+    });
+
+    for (QuantityEvent change : state.pendingEvents) {
+      if (refused.contains(change.phoneId)) {
+        applyIndividually(change);
+      } else {
+        complete(change);
+      }
+    }
+    log.debug("Flushed {} quantity events of {} as {} deltas", state.pendingEvents.size(), partition, adjustments.size());
+    state.pendingEvents.clear();
+    commit(consumer, partition, state.nextOffset);
+    state.uncommittedFrom = -1;
+  }
+
+  private void commit(Consumer<?, ?> consumer, TopicPartition partition, long nextOffset) {
+    consumer.commitSync(Map.of(partition, new OffsetAndMetadata(nextOffset)));
+  }
+
+  // Drops the consumer's state and seeks back to what it had not committed yet
+  private void rewind(Consumer<?, ?> consumer, List<ConsumerRecord<String, PhoneInventoryEvent>> records, int from) {
+    Map<TopicPartition, Long> positions = new HashMap<>();
+    for (ConsumerRecord<String, PhoneInventoryEvent> record : records.subList(from, records.size())) {
+      positions.putIfAbsent(new TopicPartition(record.topic(), record.partition()), record.offset());
+    }
+    for (TopicPartition partition : consumer.assignment()) {
+      PartitionState state = partitions.remove(partition);
+      if (state != null && state.uncommittedFrom >= 0) {
+        positions.put(partition, state.uncommittedFrom);
+      }
+    }
+    positions.forEach(consumer::seek);
+  }
+
+  private void applyIndividually(QuantityEvent event) {
+    try {
+      if (event.action == InventoryAction.INCREASE_QUANTITY) {
+        phoneInventoryService.increaseQuantity(event.phoneId, event.quantity);
+      } else {
+        phoneInventoryService.decreaseQuantityForSpecificPhoneId(event.phoneId, event.quantity);
+      }
+      complete(event);
+    } catch (IllegalArgumentException e) {
+      log.error("Error processing {} for phoneId: {}: {}", event.action, event.phoneId, e.getMessage());
+      outcomePublisher.failed(event.source, e.getMessage());
+      processedRequests.markProcessed(event.source.getRequestId());
+    }
+  }
+
+  private void complete(QuantityEvent event) {
+    event.completed(outcomePublisher);
+    processedRequests.markProcessed(event.source.getRequestId());
+  }
+
+  private static final class PartitionState {
+    private final Map<String, Counter> counters = new HashMap<>();
+    private final List<QuantityEvent> pendingEvents = new ArrayList<>();
+    // First offset not committed yet, -1 when everything consumed is committed
+    private long uncommittedFrom = -1;
+    private long nextOffset;
+    private long firstPendingAt;
+
+    private void processed(long offset) {
+      if (uncommittedFrom < 0) {
+        uncommittedFrom = offset;
+        firstPendingAt = System.nanoTime();
+      }
+      nextOffset = offset + 1;
+    }
+  }
+
+  private static final class Counter {
+    // Quantity in Mongo as of the last load or flush, the net delta recorded since and the lowest
+    // it went, which the flush guards on
+    private int stored;
+    private int pending;
+    private int lowest;
+
+    private Counter(int stored) {
+      this.stored = stored;
+    }
+
+    private int available() {
+      return stored + pending;
+    }
+  }
+}
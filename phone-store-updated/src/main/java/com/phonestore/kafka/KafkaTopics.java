@@ -5,6 +5,10 @@ public class KafkaTopics {
   public static final String PHONE_INVENTORY_GET = "phone-inventory-get";
   public static final String PHONE_INVENTORY_UPDATE = "phone-inventory-update";
   public static final String PHONE_INVENTORY_DELETE = "phone-inventory-delete";
+  // Result of every UPDATE command that carries a requestId, read by chainstore
+  public static final String PHONE_INVENTORY_OUTCOMES = "phone-inventory-outcomes";
+  // Suffix of the dead-letter topics of the UPDATE and DELETE topics
+  public static final String DLT_SUFFIX = "-dlt";
   public static final String GROUP_ID = "phone-inventory-group";
 
 }
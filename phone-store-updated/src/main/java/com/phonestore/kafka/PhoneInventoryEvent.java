@@ -10,7 +10,8 @@ import lombok.NoArgsConstructor;
 public class PhoneInventoryEvent {
   private String action;
   private String storeId;
-  private Object payload;
+  // Bound to the handler's payload type on dispatch, see InventoryEventHandlerRegistry
+  private EventPayload payload;
   private String timestamp;
+  private String requestId;
 }
-
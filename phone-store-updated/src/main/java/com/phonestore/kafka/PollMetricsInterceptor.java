@@ -0,0 +1,51 @@
+package com.phonestore.kafka;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Map;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerInterceptor;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+
+/**
+ * Records how many records each non-empty poll returned ({@code inventory.kafka.poll.records}),
+ * for the single-record listeners as well as the batch one. Kafka instantiates interceptors
+ * itself, so the {@link MeterRegistry} is handed over in the consumer configs under
+ * {@link #METER_REGISTRY_CONFIG}.
+ */
+public class PollMetricsInterceptor implements ConsumerInterceptor<Object, Object> {
+
+  public static final String METER_REGISTRY_CONFIG = "inventory.meter-registry";
+
+  private DistributionSummary recordsPerPoll;
+
+  @Override
+  public void configure(Map<String, ?> configs) {
+    MeterRegistry meterRegistry = (MeterRegistry) configs.get(METER_REGISTRY_CONFIG);
+    Object groupId = configs.get(ConsumerConfig.GROUP_ID_CONFIG);
+    recordsPerPoll = DistributionSummary.builder("inventory.kafka.poll.records")
+        .description("Records returned by a non-empty consumer poll")
+        .tag("group", groupId != null ? groupId.toString() : "none")
+        .publishPercentileHistogram()
+        .register(meterRegistry);
+  }
+
+  @Override
+  public ConsumerRecords<Object, Object> onConsume(ConsumerRecords<Object, Object> records) {
+    // Idle polls are left out, they would only drag the distribution towards zero
+    if (!records.isEmpty()) {
+      recordsPerPoll.record(records.count());
+    }
+    return records;
+  }
+
+  @Override
+  public void onCommit(Map<TopicPartition, OffsetAndMetadata> offsets) {
+  }
+
+  @Override
+  public void close() {
+  }
+}
@@ -0,0 +1,37 @@
+package com.phonestore.kafka;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.time.Duration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Recently handled UPDATE and DELETE commands by requestId. The outbox relay delivers at least
+ * once, so a command can arrive again; {@link InventoryRecordFilter} drops such repeats by their
+ * header. Best effort: the set is per instance and bounded, a repeat that lands on another
+ * instance after a rebalance is handled again.
+ */
+@Component
+public class ProcessedRequests {
+
+  private final Cache<String, Boolean> requestIds;
+
+  public ProcessedRequests(@Value("${inventory.kafka.dedupe.maximum-size:100000}") long maximumSize,
+      @Value("${inventory.kafka.dedupe.ttl:10m}") Duration ttl) {
+    this.requestIds = Caffeine.newBuilder()
+        .maximumSize(maximumSize)
+        .expireAfterWrite(ttl)
+        .build();
+  }
+
+  public void markProcessed(String requestId) {
+    if (requestId != null) {
+      requestIds.put(requestId, Boolean.TRUE);
+    }
+  }
+
+  public boolean isProcessed(String requestId) {
+    return requestId != null && requestIds.getIfPresent(requestId) != null;
+  }
+}
@@ -0,0 +1,62 @@
+package com.phonestore.kafka;
+
+import com.phonestore.kafka.handler.InventoryEventHandlerRegistry;
+import com.phonestore.kafka.payload.QuantityPayload;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * A well-formed INCREASE_QUANTITY / DECREASE_QUANTITY event, as coalesced by the UPDATE batch and
+ * write-behind listeners.
+ */
+final class QuantityEvent {
+
+  final PhoneInventoryEvent source;
+  final InventoryAction action;
+  final String phoneId;
+  final int quantity;
+
+  private QuantityEvent(PhoneInventoryEvent source, InventoryAction action, String phoneId, int quantity) {
+    this.source = source;
+    this.action = action;
+    this.phoneId = phoneId;
+    this.quantity = quantity;
+  }
+
+  /**
+   * Binds a well-formed quantity change that can be coalesced. Anything else is left to the
+   * single-event path and its validation.
+   */
+  static Optional<QuantityEvent> of(PhoneInventoryEvent event, InventoryEventHandlerRegistry handlerRegistry) {
+    Optional<InventoryAction> action = InventoryAction.fromName(event.getAction())
+        .filter(a -> a == InventoryAction.INCREASE_QUANTITY || a == InventoryAction.DECREASE_QUANTITY);
+    if (action.isEmpty()) {
+      return Optional.empty();
+    }
+    QuantityPayload payload;
+    try {
+      payload = (QuantityPayload) handlerRegistry.bindPayload(action.get(), event);
+    } catch (InvalidEventException e) {
+      return Optional.empty();
+    }
+    if (payload == null || payload.getPhoneId() == null
+        || payload.getQuantity() == null || payload.getQuantity() < 0) {
+      return Optional.empty();
+    }
+    try {
+      String phoneId = UUID.fromString(payload.getPhoneId()).toString();
+      return Optional.of(new QuantityEvent(event, action.get(), phoneId, payload.getQuantity()));
+    } catch (IllegalArgumentException e) {
+      return Optional.empty();
+    }
+  }
+
+  int delta() {
+    return action == InventoryAction.INCREASE_QUANTITY ? quantity : -quantity;
+  }
+
+  void completed(InventoryOutcomePublisher outcomePublisher) {
+    outcomePublisher.completed(source, "Quantity updated", Map.of("phoneId", phoneId, "quantity", quantity));
+  }
+}
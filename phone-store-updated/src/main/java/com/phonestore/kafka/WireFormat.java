@@ -0,0 +1,55 @@
+package com.phonestore.kafka;
+
+import java.nio.charset.StandardCharsets;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+
+/**
+ * Encoding of a {@link PhoneInventoryEvent} on the wire, announced by the record's
+ * {@value #CONTENT_TYPE_HEADER} header. Records without the header are JSON, which is what
+ * producers sent before the header existed.
+ */
+public enum WireFormat {
+  JSON("application/json"),
+  CBOR("application/cbor");
+
+  public static final String CONTENT_TYPE_HEADER = "content-type";
+  public static final String VERSION_HEADER = "inventory-envelope-version";
+  // Bumped on incompatible changes to the PhoneInventoryEvent envelope
+  public static final String CURRENT_VERSION = "1";
+
+  private final String contentType;
+
+  WireFormat(String contentType) {
+    this.contentType = contentType;
+  }
+
+  public String getContentType() {
+    return contentType;
+  }
+
+  public static WireFormat fromHeaders(Headers headers) {
+    String contentType = headerValue(headers, CONTENT_TYPE_HEADER);
+    if (contentType == null) {
+      return JSON;
+    }
+    for (WireFormat format : values()) {
+      if (format.contentType.equalsIgnoreCase(contentType)) {
+        return format;
+      }
+    }
+    throw new IllegalArgumentException("Unsupported content type: " + contentType);
+  }
+
+  public static String headerValue(Headers headers, String name) {
+    Header header = headers == null ? null : headers.lastHeader(name);
+    return header == null ? null : new String(header.value(), StandardCharsets.UTF_8);
+  }
+
+  public void writeHeaders(Headers headers) {
+    headers.remove(CONTENT_TYPE_HEADER);
+    headers.add(CONTENT_TYPE_HEADER, contentType.getBytes(StandardCharsets.UTF_8));
+    headers.remove(VERSION_HEADER);
+    headers.add(VERSION_HEADER, CURRENT_VERSION.getBytes(StandardCharsets.UTF_8));
+  }
+}
@@ -0,0 +1,85 @@
+package com.phonestore.kafka.handler;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.phonestore.kafka.EventPayload;
+import com.phonestore.kafka.InvalidEventException;
+import com.phonestore.kafka.InventoryAction;
+import com.phonestore.kafka.InventoryOutcomePublisher;
+import com.phonestore.kafka.PhoneInventoryEvent;
+import com.phonestore.model.PhoneInventoryItem;
+import com.phonestore.service.PhoneImportResult;
+import com.phonestore.service.PhoneInventoryService;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * Streams the payload's phone array into {@link PhoneInventoryService#importPhones} rather than
+ * binding it as a list, so a large ADD_PHONES event is inserted batch by batch.
+ */
+@Component
+@Slf4j
+public class AddPhonesHandler extends InventoryEventHandler<EventPayload> {
+
+  private final PhoneInventoryService phoneInventoryService;
+  private final InventoryOutcomePublisher outcomePublisher;
+  private final ObjectMapper objectMapper;
+
+  public AddPhonesHandler(PhoneInventoryService phoneInventoryService, InventoryOutcomePublisher outcomePublisher,
+      ObjectMapper objectMapper) {
+    super(InventoryAction.ADD_PHONES, EventPayload.class);
+    this.phoneInventoryService = phoneInventoryService;
+    this.outcomePublisher = outcomePublisher;
+    this.objectMapper = objectMapper;
+  }
+
+  @Override
+  public List<PhoneInventoryItem> handle(PhoneInventoryEvent event, EventPayload payload) {
+    if (payload == null) {
+      log.warn("No phones found in ADD_PHONES payload");
+      outcomePublisher.failed(event, "No phones found in ADD_PHONES payload");
+      return List.of();
+    }
+
+    // Only the ids are kept for the outcome, not the inserted phones
+    List<String> phoneIds = new ArrayList<>();
+    PhoneImportResult result;
+    try (JsonParser parser = payload.parser(objectMapper)) {
+      result = phoneInventoryService.importPhones(parser, event.getStoreId(),
+          batch -> batch.getInserted().forEach(item -> phoneIds.add(item.getId().toString())));
+    } catch (IOException e) {
+      throw new InvalidEventException("Invalid payload structure for ADD_PHONES operation", e);
+    }
+
+    if (result.getReceived() == 0) {
+      log.warn("No phones found in ADD_PHONES payload");
+      outcomePublisher.failed(event, "No phones found in ADD_PHONES payload");
+      return List.of();
+    }
+    if (result.getInserted() == 0) {
+      throw new IllegalArgumentException("No valid phones in ADD_PHONES payload: " + result.getErrors());
+    }
+
+    if (result.getRejected() > 0 || result.getFailed() > 0) {
+      log.warn("Partially processed ADD_PHONES, added {} of {} phones", result.getInserted(), result.getReceived());
+      outcomePublisher.partiallyCompleted(event,
+          "Added " + result.getInserted() + " of " + result.getReceived() + " phones", Map.of(
+              "phoneCount", result.getInserted(),
+              "phoneIds", phoneIds,
+              "rejected", result.getRejected(),
+              "failed", result.getFailed(),
+              "errors", result.getErrors()));
+      return List.of();
+    }
+
+    log.info("Successfully processed ADD_PHONES, added {} phones", result.getInserted());
+    outcomePublisher.completed(event, "Added " + result.getInserted() + " phones", Map.of(
+        "phoneCount", result.getInserted(),
+        "phoneIds", phoneIds));
+    return List.of();
+  }
+}
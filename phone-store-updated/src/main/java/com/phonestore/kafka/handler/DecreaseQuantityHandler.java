@@ -0,0 +1,48 @@
+package com.phonestore.kafka.handler;
+
+import com.phonestore.kafka.InventoryAction;
+import com.phonestore.kafka.InventoryOutcomePublisher;
+import com.phonestore.kafka.PhoneInventoryEvent;
+import com.phonestore.kafka.payload.QuantityPayload;
+import com.phonestore.model.PhoneInventoryItem;
+import com.phonestore.service.PhoneInventoryService;
+import java.util.List;
+import java.util.Map;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+@Component
+@Slf4j
+public class DecreaseQuantityHandler extends InventoryEventHandler<QuantityPayload> {
+
+  private final PhoneInventoryService phoneInventoryService;
+  private final InventoryOutcomePublisher outcomePublisher;
+
+  public DecreaseQuantityHandler(PhoneInventoryService phoneInventoryService, InventoryOutcomePublisher outcomePublisher) {
+    super(InventoryAction.DECREASE_QUANTITY, QuantityPayload.class);
+    this.phoneInventoryService = phoneInventoryService;
+    this.outcomePublisher = outcomePublisher;
+  }
+
+  @Override
+  public List<PhoneInventoryItem> handle(PhoneInventoryEvent event, QuantityPayload payload) {
+    String phoneId = payload != null ? payload.getPhoneId() : null;
+    Integer quantity = payload != null ? payload.getQuantity() : null;
+    if (phoneId == null || quantity == null) {
+      log.warn("Invalid DECREASE_QUANTITY data - phoneId: {}, quantity: {}", phoneId, quantity);
+      outcomePublisher.failed(event, "Invalid DECREASE_QUANTITY data - phoneId and quantity are required");
+      return List.of();
+    }
+
+    log.debug("Decreasing quantity - phoneId: {}, quantity: {}", phoneId, quantity);
+    phoneInventoryService.decreaseQuantityForSpecificPhoneId(phoneId, quantity);
+
+    // Return updated inventory for the store, when the event names one
+    List<PhoneInventoryItem> result = event.getStoreId() != null
+        ? phoneInventoryService.getPhonesByStoreId(event.getStoreId()) : List.of();
+
+    log.info("Successfully processed DECREASE_QUANTITY for phoneId: {}, quantity: {}", phoneId, quantity);
+    outcomePublisher.completed(event, "Quantity updated", Map.of("phoneId", phoneId, "quantity", quantity));
+    return result;
+  }
+}
@@ -0,0 +1,37 @@
+package com.phonestore.kafka.handler;
+
+import com.phonestore.kafka.InventoryAction;
+import com.phonestore.kafka.PhoneInventoryEvent;
+import com.phonestore.kafka.payload.PhoneIdPayload;
+import com.phonestore.model.PhoneInventoryItem;
+import com.phonestore.service.PhoneInventoryService;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+@Component
+@Slf4j
+public class DeletePhoneByIdHandler extends InventoryEventHandler<PhoneIdPayload> {
+
+  private final PhoneInventoryService phoneInventoryService;
+
+  public DeletePhoneByIdHandler(PhoneInventoryService phoneInventoryService) {
+    super(InventoryAction.DELETE_PHONE_BY_ID, PhoneIdPayload.class);
+    this.phoneInventoryService = phoneInventoryService;
+  }
+
+  @Override
+  public List<PhoneInventoryItem> handle(PhoneInventoryEvent event, PhoneIdPayload payload) {
+    String phoneId = payload != null ? payload.getPhoneId() : null;
+    if (phoneId == null || phoneId.trim().isEmpty()) {
+      log.warn("Invalid phone ID in DELETE_PHONE_BY_ID payload: {}", phoneId);
+      return List.of();
+    }
+
+    log.debug("Deleting phone by ID: {}", phoneId);
+    phoneInventoryService.deletePhoneById(phoneId);
+
+    log.info("Successfully processed DELETE_PHONE_BY_ID for phoneId: {}", phoneId);
+    return List.of();
+  }
+}
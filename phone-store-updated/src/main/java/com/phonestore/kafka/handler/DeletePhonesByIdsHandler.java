@@ -0,0 +1,43 @@
+package com.phonestore.kafka.handler;
+
+import com.phonestore.kafka.InventoryAction;
+import com.phonestore.kafka.PhoneInventoryEvent;
+import com.phonestore.kafka.payload.PhoneIdsPayload;
+import com.phonestore.model.PhoneInventoryItem;
+import com.phonestore.service.BulkDeleteResult;
+import com.phonestore.service.PhoneInventoryService;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+@Component
+@Slf4j
+public class DeletePhonesByIdsHandler extends InventoryEventHandler<PhoneIdsPayload> {
+
+  private final PhoneInventoryService phoneInventoryService;
+
+  public DeletePhonesByIdsHandler(PhoneInventoryService phoneInventoryService) {
+    super(InventoryAction.DELETE_PHONES_BY_IDS, PhoneIdsPayload.class);
+    this.phoneInventoryService = phoneInventoryService;
+  }
+
+  @Override
+  public List<PhoneInventoryItem> handle(PhoneInventoryEvent event, PhoneIdsPayload payload) {
+    List<String> phoneIds = payload != null ? payload.getPhoneIds() : null;
+    if (phoneIds == null || phoneIds.isEmpty()) {
+      log.warn("No phone IDs found in DELETE_PHONES_BY_IDS payload");
+      return List.of();
+    }
+
+    // Best effort deletes whatever exists instead of rejecting the whole batch
+    log.debug("Deleting {} phones by IDs, bestEffort: {}", phoneIds.size(), payload.isBestEffort());
+    BulkDeleteResult deleteResult = phoneInventoryService.deletePhonesByIds(phoneIds, payload.isBestEffort());
+    if (!deleteResult.getMissingIds().isEmpty()) {
+      log.warn("DELETE_PHONES_BY_IDS skipped {} missing phone IDs: {}",
+          deleteResult.getMissingIds().size(), deleteResult.getMissingIds());
+    }
+
+    log.info("Successfully processed DELETE_PHONES_BY_IDS for {} phone IDs", phoneIds.size());
+    return List.of();
+  }
+}
@@ -0,0 +1,37 @@
+package com.phonestore.kafka.handler;
+
+import com.phonestore.kafka.InventoryAction;
+import com.phonestore.kafka.PhoneInventoryEvent;
+import com.phonestore.model.PhoneInventoryItem;
+import com.phonestore.service.PhoneInventoryService;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+// The store id travels on the event itself, so there is no payload to bind
+@Component
+@Slf4j
+public class DeletePhonesByStoreIdHandler extends InventoryEventHandler<Void> {
+
+  private final PhoneInventoryService phoneInventoryService;
+
+  public DeletePhonesByStoreIdHandler(PhoneInventoryService phoneInventoryService) {
+    super(InventoryAction.DELETE_PHONE_BY_STORE_ID, Void.class);
+    this.phoneInventoryService = phoneInventoryService;
+  }
+
+  @Override
+  public List<PhoneInventoryItem> handle(PhoneInventoryEvent event, Void payload) {
+    String storeId = event.getStoreId();
+    if (storeId == null || storeId.trim().isEmpty()) {
+      log.warn("Invalid store ID in DELETE_PHONE_BY_STORE_ID: {}", storeId);
+      return List.of();
+    }
+
+    log.debug("Deleting all phones for store ID: {}", storeId);
+    phoneInventoryService.deletePhonesByStoreId(storeId);
+
+    log.info("Successfully processed DELETE_PHONE_BY_STORE_ID for storeId: {}", storeId);
+    return List.of();
+  }
+}
@@ -0,0 +1,40 @@
+package com.phonestore.kafka.handler;
+
+import com.phonestore.kafka.InventoryAction;
+import com.phonestore.kafka.PhoneInventoryEvent;
+import com.phonestore.kafka.payload.CatalogPagePayload;
+import com.phonestore.model.PhoneInventoryItem;
+import com.phonestore.service.PhoneInventoryService;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+@Component
+@Slf4j
+public class GetAllPhonesHandler extends InventoryEventHandler<CatalogPagePayload> {
+
+  private final PhoneInventoryService phoneInventoryService;
+
+  public GetAllPhonesHandler(PhoneInventoryService phoneInventoryService) {
+    super(InventoryAction.GET_ALL_PHONES, CatalogPagePayload.class);
+    this.phoneInventoryService = phoneInventoryService;
+  }
+
+  @Override
+  public List<PhoneInventoryItem> handle(PhoneInventoryEvent event, CatalogPagePayload payload) {
+    List<PhoneInventoryItem> result;
+    if (payload != null && (payload.getAfter() != null || payload.getSize() != null)) {
+      // Keyset page instead of the full catalog
+      log.debug("Getting catalog page after: {}, size: {}", payload.getAfter(), payload.getSize());
+      result = phoneInventoryService.getPage(payload.getAfter(), payload.getSize()).getItems();
+      log.info("Successfully processed GET_ALL_PHONES page, found: {}", result.size());
+      return result;
+    }
+
+    log.debug("Getting all phones");
+    result = phoneInventoryService.getAll();
+
+    log.info("Successfully processed GET_ALL_PHONES, found: {}", result.size());
+    return result;
+  }
+}
@@ -0,0 +1,44 @@
+package com.phonestore.kafka.handler;
+
+import com.phonestore.kafka.InventoryAction;
+import com.phonestore.kafka.PhoneInventoryEvent;
+import com.phonestore.kafka.payload.PhoneIdsPayload;
+import com.phonestore.model.PhoneInventoryItem;
+import com.phonestore.service.PhoneInventoryService;
+import java.util.List;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+@Component
+@Slf4j
+public class GetPhonesByIdsHandler extends InventoryEventHandler<PhoneIdsPayload> {
+
+  private final PhoneInventoryService phoneInventoryService;
+
+  public GetPhonesByIdsHandler(PhoneInventoryService phoneInventoryService) {
+    super(InventoryAction.GET_PHONES_BY_IDS, PhoneIdsPayload.class);
+    this.phoneInventoryService = phoneInventoryService;
+  }
+
+  @Override
+  public List<PhoneInventoryItem> handle(PhoneInventoryEvent event, PhoneIdsPayload payload) {
+    List<String> phoneIds = payload != null ? payload.getPhoneIds() : null;
+    if (phoneIds == null || phoneIds.isEmpty()) {
+      log.warn("No phone IDs found in GET_PHONES_BY_IDS payload");
+      return List.of();
+    }
+
+    // Clean up the phoneIds in case they have "ids=" prefix
+    List<String> cleanPhoneIds = phoneIds.stream()
+        .map(id -> id.startsWith("ids=") ? id.substring(4) : id)
+        .collect(Collectors.toList());
+
+    log.debug("Getting {} phones by IDs", cleanPhoneIds.size());
+    List<PhoneInventoryItem> result = phoneInventoryService.getByIds(cleanPhoneIds);
+
+    log.info("Successfully processed GET_PHONES_BY_IDS for {} phone IDs, found: {}",
+        cleanPhoneIds.size(), result.size());
+    return result;
+  }
+}
@@ -0,0 +1,37 @@
+package com.phonestore.kafka.handler;
+
+import com.phonestore.kafka.InventoryAction;
+import com.phonestore.kafka.PhoneInventoryEvent;
+import com.phonestore.kafka.payload.ModelPayload;
+import com.phonestore.model.PhoneInventoryItem;
+import com.phonestore.service.PhoneInventoryService;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+@Component
+@Slf4j
+public class GetPhonesByModelHandler extends InventoryEventHandler<ModelPayload> {
+
+  private final PhoneInventoryService phoneInventoryService;
+
+  public GetPhonesByModelHandler(PhoneInventoryService phoneInventoryService) {
+    super(InventoryAction.GET_PHONES_BY_MODEL, ModelPayload.class);
+    this.phoneInventoryService = phoneInventoryService;
+  }
+
+  @Override
+  public List<PhoneInventoryItem> handle(PhoneInventoryEvent event, ModelPayload payload) {
+    String model = payload != null ? payload.getModel() : null;
+    if (model == null || model.trim().isEmpty()) {
+      log.warn("Invalid model in GET_PHONES_BY_MODEL payload: {}", model);
+      return List.of();
+    }
+
+    log.debug("Getting phones by model: {}", model);
+    List<PhoneInventoryItem> result = phoneInventoryService.getByModel(model);
+
+    log.info("Successfully processed GET_PHONES_BY_MODEL for model: {}, found: {}", model, result.size());
+    return result;
+  }
+}
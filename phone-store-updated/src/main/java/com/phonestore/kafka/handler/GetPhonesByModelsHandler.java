@@ -0,0 +1,38 @@
+package com.phonestore.kafka.handler;
+
+import com.phonestore.kafka.InventoryAction;
+import com.phonestore.kafka.PhoneInventoryEvent;
+import com.phonestore.kafka.payload.ModelsPayload;
+import com.phonestore.model.PhoneInventoryItem;
+import com.phonestore.service.PhoneInventoryService;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+@Component
+@Slf4j
+public class GetPhonesByModelsHandler extends InventoryEventHandler<ModelsPayload> {
+
+  private final PhoneInventoryService phoneInventoryService;
+
+  public GetPhonesByModelsHandler(PhoneInventoryService phoneInventoryService) {
+    super(InventoryAction.GET_PHONES_BY_MODELS, ModelsPayload.class);
+    this.phoneInventoryService = phoneInventoryService;
+  }
+
+  @Override
+  public List<PhoneInventoryItem> handle(PhoneInventoryEvent event, ModelsPayload payload) {
+    List<String> models = payload != null ? payload.getModels() : null;
+    if (models == null || models.isEmpty()) {
+      log.warn("No models found in GET_PHONES_BY_MODELS payload");
+      return List.of();
+    }
+
+    log.debug("Getting phones by {} models", models.size());
+    List<PhoneInventoryItem> result = phoneInventoryService.getByModels(models);
+
+    log.info("Successfully processed GET_PHONES_BY_MODELS for {} models, found: {}",
+        models.size(), result.size());
+    return result;
+  }
+}
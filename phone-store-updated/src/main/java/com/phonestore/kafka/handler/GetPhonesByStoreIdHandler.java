@@ -0,0 +1,37 @@
+package com.phonestore.kafka.handler;
+
+import com.phonestore.kafka.InventoryAction;
+import com.phonestore.kafka.PhoneInventoryEvent;
+import com.phonestore.kafka.payload.StoreIdPayload;
+import com.phonestore.model.PhoneInventoryItem;
+import com.phonestore.service.PhoneInventoryService;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+@Component
+@Slf4j
+public class GetPhonesByStoreIdHandler extends InventoryEventHandler<StoreIdPayload> {
+
+  private final PhoneInventoryService phoneInventoryService;
+
+  public GetPhonesByStoreIdHandler(PhoneInventoryService phoneInventoryService) {
+    super(InventoryAction.GET_PHONES_BY_STORE_ID, StoreIdPayload.class);
+    this.phoneInventoryService = phoneInventoryService;
+  }
+
+  @Override
+  public List<PhoneInventoryItem> handle(PhoneInventoryEvent event, StoreIdPayload payload) {
+    String storeId = payload != null ? payload.getStoreId() : null;
+    if (storeId == null || storeId.trim().isEmpty()) {
+      log.warn("Invalid store ID in GET_PHONES_BY_STORE_ID payload: {}", storeId);
+      return List.of();
+    }
+
+    log.debug("Getting phones by store ID: {}", storeId);
+    List<PhoneInventoryItem> result = phoneInventoryService.getPhonesByStoreId(storeId);
+
+    log.info("Successfully processed GET_PHONES_BY_STORE_ID for storeId: {}, found: {}", storeId, result.size());
+    return result;
+  }
+}
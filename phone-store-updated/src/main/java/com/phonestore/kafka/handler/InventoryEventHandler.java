@@ -0,0 +1,39 @@
+package com.phonestore.kafka.handler;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+import com.phonestore.kafka.InventoryAction;
+import com.phonestore.kafka.PhoneInventoryEvent;
+import com.phonestore.model.PhoneInventoryItem;
+import java.util.List;
+
+/**
+ * Handles one {@link InventoryAction}. The payload type declared here is what
+ * {@link InventoryEventHandlerRegistry} binds the event's payload into before calling
+ * {@link #handle}; handlers that stream the payload themselves declare
+ * {@link com.phonestore.kafka.EventPayload}.
+ */
+public abstract class InventoryEventHandler<P> {
+
+  private final InventoryAction action;
+  private final Class<?> payloadClass;
+
+  // Handlers with a generic payload pass its raw class and override payloadType
+  protected InventoryEventHandler(InventoryAction action, Class<?> payloadClass) {
+    this.action = action;
+    this.payloadClass = payloadClass;
+  }
+
+  public InventoryAction getAction() {
+    return action;
+  }
+
+  public JavaType payloadType(TypeFactory typeFactory) {
+    return typeFactory.constructType(payloadClass);
+  }
+
+  /**
+   * @param payload the bound payload, or null when the event carries none
+   */
+  public abstract List<PhoneInventoryItem> handle(PhoneInventoryEvent event, P payload);
+}
@@ -0,0 +1,95 @@
+package com.phonestore.kafka.handler;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.phonestore.kafka.EventPayload;
+import com.phonestore.kafka.InvalidEventException;
+import com.phonestore.kafka.InventoryAction;
+import com.phonestore.kafka.InventoryMetrics;
+import com.phonestore.kafka.PhoneInventoryEvent;
+import com.phonestore.model.PhoneInventoryItem;
+import io.micrometer.core.instrument.Timer;
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+@Component
+@Slf4j
+public class InventoryEventHandlerRegistry {
+
+  private final Map<InventoryAction, InventoryEventHandler<?>> handlers = new EnumMap<>(InventoryAction.class);
+  private final Map<InventoryAction, JavaType> payloadTypes = new EnumMap<>(InventoryAction.class);
+  private final ObjectMapper objectMapper;
+  private final InventoryMetrics metrics;
+
+  public InventoryEventHandlerRegistry(List<InventoryEventHandler<?>> handlerBeans, ObjectMapper objectMapper,
+      InventoryMetrics metrics) {
+    this.objectMapper = objectMapper;
+    this.metrics = metrics;
+    for (InventoryEventHandler<?> handler : handlerBeans) {
+      if (handlers.put(handler.getAction(), handler) != null) {
+        throw new IllegalStateException("More than one handler registered for " + handler.getAction());
+      }
+      payloadTypes.put(handler.getAction(), handler.payloadType(objectMapper.getTypeFactory()));
+    }
+  }
+
+  /**
+   * Resolves the event's action and runs its handler. Unknown actions, and actions that belong
+   * to a different topic, are logged and answered with an empty list. Every dispatch is timed
+   * per action and outcome, see {@link InventoryMetrics}.
+   */
+  public List<PhoneInventoryItem> dispatch(String topic, PhoneInventoryEvent event) {
+    Timer.Sample sample = metrics.start();
+    Optional<InventoryAction> action = InventoryAction.fromName(event.getAction());
+    if (action.isEmpty() || !action.get().getTopic().equals(topic) || !handlers.containsKey(action.get())) {
+      log.warn("Unknown operation for topic {}: {}, Event: {}", topic, event.getAction(), event);
+      metrics.stop(sample, topic, InventoryMetrics.UNKNOWN_ACTION, "ignored");
+      return List.of();
+    }
+    String actionName = action.get().name();
+    try {
+      List<PhoneInventoryItem> result = invoke(handlers.get(action.get()), event);
+      metrics.stop(sample, topic, actionName, "success");
+      return result;
+    } catch (RuntimeException e) {
+      // IllegalArgumentException is a business rejection, anything else is retried or dead-lettered
+      metrics.stop(sample, topic, actionName,
+          e instanceof IllegalArgumentException || e instanceof InvalidEventException ? "rejected" : "error");
+      metrics.error(topic, actionName, e);
+      throw e;
+    }
+  }
+
+  /**
+   * Binds the event's payload into the type declared by the handler of {@code action}. A handler
+   * that declares {@link EventPayload} gets the payload unbound.
+   *
+   * @throws InvalidEventException when the payload does not match that type
+   */
+  public Object bindPayload(InventoryAction action, PhoneInventoryEvent event) {
+    JavaType type = payloadTypes.get(action);
+    if (event.getPayload() == null || type == null || type.hasRawClass(Void.class)) {
+      return null;
+    }
+    if (type.hasRawClass(EventPayload.class)) {
+      return event.getPayload();
+    }
+    try {
+      return event.getPayload().bind(objectMapper, type);
+    } catch (IOException e) {
+      throw new InvalidEventException("Invalid payload structure for " + action + " operation", e);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private <P> List<PhoneInventoryItem> invoke(InventoryEventHandler<P> handler, PhoneInventoryEvent event) {
+    P payload = (P) bindPayload(handler.getAction(), event);
+    log.debug("Processing {} with payload: {}", handler.getAction(), payload);
+    return handler.handle(event, payload);
+  }
+}
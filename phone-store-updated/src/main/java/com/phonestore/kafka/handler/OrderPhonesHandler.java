@@ -0,0 +1,91 @@
+package com.phonestore.kafka.handler;
+
+import com.phonestore.kafka.InventoryAction;
+import com.phonestore.kafka.InventoryOutcomePublisher;
+import com.phonestore.kafka.PhoneInventoryEvent;
+import com.phonestore.kafka.payload.OrderLinePayload;
+import com.phonestore.kafka.payload.OrderPayload;
+import com.phonestore.model.PhoneInventoryItem;
+import com.phonestore.service.OrderLine;
+import com.phonestore.service.OrderLineResult;
+import com.phonestore.service.PhoneInventoryService;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+@Component
+@Slf4j
+public class OrderPhonesHandler extends InventoryEventHandler<OrderPayload> {
+
+  private final PhoneInventoryService phoneInventoryService;
+  private final InventoryOutcomePublisher outcomePublisher;
+
+  public OrderPhonesHandler(PhoneInventoryService phoneInventoryService, InventoryOutcomePublisher outcomePublisher) {
+    super(InventoryAction.ORDER_PHONES, OrderPayload.class);
+    this.phoneInventoryService = phoneInventoryService;
+    this.outcomePublisher = outcomePublisher;
+  }
+
+  @Override
+  public List<PhoneInventoryItem> handle(PhoneInventoryEvent event, OrderPayload payload) {
+    List<OrderLinePayload> orders = payload != null ? payload.getOrders() : null;
+    if (orders == null || orders.isEmpty()) {
+      log.warn("No orders found in ORDER_PHONES payload");
+      outcomePublisher.failed(event, "No orders found in ORDER_PHONES payload");
+      return List.of();
+    }
+
+    log.debug("Processing {} orders", orders.size());
+
+    // Collect the valid lines and decrease inventory for all of them in one bulk write
+    List<OrderLine> orderLines = new ArrayList<>();
+    for (OrderLinePayload order : orders) {
+      if (order.getPhoneId() == null || order.getQuantity() == null || order.getStoreId() == null) {
+        log.warn("Invalid order data - phoneId: {}, quantity: {}, storeId: {}",
+            order.getPhoneId(), order.getQuantity(), order.getStoreId());
+        continue;
+      }
+      orderLines.add(new OrderLine(order.getPhoneId(), order.getStoreId(), order.getQuantity()));
+    }
+
+    List<OrderLineResult> lineResults = phoneInventoryService.orderPhones(orderLines);
+    lineResults.stream()
+        .filter(lineResult -> lineResult.getStatus() != OrderLineResult.Status.FULFILLED)
+        .forEach(lineResult -> log.warn("Order line not fulfilled - phoneId: {}, quantity: {}, storeId: {}, status: {}",
+            lineResult.getPhoneId(), lineResult.getQuantity(), lineResult.getStoreId(), lineResult.getStatus()));
+
+    // Return updated inventory for the store
+    List<PhoneInventoryItem> result = phoneInventoryService.getPhonesByStoreId(orders.get(0).getStoreId());
+
+    log.info("Successfully processed ORDER_PHONES for {} orders", orders.size());
+    publishOutcome(event, lineResults);
+    return result;
+  }
+
+  private void publishOutcome(PhoneInventoryEvent event, List<OrderLineResult> lineResults) {
+    List<Map<String, Object>> lines = lineResults.stream()
+        .map(lineResult -> {
+          Map<String, Object> line = new LinkedHashMap<>();
+          line.put("phoneId", lineResult.getPhoneId());
+          line.put("storeId", lineResult.getStoreId());
+          line.put("quantity", lineResult.getQuantity());
+          line.put("status", lineResult.getStatus());
+          return line;
+        })
+        .collect(Collectors.toList());
+    long fulfilled = lineResults.stream()
+        .filter(lineResult -> lineResult.getStatus() == OrderLineResult.Status.FULFILLED)
+        .count();
+
+    String message = fulfilled + " of " + lineResults.size() + " order lines fulfilled";
+    if (fulfilled == lineResults.size()) {
+      outcomePublisher.completed(event, message, Map.of("lines", lines));
+    } else {
+      outcomePublisher.partiallyCompleted(event, message, Map.of("lines", lines));
+    }
+  }
+}
@@ -0,0 +1,16 @@
+package com.phonestore.kafka.payload;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class OrderPayload {
+  private String storeId;
+  private List<OrderLinePayload> orders;
+}
@@ -0,0 +1,7 @@
+package com.phonestore.repository;
+
+public enum AdjustmentOutcome {
+  APPLIED,
+  INSUFFICIENT_QUANTITY,
+  NOT_FOUND
+}
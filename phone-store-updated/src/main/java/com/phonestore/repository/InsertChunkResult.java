@@ -0,0 +1,27 @@
+package com.phonestore.repository;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InsertChunkResult {
+  // Position of the chunk within its batch, assigned by the caller that split the batch
+  private int chunk;
+  private int attempted;
+  private int inserted;
+  private List<InsertFailure> failures;
+
+  @Data
+  @NoArgsConstructor
+  @AllArgsConstructor
+  public static class InsertFailure {
+    private String phoneId;
+    // Mongo error code, 11000 for a duplicate key; -1 when the whole chunk failed
+    private int code;
+    private String message;
+  }
+}
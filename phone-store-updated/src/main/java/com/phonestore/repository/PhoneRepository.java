@@ -1,5 +1,6 @@
 package com.phonestore.repository;
 
+import java.util.Collection;
 import java.util.List;
 import com.phonestore.model.PhoneInventoryItem;
 import java.util.Optional;
@@ -8,9 +9,10 @@ import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface PhoneRepository extends MongoRepository<PhoneInventoryItem, String> {
+public interface PhoneRepository extends MongoRepository<PhoneInventoryItem, String>, PhoneRepositoryCustom {
 
   List<PhoneInventoryItem> findByModel(String model);
+  List<PhoneInventoryItem> findByModelIn(Collection<PhoneInventoryItem.ModelEnum> models);
   Optional<PhoneInventoryItem> findByIdAndStoreId(UUID id, String storeId);
   List<PhoneInventoryItem> findByStoreId(String storeId);
   void deleteByStoreId(String storeId);
@@ -0,0 +1,88 @@
+package com.phonestore.repository;
+
+import com.phonestore.model.PhoneInventoryItem;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Inventory operations that need more than derived queries. Implemented by
+ * {@link PhoneRepositoryCustomImpl} on top of {@code MongoTemplate}.
+ */
+public interface PhoneRepositoryCustom {
+
+  /**
+   * Atomically adds {@code amount} to the phone's quantity and keeps {@code isAvailable} in sync.
+   *
+   * @return the updated phone, or empty when no phone has the given id
+   */
+  Optional<PhoneInventoryItem> increaseQuantity(String id, int amount);
+
+  /**
+   * Atomically subtracts {@code amount} from the phone's quantity, but only when at least
+   * {@code amount} units are in stock.
+   *
+   * @return the updated phone, or empty when the phone does not exist or has too little stock
+   */
+  Optional<PhoneInventoryItem> decreaseQuantityIfAvailable(String id, int amount);
+
+  /**
+   * Same as {@link #decreaseQuantityIfAvailable(String, int)}, restricted to phones owned by
+   * {@code storeId}.
+   */
+  Optional<PhoneInventoryItem> decreaseQuantityIfAvailable(String id, String storeId, int amount);
+
+  /**
+   * Applies all adjustments in one unordered bulk write. Each is guarded like
+   * {@link #decreaseQuantityIfAvailable(String, int)} on its lowest running total, so an
+   * adjustment that sums up several changes is only applied when every one of them could be. Phone
+   * ids must be distinct.
+   *
+   * @return the outcome of every adjustment, keyed by phone id
+   */
+  Map<String, AdjustmentOutcome> adjustQuantities(List<QuantityAdjustment> adjustments);
+
+  /**
+   * Sets the phone's quantity outright and keeps {@code isAvailable} in sync. Only for phones
+   * whose stock is kept elsewhere, see {@link StockShardRepositoryCustom}.
+   *
+   * @return the phone as it was before, or empty when no phone has the given id
+   */
+  Optional<PhoneInventoryItem> overwriteQuantity(String id, int quantity);
+
+  /**
+   * Inserts {@code items} with one unordered {@code insertMany}. A rejected document, e.g. a
+   * duplicate key, does not stop the others from being inserted.
+   *
+   * @return how many were inserted and why the others were rejected
+   */
+  InsertChunkResult insertAll(List<PhoneInventoryItem> items);
+
+  /**
+   * Keyset page over {@code _id}: up to {@code limit} phones whose id sorts after {@code afterId}
+   * (from the start when {@code afterId} is null).
+   */
+  List<PhoneInventoryItem> findPageAfter(String afterId, int limit);
+
+  /**
+   * Streams the whole collection in {@code _id} order from a server-side cursor. The stream must
+   * be closed to release the cursor.
+   */
+  Stream<PhoneInventoryItem> streamAll(int batchSize);
+
+  /**
+   * Returns the subset of {@code ids} that exist, using one {@code $in} query projected on
+   * {@code _id}.
+   */
+  Set<String> findExistingIds(Collection<String> ids);
+
+  /**
+   * Deletes all phones with the given ids in one {@code deleteMany}.
+   *
+   * @return the number of deleted phones
+   */
+  long deleteAllByIdIn(Collection<String> ids);
+}
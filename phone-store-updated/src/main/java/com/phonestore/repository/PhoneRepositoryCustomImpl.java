@@ -0,0 +1,209 @@
+package com.phonestore.repository;
+
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.phonestore.model.PhoneInventoryItem;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.aggregation.ArithmeticOperators;
+import org.springframework.data.mongodb.core.aggregation.ArrayOperators;
+import org.springframework.data.mongodb.core.aggregation.ComparisonOperators;
+import org.springframework.data.mongodb.core.aggregation.ConditionalOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+@RequiredArgsConstructor
+public class PhoneRepositoryCustomImpl implements PhoneRepositoryCustom {
+
+  // Tokens of the adjustQuantities lines applied to a phone, until the call that wrote them has
+  // read its outcomes back
+  static final String ADJUSTMENT_IDS_FIELD = "adjustmentIds";
+
+  private final MongoTemplate mongoTemplate;
+
+  @Override
+  public Optional<PhoneInventoryItem> increaseQuantity(String id, int amount) {
+    Query query = new Query(Criteria.where("_id").is(id));
+    return findAndAdjust(query, amount);
+  }
+
+  @Override
+  public Optional<PhoneInventoryItem> decreaseQuantityIfAvailable(String id, int amount) {
+    Query query = new Query(Criteria.where("_id").is(id).and("quantity").gte(amount));
+    return findAndAdjust(query, -amount);
+  }
+
+  @Override
+  public Optional<PhoneInventoryItem> decreaseQuantityIfAvailable(String id, String storeId, int amount) {
+    Query query = new Query(Criteria.where("_id").is(id)
+        .and("storeId").is(storeId)
+        .and("quantity").gte(amount));
+    return findAndAdjust(query, -amount);
+  }
+
+  @Override
+  public Map<String, AdjustmentOutcome> adjustQuantities(List<QuantityAdjustment> adjustments) {
+    Map<String, AdjustmentOutcome> outcomes = new LinkedHashMap<>();
+    if (adjustments.isEmpty()) {
+      return outcomes;
+    }
+
+    Set<String> phoneIds = new HashSet<>();
+    for (QuantityAdjustment adjustment : adjustments) {
+      if (!phoneIds.add(adjustment.getPhoneId())) {
+        throw new IllegalArgumentException("Phone " + adjustment.getPhoneId() + " is adjusted more than once");
+      }
+    }
+
+    // Every line carries its own token, so concurrent calls cannot hide which of our updates matched
+    Map<String, String> tokens = new HashMap<>();
+    BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, PhoneInventoryItem.class);
+    for (QuantityAdjustment adjustment : adjustments) {
+      String token = UUID.randomUUID().toString();
+      tokens.put(adjustment.getPhoneId(), token);
+      Criteria criteria = Criteria.where("_id").is(adjustment.getPhoneId());
+      if (adjustment.getStoreId() != null) {
+        criteria = criteria.and("storeId").is(adjustment.getStoreId());
+      }
+      if (adjustment.getLowest() < 0) {
+        criteria = criteria.and("quantity").gte(-adjustment.getLowest());
+      }
+      bulk.updateOne(new Query(criteria), adjustQuantity(adjustment.getDelta())
+          .set(ADJUSTMENT_IDS_FIELD).toValueOf(ArrayOperators.ConcatArrays.arrayOf(List.of(token))
+              .concat(ConditionalOperators.ifNull(ADJUSTMENT_IDS_FIELD).then(List.of()))));
+    }
+    BulkWriteResult result = bulk.execute();
+
+    if (result.getMatchedCount() == adjustments.size()) {
+      adjustments.forEach(adjustment -> outcomes.put(adjustment.getPhoneId(), AdjustmentOutcome.APPLIED));
+    } else {
+      // Some guards did not match: one read finds our tokens and tells missing phones apart from the
+      // ones short on stock
+      Map<String, Document> current = new HashMap<>();
+      phoneCollection()
+          .find(Filters.in("_id", phoneIds))
+          .projection(Projections.include("storeId", ADJUSTMENT_IDS_FIELD))
+          .forEach(document -> current.put(document.getString("_id"), document));
+
+      for (QuantityAdjustment adjustment : adjustments) {
+        Document document = current.get(adjustment.getPhoneId());
+        if (document != null && document.getList(ADJUSTMENT_IDS_FIELD, String.class, List.of())
+            .contains(tokens.get(adjustment.getPhoneId()))) {
+          outcomes.put(adjustment.getPhoneId(), AdjustmentOutcome.APPLIED);
+        } else if (document == null
+            || (adjustment.getStoreId() != null && !adjustment.getStoreId().equals(document.getString("storeId")))) {
+          outcomes.put(adjustment.getPhoneId(), AdjustmentOutcome.NOT_FOUND);
+        } else {
+          outcomes.put(adjustment.getPhoneId(), AdjustmentOutcome.INSUFFICIENT_QUANTITY);
+        }
+      }
+    }
+
+    if (result.getMatchedCount() > 0) {
+      mongoTemplate.updateMulti(new Query(Criteria.where("_id").in(phoneIds)),
+          new Update().pull(ADJUSTMENT_IDS_FIELD, new Document("$in", tokens.values())), PhoneInventoryItem.class);
+    }
+    return outcomes;
+  }
+
+  @Override
+  public Optional<PhoneInventoryItem> overwriteQuantity(String id, int quantity) {
+    return Optional.ofNullable(mongoTemplate.findAndModify(new Query(Criteria.where("_id").is(id)),
+        new Update().set("quantity", quantity).set("isAvailable", quantity > 0),
+        FindAndModifyOptions.options().returnNew(false), PhoneInventoryItem.class));
+  }
+
+  @Override
+  public InsertChunkResult insertAll(List<PhoneInventoryItem> items) {
+    if (items.isEmpty()) {
+      return new InsertChunkResult(0, 0, 0, List.of());
+    }
+
+    BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, PhoneInventoryItem.class);
+    bulk.insert(items);
+    try {
+      BulkWriteResult result = bulk.execute();
+      return new InsertChunkResult(0, items.size(), result.getInsertedCount(), List.of());
+    } catch (BulkOperationException e) {
+      // Unordered: every document without an error was still inserted
+      List<InsertChunkResult.InsertFailure> failures = e.getErrors().stream()
+          .map(error -> insertFailure(items, error))
+          .collect(Collectors.toList());
+      return new InsertChunkResult(0, items.size(), e.getResult().getInsertedCount(), failures);
+    }
+  }
+
+  @Override
+  public List<PhoneInventoryItem> findPageAfter(String afterId, int limit) {
+    Query query = afterId == null ? new Query() : new Query(Criteria.where("_id").gt(afterId));
+    query.with(Sort.by(Sort.Direction.ASC, "_id")).limit(limit);
+    return mongoTemplate.find(query, PhoneInventoryItem.class);
+  }
+
+  @Override
+  public Stream<PhoneInventoryItem> streamAll(int batchSize) {
+    Query query = new Query().with(Sort.by(Sort.Direction.ASC, "_id")).cursorBatchSize(batchSize);
+    return mongoTemplate.stream(query, PhoneInventoryItem.class);
+  }
+
+  @Override
+  public Set<String> findExistingIds(Collection<String> ids) {
+    Set<String> existing = new HashSet<>();
+    phoneCollection()
+        .find(Filters.in("_id", ids))
+        .projection(Projections.include("_id"))
+        .forEach(document -> existing.add(document.getString("_id")));
+    return existing;
+  }
+
+  @Override
+  public long deleteAllByIdIn(Collection<String> ids) {
+    return mongoTemplate.remove(new Query(Criteria.where("_id").in(ids)), PhoneInventoryItem.class)
+        .getDeletedCount();
+  }
+
+  private static InsertChunkResult.InsertFailure insertFailure(List<PhoneInventoryItem> items, BulkWriteError error) {
+    return new InsertChunkResult.InsertFailure(items.get(error.getIndex()).getId().toString(),
+        error.getCode(), error.getMessage());
+  }
+
+  private MongoCollection<Document> phoneCollection() {
+    return mongoTemplate.getCollection(mongoTemplate.getCollectionName(PhoneInventoryItem.class));
+  }
+
+  private Optional<PhoneInventoryItem> findAndAdjust(Query query, int delta) {
+    return Optional.ofNullable(mongoTemplate.findAndModify(query, adjustQuantity(delta),
+        FindAndModifyOptions.options().returnNew(true), PhoneInventoryItem.class));
+  }
+
+  /**
+   * Pipeline update that applies {@code delta} and then recomputes {@code isAvailable} from the
+   * new quantity. Each {@code set} is its own stage, so the second one sees the updated value.
+   */
+  static AggregationUpdate adjustQuantity(int delta) {
+    return AggregationUpdate.update()
+        .set("quantity").toValueOf(ArithmeticOperators.valueOf("quantity").add(delta))
+        .set("isAvailable").toValueOf(ComparisonOperators.valueOf("quantity").greaterThanValue(0));
+  }
+}
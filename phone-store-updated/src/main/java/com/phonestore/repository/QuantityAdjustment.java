@@ -0,0 +1,30 @@
+package com.phonestore.repository;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class QuantityAdjustment {
+  private String phoneId;
+  // When set, only a phone owned by this store is adjusted
+  private String storeId;
+  // Positive to add stock, negative to remove it (guarded against going below zero)
+  private int delta;
+  // Lowest running total of the changes this adjustment sums up, in order; the stock must cover it
+  private int lowest;
+
+  public QuantityAdjustment(String phoneId, String storeId, int delta) {
+    this(phoneId, storeId, delta, Math.min(delta, 0));
+  }
+
+  /**
+   * This adjustment followed by {@code next}, as one adjustment that is only applicable when each
+   * change of both would have been.
+   */
+  public QuantityAdjustment followedBy(QuantityAdjustment next) {
+    return new QuantityAdjustment(phoneId, storeId, delta + next.delta, Math.min(lowest, delta + next.lowest));
+  }
+}
@@ -0,0 +1,31 @@
+package com.phonestore.repository;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * One slice of a sharded phone's stock, see {@link StockShardRepositoryCustom}. The phone's
+ * stock is the sum of its shards.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document
+public class StockShard {
+  // <phoneId>:<shard>
+  @Id
+  private String id;
+  private String phoneId;
+  private String storeId;
+  private int shard;
+  // How many shards the phone was split into; 0 on shards written before the count was kept
+  private int shards;
+  private int quantity;
+
+  public static String id(String phoneId, int shard) {
+    return phoneId + ":" + shard;
+  }
+}
@@ -0,0 +1,14 @@
+package com.phonestore.repository;
+
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface StockShardRepository extends MongoRepository<StockShard, String>, StockShardRepositoryCustom {
+
+  List<StockShard> findByPhoneId(String phoneId);
+  List<StockShard> findByStoreId(String storeId);
+  void deleteByPhoneIdIn(Collection<String> phoneIds);
+}
@@ -0,0 +1,49 @@
+package com.phonestore.repository;
+
+import java.util.List;
+
+/**
+ * Stock of a hot phone split over several {@link StockShard} documents, so that concurrent
+ * updates of the same phone land on different documents instead of queueing on one. Implemented
+ * by {@link StockShardRepositoryCustomImpl}.
+ */
+public interface StockShardRepositoryCustom {
+
+  /**
+   * Creates {@code shards} shards for the phone and spreads {@code quantity} evenly over them.
+   * Shards that already exist are left as they are, so calling it again finishes a split that was
+   * interrupted.
+   */
+  void split(String phoneId, String storeId, int quantity, int shards);
+
+  /**
+   * Takes {@code amount} units from one shard that holds enough of them, probing the shards from a
+   * random one. When no single shard does but the shards together do, their stock is first
+   * gathered into one shard.
+   *
+   * @param storeId when set, only a phone owned by this store is decreased
+   */
+  AdjustmentOutcome decrement(String phoneId, String storeId, int amount, int shards);
+
+  /**
+   * Adds {@code amount} units to a random shard.
+   *
+   * @param storeId when set, only a phone owned by this store is increased
+   */
+  AdjustmentOutcome increment(String phoneId, String storeId, int amount, int shards);
+
+  /**
+   * Moves {@code amount} units between two shards of a phone, provided {@code from} still holds
+   * them. Both shards are updated in one transaction, so stock is never created or lost; a move
+   * that conflicts with a concurrent update of either shard is rolled back and reported as not
+   * made.
+   *
+   * @return whether the units were moved
+   */
+  boolean transfer(String phoneId, int from, int to, int amount);
+
+  /**
+   * Ids of all phones that have shards.
+   */
+  List<String> findShardedPhoneIds();
+}
@@ -0,0 +1,131 @@
+package com.phonestore.repository;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.data.mongodb.MongoTransactionManager;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.util.Pair;
+import org.springframework.transaction.support.TransactionTemplate;
+
+public class StockShardRepositoryCustomImpl implements StockShardRepositoryCustom {
+
+  private final MongoTemplate mongoTemplate;
+  private final TransactionTemplate transactionTemplate;
+
+  public StockShardRepositoryCustomImpl(MongoTemplate mongoTemplate, MongoTransactionManager transactionManager) {
+    this.mongoTemplate = mongoTemplate;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+  }
+
+  @Override
+  public void split(String phoneId, String storeId, int quantity, int shards) {
+    // Upserts, so that instances starting together do not both create the shards
+    List<Pair<Query, Update>> upserts = new ArrayList<>();
+    for (int shard = 0; shard < shards; shard++) {
+      int share = quantity / shards + (shard < quantity % shards ? 1 : 0);
+      upserts.add(Pair.of(new Query(Criteria.where("_id").is(StockShard.id(phoneId, shard))), new Update()
+          .setOnInsert("phoneId", phoneId)
+          .setOnInsert("storeId", storeId)
+          .setOnInsert("shard", shard)
+          .setOnInsert("shards", shards)
+          .setOnInsert("quantity", share)));
+    }
+    mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, StockShard.class).upsert(upserts).execute();
+  }
+
+  @Override
+  public AdjustmentOutcome decrement(String phoneId, String storeId, int amount, int shards) {
+    // A random first probe spreads concurrent decrements over the shards
+    int start = ThreadLocalRandom.current().nextInt(shards);
+    for (int i = 0; i < shards; i++) {
+      if (take(phoneId, storeId, (start + i) % shards, amount)) {
+        return AdjustmentOutcome.APPLIED;
+      }
+    }
+
+    Query query = new Query(Criteria.where("phoneId").is(phoneId));
+    if (storeId != null) {
+      query.addCriteria(Criteria.where("storeId").is(storeId));
+    }
+    List<StockShard> current = mongoTemplate.find(query, StockShard.class);
+    if (current.isEmpty()) {
+      return AdjustmentOutcome.NOT_FOUND;
+    }
+    if (current.stream().mapToInt(StockShard::getQuantity).sum() < amount) {
+      return AdjustmentOutcome.INSUFFICIENT_QUANTITY;
+    }
+
+    // Enough stock, but spread too thin: gather it into the first probed shard, fullest first
+    current.sort(Comparator.comparingInt(StockShard::getQuantity).reversed());
+    int gathered = current.stream()
+        .filter(shard -> shard.getShard() == start)
+        .mapToInt(StockShard::getQuantity)
+        .sum();
+    for (StockShard shard : current) {
+      if (gathered >= amount) {
+        break;
+      }
+      if (shard.getShard() != start && transfer(phoneId, shard.getShard(), start, shard.getQuantity())) {
+        gathered += shard.getQuantity();
+      }
+    }
+    return take(phoneId, storeId, start, amount) ? AdjustmentOutcome.APPLIED : AdjustmentOutcome.INSUFFICIENT_QUANTITY;
+  }
+
+  @Override
+  public AdjustmentOutcome increment(String phoneId, String storeId, int amount, int shards) {
+    Criteria criteria = Criteria.where("_id").is(StockShard.id(phoneId, ThreadLocalRandom.current().nextInt(shards)));
+    if (storeId != null) {
+      criteria = criteria.and("storeId").is(storeId);
+    }
+    long matched = mongoTemplate.updateFirst(new Query(criteria), new Update().inc("quantity", amount), StockShard.class)
+        .getMatchedCount();
+    return matched == 1 ? AdjustmentOutcome.APPLIED : AdjustmentOutcome.NOT_FOUND;
+  }
+
+  @Override
+  public boolean transfer(String phoneId, int from, int to, int amount) {
+    if (amount <= 0 || from == to) {
+      return false;
+    }
+    try {
+      return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+        if (!take(phoneId, null, from, amount)) {
+          return false;
+        }
+        long matched = mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(StockShard.id(phoneId, to))),
+            new Update().inc("quantity", amount), StockShard.class).getMatchedCount();
+        if (matched != 1) {
+          status.setRollbackOnly();
+          return false;
+        }
+        return true;
+      }));
+    } catch (TransientDataAccessException e) {
+      // Write conflict with a concurrent update of either shard; the move was rolled back
+      return false;
+    }
+  }
+
+  @Override
+  public List<String> findShardedPhoneIds() {
+    return mongoTemplate.findDistinct(new Query(), "phoneId", StockShard.class, String.class);
+  }
+
+  // Guarded like PhoneRepositoryCustom.decreaseQuantityIfAvailable, on a single shard
+  private boolean take(String phoneId, String storeId, int shard, int amount) {
+    Criteria criteria = Criteria.where("_id").is(StockShard.id(phoneId, shard)).and("quantity").gte(amount);
+    if (storeId != null) {
+      criteria = criteria.and("storeId").is(storeId);
+    }
+    return mongoTemplate.updateFirst(new Query(criteria), new Update().inc("quantity", -amount), StockShard.class)
+        .getMatchedCount() == 1;
+  }
+}
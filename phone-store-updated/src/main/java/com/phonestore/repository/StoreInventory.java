@@ -0,0 +1,53 @@
+package com.phonestore.repository;
+
+import com.phonestore.model.PhoneInventoryItem;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * Denormalized copy of a store's phones with their totals, so that a store is read with one
+ * document fetch. Maintained by {@link StoreInventoryRepositoryCustom} from the write paths and
+ * rebuilt from the phone collection on demand, and once older than the configured maximum age.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document("store_inventory")
+public class StoreInventory {
+  // The store id
+  @Id
+  private String id;
+  // Indexed, so a phone's store can be found without knowing it
+  private List<String> phoneIds;
+  private Map<String, PhoneInventoryItem> items;
+  private int phoneCount;
+  private long totalQuantity;
+  private int availableCount;
+  private Instant updatedAt;
+  // When it was last built from the phone collection
+  private Instant builtAt;
+
+  public static StoreInventory of(String storeId, List<PhoneInventoryItem> phones) {
+    Map<String, PhoneInventoryItem> items = new LinkedHashMap<>();
+    long totalQuantity = 0;
+    int availableCount = 0;
+    for (PhoneInventoryItem phone : phones) {
+      items.put(phone.getId().toString(), phone);
+      totalQuantity += phone.getQuantity();
+      if (phone.getQuantity() > 0) {
+        availableCount++;
+      }
+    }
+    Instant now = Instant.now();
+    return new StoreInventory(storeId, new ArrayList<>(items.keySet()), items, items.size(), totalQuantity,
+        availableCount, now, now);
+  }
+}
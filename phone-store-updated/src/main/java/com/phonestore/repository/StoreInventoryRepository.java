@@ -0,0 +1,8 @@
+package com.phonestore.repository;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface StoreInventoryRepository extends MongoRepository<StoreInventory, String>, StoreInventoryRepositoryCustom {
+}
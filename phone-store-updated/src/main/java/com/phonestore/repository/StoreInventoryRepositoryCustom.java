@@ -0,0 +1,42 @@
+package com.phonestore.repository;
+
+import com.phonestore.model.PhoneInventoryItem;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Incremental maintenance of the {@link StoreInventory} summaries. Every update only touches a
+ * summary that already exists and, for an existing phone, that already lists the phone, so
+ * a summary is never half built by them. Implemented by {@link StoreInventoryRepositoryCustomImpl}.
+ */
+public interface StoreInventoryRepositoryCustom {
+
+  /**
+   * Stores the summary unless the store already has one.
+   *
+   * @return whether it was stored
+   */
+  boolean create(StoreInventory summary);
+
+  /**
+   * Adds new phones of one store to its summary. Phones it already lists are left alone. A
+   * summary that reaches {@code maxPhones} phones is dropped, as it could take no more.
+   */
+  void addItems(String storeId, List<PhoneInventoryItem> phones, int maxPhones);
+
+  /**
+   * Applies quantity deltas to phones in whichever summary lists them, keeping the totals in step.
+   */
+  void adjustQuantities(Map<String, Integer> deltasByPhoneId);
+
+  /**
+   * Removes phones from whichever summary lists them.
+   */
+  void removeItems(Collection<String> phoneIds);
+
+  /**
+   * Drops the summaries that list any of the phones, so they are built again on their next read.
+   */
+  void deleteContaining(Collection<String> phoneIds);
+}
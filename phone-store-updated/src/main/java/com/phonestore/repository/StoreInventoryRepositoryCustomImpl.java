@@ -0,0 +1,126 @@
+package com.phonestore.repository;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.WriteModel;
+import com.phonestore.model.PhoneInventoryItem;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+/**
+ * The updates are pipelines, so that the totals are corrected from the phone's previous values
+ * read within the same single-document write.
+ */
+@RequiredArgsConstructor
+public class StoreInventoryRepositoryCustomImpl implements StoreInventoryRepositoryCustom {
+
+  private final MongoTemplate mongoTemplate;
+
+  @Override
+  public boolean create(StoreInventory summary) {
+    try {
+      mongoTemplate.insert(summary);
+      return true;
+    } catch (DuplicateKeyException e) {
+      return false;
+    }
+  }
+
+  @Override
+  public void addItems(String storeId, List<PhoneInventoryItem> phones, int maxPhones) {
+    List<WriteModel<Document>> writes = new ArrayList<>();
+    for (PhoneInventoryItem phone : phones) {
+      String phoneId = phone.getId().toString();
+      Document item = new Document();
+      mongoTemplate.getConverter().write(phone, item);
+      writes.add(new UpdateOneModel<>(
+          Filters.and(Filters.eq("_id", storeId), Filters.ne("phoneIds", phoneId), Filters.lt("phoneCount", maxPhones)),
+          Updates.combine(
+              Updates.set(itemPath(phoneId), item),
+              Updates.push("phoneIds", phoneId),
+              Updates.inc("phoneCount", 1),
+              Updates.inc("totalQuantity", phone.getQuantity()),
+              Updates.inc("availableCount", phone.getQuantity() > 0 ? 1 : 0),
+              Updates.currentDate("updatedAt"))));
+    }
+    execute(writes);
+    // A full summary skipped the phones above, so it is no longer complete
+    collection().deleteOne(Filters.and(Filters.eq("_id", storeId), Filters.gte("phoneCount", maxPhones)));
+  }
+
+  @Override
+  public void adjustQuantities(Map<String, Integer> deltasByPhoneId) {
+    List<WriteModel<Document>> writes = new ArrayList<>();
+    deltasByPhoneId.forEach((phoneId, delta) -> writes.add(new UpdateOneModel<>(Filters.eq("phoneIds", phoneId),
+        quantityUpdate(phoneId, new Document("$add", List.of(currentQuantity(phoneId), delta))))));
+    execute(writes);
+  }
+
+  @Override
+  public void removeItems(Collection<String> phoneIds) {
+    List<WriteModel<Document>> writes = new ArrayList<>();
+    for (String phoneId : phoneIds) {
+      Object quantity = currentQuantity(phoneId);
+      List<Bson> pipeline = List.of(
+          new Document("$set", new Document("phoneCount", new Document("$subtract", List.of("$phoneCount", 1)))
+              .append("totalQuantity", new Document("$subtract", List.of("$totalQuantity", quantity)))
+              .append("availableCount", new Document("$subtract", List.of("$availableCount", availableIf(quantity))))
+              .append("phoneIds", new Document("$filter", new Document("input", "$phoneIds")
+                  .append("cond", new Document("$ne", List.of("$$this", phoneId)))))
+              .append("updatedAt", "$$NOW")),
+          new Document("$unset", itemPath(phoneId)));
+      writes.add(new UpdateOneModel<>(Filters.eq("phoneIds", phoneId), pipeline));
+    }
+    execute(writes);
+  }
+
+  @Override
+  public void deleteContaining(Collection<String> phoneIds) {
+    collection().deleteMany(Filters.in("phoneIds", phoneIds));
+  }
+
+  // The totals are corrected in a first stage, while the item still holds its previous quantity
+  private static List<Bson> quantityUpdate(String phoneId, Object quantity) {
+    Object previous = currentQuantity(phoneId);
+    return List.of(
+        new Document("$set", new Document("totalQuantity",
+            new Document("$add", List.of("$totalQuantity", new Document("$subtract", List.of(quantity, previous)))))
+            .append("availableCount", new Document("$add", List.of("$availableCount",
+                new Document("$subtract", List.of(availableIf(quantity), availableIf(previous))))))),
+        new Document("$set", new Document(itemPath(phoneId) + ".quantity", quantity)
+            .append(itemPath(phoneId) + ".isAvailable", new Document("$gt", List.of(quantity, 0)))
+            .append("updatedAt", "$$NOW")));
+  }
+
+  private static Object currentQuantity(String phoneId) {
+    return "$" + itemPath(phoneId) + ".quantity";
+  }
+
+  private static Document availableIf(Object quantity) {
+    return new Document("$cond", List.of(new Document("$gt", List.of(quantity, 0)), 1, 0));
+  }
+
+  private static String itemPath(String phoneId) {
+    return "items." + phoneId;
+  }
+
+  private void execute(List<WriteModel<Document>> writes) {
+    if (!writes.isEmpty()) {
+      collection().bulkWrite(writes, new BulkWriteOptions().ordered(false));
+    }
+  }
+
+  private MongoCollection<Document> collection() {
+    return mongoTemplate.getCollection(mongoTemplate.getCollectionName(StoreInventory.class));
+  }
+}
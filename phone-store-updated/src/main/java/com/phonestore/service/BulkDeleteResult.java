@@ -0,0 +1,14 @@
+package com.phonestore.service;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkDeleteResult {
+  private long deletedCount;
+  private List<String> missingIds;
+}
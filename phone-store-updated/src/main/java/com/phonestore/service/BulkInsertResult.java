@@ -0,0 +1,27 @@
+package com.phonestore.service;
+
+import com.phonestore.model.PhoneInventoryItem;
+import com.phonestore.repository.InsertChunkResult;
+import java.util.List;
+import java.util.stream.Collectors;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkInsertResult {
+  private List<PhoneInventoryItem> inserted;
+  private List<InsertChunkResult> chunks;
+
+  public boolean hasFailures() {
+    return chunks.stream().anyMatch(chunk -> !chunk.getFailures().isEmpty());
+  }
+
+  public List<InsertChunkResult.InsertFailure> failures() {
+    return chunks.stream()
+        .flatMap(chunk -> chunk.getFailures().stream())
+        .collect(Collectors.toList());
+  }
+}
@@ -0,0 +1,14 @@
+package com.phonestore.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderLine {
+  private String phoneId;
+  private String storeId;
+  private int quantity;
+}
@@ -0,0 +1,22 @@
+package com.phonestore.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderLineResult {
+
+  public enum Status {
+    FULFILLED,
+    INSUFFICIENT_STOCK,
+    NOT_FOUND
+  }
+
+  private String phoneId;
+  private String storeId;
+  private int quantity;
+  private Status status;
+}
@@ -0,0 +1,99 @@
+package com.phonestore.service;
+
+import com.phonestore.model.PhoneInventoryItem;
+import com.phonestore.repository.InsertChunkResult;
+import com.phonestore.repository.PhoneRepository;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Inserts large batches of new phones as unordered {@code insertMany} chunks, several chunks at
+ * a time. A failed chunk or document is reported in the result instead of aborting the batch.
+ */
+@Component
+@Slf4j
+public class PhoneBulkInserter implements DisposableBean {
+
+  private final PhoneRepository repository;
+  private final int chunkSize;
+  // Null with a parallelism of 1: chunks are then inserted on the calling thread
+  private final ExecutorService executor;
+
+  public PhoneBulkInserter(PhoneRepository repository,
+      @Value("${inventory.bulk-insert.chunk-size:1000}") int chunkSize,
+      @Value("${inventory.bulk-insert.parallelism:4}") int parallelism) {
+    if (chunkSize < 1 || parallelism < 1) {
+      throw new IllegalArgumentException("Bulk insert chunk size and parallelism must be at least 1");
+    }
+    this.repository = repository;
+    this.chunkSize = chunkSize;
+    // Not a bean: an Executor bean would replace Spring Boot's applicationTaskExecutor
+    this.executor = parallelism == 1 ? null
+        : Executors.newFixedThreadPool(parallelism, new CustomizableThreadFactory("phone-insert-"));
+  }
+
+  public BulkInsertResult insert(List<PhoneInventoryItem> items) {
+    List<List<PhoneInventoryItem>> chunks = new ArrayList<>();
+    for (int from = 0; from < items.size(); from += chunkSize) {
+      chunks.add(items.subList(from, Math.min(from + chunkSize, items.size())));
+    }
+
+    List<InsertChunkResult> results = new ArrayList<>();
+    if (executor == null || chunks.size() == 1) {
+      for (int i = 0; i < chunks.size(); i++) {
+        results.add(insertChunk(i, chunks.get(i)));
+      }
+    } else {
+      List<CompletableFuture<InsertChunkResult>> futures = new ArrayList<>();
+      for (int i = 0; i < chunks.size(); i++) {
+        int index = i;
+        futures.add(CompletableFuture.supplyAsync(() -> insertChunk(index, chunks.get(index)), executor));
+      }
+      futures.forEach(future -> results.add(future.join()));
+    }
+
+    Set<String> failedIds = new HashSet<>();
+    results.forEach(result -> result.getFailures().forEach(failure -> failedIds.add(failure.getPhoneId())));
+    List<PhoneInventoryItem> inserted = failedIds.isEmpty() ? items : items.stream()
+        .filter(item -> !failedIds.contains(item.getId().toString()))
+        .collect(Collectors.toList());
+    return new BulkInsertResult(inserted, results);
+  }
+
+  private InsertChunkResult insertChunk(int index, List<PhoneInventoryItem> chunk) {
+    InsertChunkResult result;
+    try {
+      result = repository.insertAll(chunk);
+    } catch (RuntimeException e) {
+      // Not a per-document error (timeout, lost connection...): the chunk is reported as failed
+      log.warn("Bulk insert chunk {} of {} phones failed", index, chunk.size(), e);
+      List<InsertChunkResult.InsertFailure> failures = chunk.stream()
+          .map(item -> new InsertChunkResult.InsertFailure(item.getId().toString(), -1, e.getMessage()))
+          .collect(Collectors.toList());
+      result = new InsertChunkResult(0, chunk.size(), 0, failures);
+    }
+    result.setChunk(index);
+    if (!result.getFailures().isEmpty()) {
+      log.warn("Bulk insert chunk {} inserted {} of {} phones", index, result.getInserted(), result.getAttempted());
+    }
+    return result;
+  }
+
+  @Override
+  public void destroy() {
+    if (executor != null) {
+      executor.shutdown();
+    }
+  }
+}
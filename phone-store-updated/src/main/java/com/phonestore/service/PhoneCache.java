@@ -0,0 +1,93 @@
+package com.phonestore.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.phonestore.model.PhoneInventoryItem;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Bounded read-through cache of phones by id. Entries are evicted by size and by age, and every
+ * write path in {@link PhoneInventoryService} drops the entries it touches once it has written;
+ * writes never put, so concurrent writers cannot leave an older document behind. A load that
+ * overlaps an invalidation is not kept.
+ */
+@Component
+public class PhoneCache {
+
+  private final Cache<String, PhoneInventoryItem> cache;
+  // Bumped by every invalidation, so that a bulk load can tell whether it raced one
+  private final AtomicLong invalidations = new AtomicLong();
+
+  public PhoneCache(@Value("${inventory.cache.maximum-size:10000}") long maximumSize,
+      @Value("${inventory.cache.ttl:5m}") Duration ttl) {
+    this.cache = Caffeine.newBuilder()
+        .maximumSize(maximumSize)
+        .expireAfterWrite(ttl)
+        .recordStats()
+        .build();
+  }
+
+  public PhoneInventoryItem get(String id, Function<String, PhoneInventoryItem> loader) {
+    return cache.get(id, loader);
+  }
+
+  /**
+   * The cached phones among {@code ids}, with the missing ones loaded in one call. Unknown ids are
+   * left out.
+   */
+  public Map<String, PhoneInventoryItem> getAll(Collection<String> ids,
+      Function<Set<String>, List<PhoneInventoryItem>> loader) {
+    long generation = invalidations.get();
+    Set<String> loaded = new HashSet<>();
+    Map<String, PhoneInventoryItem> result = cache.getAll(ids, missing -> {
+      Map<String, PhoneInventoryItem> items = new HashMap<>();
+      loader.apply(new HashSet<>(missing)).forEach(item -> items.put(item.getId().toString(), item));
+      loaded.addAll(items.keySet());
+      return items;
+    });
+    // Unlike a single get, the bulk insert does not wait for invalidations: a phone written while
+    // it was read may have been cached as it was before
+    if (!loaded.isEmpty() && invalidations.get() != generation) {
+      cache.invalidateAll(loaded);
+    }
+    return result;
+  }
+
+  public void invalidate(String id) {
+    invalidations.incrementAndGet();
+    cache.invalidate(id);
+  }
+
+  public void invalidateAll(Collection<String> ids) {
+    invalidations.incrementAndGet();
+    cache.invalidateAll(ids);
+  }
+
+  public void invalidateStore(String storeId) {
+    invalidations.incrementAndGet();
+    cache.asMap().values().removeIf(item -> storeId.equals(item.getStoreId()));
+  }
+
+  public Map<String, Object> stats() {
+    CacheStats stats = cache.stats();
+    Map<String, Object> result = new LinkedHashMap<>();
+    result.put("size", cache.estimatedSize());
+    result.put("hits", stats.hitCount());
+    result.put("misses", stats.missCount());
+    result.put("evictions", stats.evictionCount());
+    result.put("hitRate", stats.hitRate());
+    return result;
+  }
+}
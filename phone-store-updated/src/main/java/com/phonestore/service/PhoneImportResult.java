@@ -0,0 +1,19 @@
+package com.phonestore.service;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PhoneImportResult {
+  private int received;
+  private int inserted;
+  // Elements that failed validation, and phones the database refused
+  private int rejected;
+  private int failed;
+  // The first reasons only; the counts above cover all of them
+  private List<String> errors;
+}
@@ -0,0 +1,16 @@
+package com.phonestore.service;
+
+import com.phonestore.model.PhoneInventoryItem;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PhoneInventoryPage {
+  private List<PhoneInventoryItem> items;
+  // Pass back as "after" to fetch the next page, null on the last page
+  private String nextCursor;
+}
@@ -1,28 +1,88 @@
 package com.phonestore.service;
 
-
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.phonestore.model.PhoneInventoryItemRequest;
+import com.phonestore.repository.AdjustmentOutcome;
+import com.phonestore.repository.InsertChunkResult;
 import com.phonestore.repository.PhoneRepository;
+import com.phonestore.repository.QuantityAdjustment;
+import com.phonestore.repository.StoreInventory;
 import com.phonestore.model.PhoneInventoryItem;
+import java.io.IOException;
 import java.time.OffsetDateTime;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class PhoneInventoryService {
 
+  private static final int MAX_REPORTED_IMPORT_ERRORS = 100;
+
   @Autowired
   private PhoneRepository repository;
 
+  @Autowired
+  private PhoneCache phoneCache;
+
+  @Autowired
+  private PhoneBulkInserter bulkInserter;
+
+  @Autowired
+  private ShardedStock shardedStock;
+
+  @Autowired
+  private StoreInventoryView storeInventoryView;
+
+  @Value("${inventory.catalog.default-page-size:100}")
+  private int defaultPageSize;
+
+  @Value("${inventory.catalog.max-page-size:500}")
+  private int maxPageSize;
+
+  @Value("${inventory.catalog.stream-batch-size:500}")
+  private int streamBatchSize;
+
+  @Value("${inventory.import.batch-size:5000}")
+  private int importBatchSize;
+
   public PhoneInventoryItem getById(String id) {
-    return repository.findById(id).orElse(null);
+    if (shardedStock.isSharded(id)) {
+      // Not cached: the quantity is summed from the shards on every read
+      return repository.findById(id).map(shardedStock::withLiveQuantity).orElse(null);
+    }
+    return phoneCache.get(id, key -> repository.findById(key).orElse(null));
+  }
+
+  /**
+   * The phone's stock as stored right now, bypassing the cache; null when the phone does not exist.
+   */
+  public Integer getQuantity(String id) {
+    if (shardedStock.isSharded(id)) {
+      return shardedStock.quantity(id);
+    }
+    return repository.findById(id).map(PhoneInventoryItem::getQuantity).orElse(null);
   }
 
   public List<PhoneInventoryItem> getByIds(List<String> ids) {
-    return (List<PhoneInventoryItem>) repository.findAllById(ids);
+    List<String> shardedIds = ids.stream().filter(shardedStock::isSharded).distinct().collect(Collectors.toList());
+    if (!shardedIds.isEmpty()) {
+      ids = ids.stream().filter(id -> !shardedStock.isSharded(id)).collect(Collectors.toList());
+    }
+
+    List<PhoneInventoryItem> result = new ArrayList<>(phoneCache.getAll(ids, repository::findAllById).values());
+    if (!shardedIds.isEmpty()) {
+      repository.findAllById(shardedIds).forEach(item -> result.add(shardedStock.withLiveQuantity(item)));
+    }
+    return result;
   }
 
   public List<PhoneInventoryItem> getByModel(String model) {
@@ -30,18 +90,132 @@ public class PhoneInventoryService {
   }
 
   public List<PhoneInventoryItem> getByModels(List<String> models) {
-    // Convert input models to uppercase for case-insensitive comparison
-    List<String> upperCaseModels = models.stream()
-        .map(String::toUpperCase)
-        .collect(Collectors.toList());
+    // Resolve the requested names case-insensitively, then let Mongo match them with one $in query
+    Set<PhoneInventoryItem.ModelEnum> modelEnums = EnumSet.noneOf(PhoneInventoryItem.ModelEnum.class);
+    for (String model : models) {
+      for (PhoneInventoryItem.ModelEnum candidate : PhoneInventoryItem.ModelEnum.values()) {
+        if (candidate.getValue().equalsIgnoreCase(model.trim())) {
+          modelEnums.add(candidate);
+        }
+      }
+    }
 
-    return repository.findAll().stream()
-        .filter(item -> upperCaseModels.contains(item.getModel().toString().toUpperCase()))
-        .collect(Collectors.toList());
+    if (modelEnums.isEmpty()) {
+      return new ArrayList<>();
+    }
+    return repository.findByModelIn(modelEnums);
   }
 
   public List<PhoneInventoryItem> addPhones(List<PhoneInventoryItemRequest> requests,String storeId) {
-    List<PhoneInventoryItem> items = requests.stream().map(request -> {
+    return addPhonesInBulk(requests, storeId).getInserted();
+  }
+
+  public BulkInsertResult addPhonesInBulk(List<PhoneInventoryItemRequest> requests, String storeId) {
+    List<PhoneInventoryItem> items = toItems(requests, storeId);
+    // The ids are new, so the items are inserted rather than upserted one by one by saveAll
+    BulkInsertResult result = bulkInserter.insert(items);
+    if (!items.isEmpty() && result.getInserted().isEmpty()) {
+      throw new RuntimeException("No phones were inserted: " + result.failures().get(0).getMessage());
+    }
+    storeInventoryView.phonesAdded(result.getInserted());
+    return result;
+  }
+
+  /**
+   * Reads a JSON array of phone requests from {@code parser} one element at a time and inserts
+   * them in batches of {@code inventory.import.batch-size}, so only one batch is held in memory
+   * whatever the size of the array. Invalid elements are skipped and counted as rejected.
+   * Imported phones are not cached, a large import would only evict the hot entries.
+   *
+   * @param onBatch called with the outcome of every inserted batch
+   * @throws IllegalArgumentException when the input is not an array
+   * @throws IOException when the input is not well-formed JSON; earlier batches stay inserted
+   */
+  public PhoneImportResult importPhones(JsonParser parser, String storeId, Consumer<BulkInsertResult> onBatch)
+      throws IOException {
+    if (parser.nextToken() != JsonToken.START_ARRAY) {
+      throw new IllegalArgumentException("Expected a JSON array of phones");
+    }
+
+    PhoneImportResult result = new PhoneImportResult(0, 0, 0, 0, new ArrayList<>());
+    List<PhoneInventoryItemRequest> batch = new ArrayList<>();
+    JsonToken token;
+    while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+      if (token == null) {
+        throw new IllegalArgumentException("Phone array ends after " + result.getReceived() + " elements");
+      }
+      int index = result.getReceived();
+      result.setReceived(index + 1);
+
+      // Read as a small tree first, so a bad element is skipped without losing the stream position
+      JsonNode element = parser.readValueAsTree();
+      String error;
+      PhoneInventoryItemRequest request = null;
+      try {
+        request = parser.getCodec().treeToValue(element, PhoneInventoryItemRequest.class);
+        error = validate(request);
+      } catch (JsonProcessingException e) {
+        error = e.getOriginalMessage();
+      }
+      if (error != null) {
+        result.setRejected(result.getRejected() + 1);
+        addImportError(result, "item " + index + ": " + error);
+        continue;
+      }
+
+      batch.add(request);
+      if (batch.size() >= importBatchSize) {
+        importBatch(batch, storeId, result, onBatch);
+        batch.clear();
+      }
+    }
+    if (!batch.isEmpty()) {
+      importBatch(batch, storeId, result, onBatch);
+    }
+
+    if (result.getInserted() == 0 && result.getFailed() > 0) {
+      // Nothing was written, so the whole import can safely be retried
+      throw new RuntimeException("No phones were imported: " + result.getErrors().get(0));
+    }
+    return result;
+  }
+
+  private void importBatch(List<PhoneInventoryItemRequest> batch, String storeId, PhoneImportResult result,
+      Consumer<BulkInsertResult> onBatch) {
+    BulkInsertResult inserted = bulkInserter.insert(toItems(batch, storeId));
+    storeInventoryView.phonesAdded(inserted.getInserted());
+    List<InsertChunkResult.InsertFailure> failures = inserted.failures();
+    result.setInserted(result.getInserted() + inserted.getInserted().size());
+    result.setFailed(result.getFailed() + failures.size());
+    failures.forEach(failure -> addImportError(result, "phone " + failure.getPhoneId() + ": " + failure.getMessage()));
+    onBatch.accept(inserted);
+  }
+
+  private static void addImportError(PhoneImportResult result, String error) {
+    if (result.getErrors().size() < MAX_REPORTED_IMPORT_ERRORS) {
+      result.getErrors().add(error);
+    }
+  }
+
+  // Same bounds as PhoneInventoryItemRequest in phone-inventory.yaml
+  private static String validate(PhoneInventoryItemRequest request) {
+    if (request.getModel() == null) {
+      return "model is required";
+    }
+    if (request.getType() != null && (request.getType().length() < 5 || request.getType().length() > 15)) {
+      return "type must be 5 to 15 characters long";
+    }
+    if (request.getQuantity() == null || request.getQuantity() < 0 || request.getQuantity() > 1000) {
+      return "quantity must be between 0 and 1000";
+    }
+    if (request.getPrice() == null || request.getPrice() < 0.01 || request.getPrice() > 9999.99) {
+      return "price must be between 0.01 and 9999.99";
+    }
+    return null;
+  }
+
+  private List<PhoneInventoryItem> toItems(List<PhoneInventoryItemRequest> requests, String storeId) {
+    return requests.stream().map(request -> {
       PhoneInventoryItem item = new PhoneInventoryItem();
 
       // Copy properties from request to item
@@ -62,8 +236,6 @@ public class PhoneInventoryService {
       return item;
 
     }).collect(Collectors.toList());
-
-    return repository.saveAll(items);
   }
 
   public void deletePhoneById(String id) {
@@ -73,6 +245,9 @@ public class PhoneInventoryService {
         throw new IllegalArgumentException("Phone with ID " + id + " not found");
       }
       repository.deleteById(id);
+      phoneCache.invalidate(id);
+      shardedStock.remove(List.of(id));
+      storeInventoryView.phonesRemoved(List.of(id));
     } catch (IllegalArgumentException e) {
       // Re-throw our custom exception or UUID format exception
       throw e;
@@ -82,8 +257,12 @@ public class PhoneInventoryService {
   }
 
   public void deletePhonesByIds(List<String> ids) {
+    deletePhonesByIds(ids, false);
+  }
+
+  public BulkDeleteResult deletePhonesByIds(List<String> ids, boolean bestEffort) {
     if (ids == null || ids.isEmpty()) {
-      return;
+      return new BulkDeleteResult(0, List.of());
     }
 
     // Validate that all IDs are valid UUIDs before proceeding
@@ -95,31 +274,32 @@ public class PhoneInventoryService {
       }
     }
 
-    // Check which IDs don't exist
-    List<String> existingIds = new ArrayList<>();
-    List<String> nonExistingIds = new ArrayList<>();
-
-    for (String id : ids) {
-      if (repository.existsById(id)) {
-        existingIds.add(id);
-      } else {
-        nonExistingIds.add(id);
-      }
-    }
+    // One $in query tells us which IDs don't exist
+    Set<String> existingIds = repository.findExistingIds(ids);
+    List<String> nonExistingIds = ids.stream()
+        .filter(id -> !existingIds.contains(id))
+        .distinct()
+        .collect(Collectors.toList());
 
-    if (!nonExistingIds.isEmpty()) {
+    if (!nonExistingIds.isEmpty() && !bestEffort) {
       throw new IllegalArgumentException("Phones with IDs not found: " + nonExistingIds);
     }
 
-    // Delete using String IDs directly
-    repository.deleteAllById(existingIds);
+    long deletedCount = existingIds.isEmpty() ? 0 : repository.deleteAllByIdIn(existingIds);
+    phoneCache.invalidateAll(existingIds);
+    shardedStock.remove(existingIds);
+    storeInventoryView.phonesRemoved(existingIds);
+    return new BulkDeleteResult(deletedCount, nonExistingIds);
   }
 
   public void increaseQuantity(String id, int amount) {
-    repository.findById(id).ifPresent(item -> {
-      item.setQuantity(item.getQuantity() + amount);
-      repository.save(item);
-    });
+    if (shardedStock.isSharded(id)) {
+      shardedStock.adjust(id, null, amount);
+      return;
+    }
+    // Single $inc on the server, unknown ids are ignored as before
+    repository.increaseQuantity(id, amount)
+        .ifPresentOrElse(item -> quantityUpdated(item, amount), () -> phoneCache.invalidate(id));
   }
 
   public void decreaseQuantity(String id, int amount, String orderStoreId) {
@@ -127,15 +307,22 @@ public class PhoneInventoryService {
       throw new IllegalArgumentException("Amount cannot be negative");
     }
 
-    repository.findByIdAndStoreId(UUID.fromString(id), orderStoreId).ifPresent(item -> {
-      if (amount > item.getQuantity()) {
-        throw new IllegalArgumentException("Cannot decrease quantity by " + amount +
-            ". Current quantity is only " + item.getQuantity());
-      }
-
-      item.setQuantity(item.getQuantity() - amount);
-      repository.save(item);
-    });
+    UUID phoneId = UUID.fromString(id);
+    if (shardedStock.isSharded(phoneId.toString())) {
+      decreaseShardedQuantity(phoneId.toString(), orderStoreId, amount);
+      return;
+    }
+    Optional<PhoneInventoryItem> updated =
+        repository.decreaseQuantityIfAvailable(phoneId.toString(), orderStoreId, amount);
+    updated.ifPresent(item -> quantityUpdated(item, -amount));
+    if (updated.isEmpty()) {
+      // The guarded update did not match: either the phone is unknown (ignored) or stock is short
+      phoneCache.invalidate(phoneId.toString());
+      repository.findByIdAndStoreId(phoneId, orderStoreId)
+          .ifPresent(item -> {
+            throw insufficientQuantity(amount, item.getQuantity());
+          });
+    }
   }
 
   public void decreaseQuantityForSpecificPhoneId(String id, int amount) {
@@ -143,22 +330,157 @@ public class PhoneInventoryService {
       throw new IllegalArgumentException("Amount cannot be negative");
     }
 
-    repository.findById(UUID.fromString(id).toString()).ifPresent(item -> {
-      if (amount > item.getQuantity()) {
-        throw new IllegalArgumentException("Cannot decrease quantity by " + amount +
-            ". Current quantity is only " + item.getQuantity());
+    String phoneId = UUID.fromString(id).toString();
+    if (shardedStock.isSharded(phoneId)) {
+      decreaseShardedQuantity(phoneId, null, amount);
+      return;
+    }
+    Optional<PhoneInventoryItem> updated = repository.decreaseQuantityIfAvailable(phoneId, amount);
+    updated.ifPresent(item -> quantityUpdated(item, -amount));
+    if (updated.isEmpty()) {
+      phoneCache.invalidate(phoneId);
+      repository.findById(phoneId)
+          .ifPresent(item -> {
+            throw insufficientQuantity(amount, item.getQuantity());
+          });
+    }
+  }
+
+  // The summaries take the delta rather than the new quantity, which could overtake a later one
+  private void quantityUpdated(PhoneInventoryItem item, int delta) {
+    phoneCache.invalidate(item.getId().toString());
+    storeInventoryView.quantitiesAdjusted(Map.of(item.getId().toString(), delta));
+  }
+
+  // Unknown phones are ignored, as for unsharded ones
+  private void decreaseShardedQuantity(String phoneId, String storeId, int amount) {
+    if (shardedStock.adjust(phoneId, storeId, -amount) == AdjustmentOutcome.INSUFFICIENT_QUANTITY) {
+      throw insufficientQuantity(amount, shardedStock.quantity(phoneId));
+    }
+  }
+
+  public List<OrderLineResult> orderPhones(List<OrderLine> lines) {
+    // Lines for the same phone are merged, so each phone is touched by exactly one guarded update
+    Map<String, OrderLine> linesByPhone = new LinkedHashMap<>();
+    for (OrderLine line : lines) {
+      if (line.getQuantity() < 0) {
+        throw new IllegalArgumentException("Amount cannot be negative");
+      }
+      String phoneId = UUID.fromString(line.getPhoneId()).toString();
+      OrderLine merged = linesByPhone.get(phoneId);
+      if (merged == null) {
+        linesByPhone.put(phoneId, new OrderLine(phoneId, line.getStoreId(), line.getQuantity()));
+      } else if (Objects.equals(merged.getStoreId(), line.getStoreId())) {
+        merged.setQuantity(merged.getQuantity() + line.getQuantity());
+      } else {
+        throw new IllegalArgumentException("Phone " + phoneId + " is ordered from more than one store");
+      }
+    }
+
+    List<QuantityAdjustment> adjustments = linesByPhone.values().stream()
+        .map(line -> new QuantityAdjustment(line.getPhoneId(), line.getStoreId(), -line.getQuantity()))
+        .collect(Collectors.toList());
+    Map<String, AdjustmentOutcome> outcomes = adjustQuantities(adjustments);
+    // The bulk write does not return documents, so drop the touched phones instead of updating them
+    phoneCache.invalidateAll(linesByPhone.keySet());
+
+    return lines.stream()
+        .map(line -> {
+          AdjustmentOutcome outcome = outcomes.get(UUID.fromString(line.getPhoneId()).toString());
+          return new OrderLineResult(line.getPhoneId(), line.getStoreId(), line.getQuantity(), toStatus(outcome));
+        })
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Applies quantity changes summed per phone, each guarded on its lowest running total. A phone
+   * whose changes might not all have applied one by one comes back INSUFFICIENT_QUANTITY, for the
+   * caller to replay them in order.
+   */
+  public Map<String, AdjustmentOutcome> applyQuantityDeltas(Collection<QuantityAdjustment> adjustments) {
+    Map<String, AdjustmentOutcome> outcomes = adjustQuantities(adjustments.stream()
+        .filter(adjustment -> adjustment.getDelta() != 0 || adjustment.getLowest() < 0)
+        .collect(Collectors.toList()));
+    // Changes that cancel out without ever taking stock leave nothing to write, but they did take place
+    adjustments.forEach(adjustment -> outcomes.putIfAbsent(adjustment.getPhoneId(), AdjustmentOutcome.APPLIED));
+    phoneCache.invalidateAll(adjustments.stream().map(QuantityAdjustment::getPhoneId).collect(Collectors.toList()));
+    return outcomes;
+  }
+
+  // Sharded phones are adjusted one by one on their shards, the others in one bulk write
+  private Map<String, AdjustmentOutcome> adjustQuantities(List<QuantityAdjustment> adjustments) {
+    Map<String, AdjustmentOutcome> outcomes = new LinkedHashMap<>();
+    List<QuantityAdjustment> unsharded = new ArrayList<>();
+    for (QuantityAdjustment adjustment : adjustments) {
+      if (shardedStock.isSharded(adjustment.getPhoneId())) {
+        // The shards only guard the net delta: changes that dip lower are left to be replayed
+        outcomes.put(adjustment.getPhoneId(), adjustment.getLowest() < Math.min(adjustment.getDelta(), 0)
+            ? AdjustmentOutcome.INSUFFICIENT_QUANTITY
+            : shardedStock.adjust(adjustment.getPhoneId(), adjustment.getStoreId(), adjustment.getDelta()));
+      } else {
+        unsharded.add(adjustment);
       }
+    }
+    Map<String, AdjustmentOutcome> unshardedOutcomes = repository.adjustQuantities(unsharded);
+    outcomes.putAll(unshardedOutcomes);
+
+    // Sharded phones reach the store summaries through their rollups
+    Map<String, Integer> applied = new LinkedHashMap<>();
+    unsharded.stream()
+        .filter(adjustment -> adjustment.getDelta() != 0)
+        .filter(adjustment -> unshardedOutcomes.get(adjustment.getPhoneId()) == AdjustmentOutcome.APPLIED)
+        .forEach(adjustment -> applied.put(adjustment.getPhoneId(), adjustment.getDelta()));
+    storeInventoryView.quantitiesAdjusted(applied);
+    return outcomes;
+  }
 
-      item.setQuantity(item.getQuantity() - amount);
-      repository.save(item);
-    });
+  private OrderLineResult.Status toStatus(AdjustmentOutcome outcome) {
+    switch (outcome) {
+      case APPLIED:
+        return OrderLineResult.Status.FULFILLED;
+      case INSUFFICIENT_QUANTITY:
+        return OrderLineResult.Status.INSUFFICIENT_STOCK;
+      default:
+        return OrderLineResult.Status.NOT_FOUND;
+    }
+  }
+
+  private IllegalArgumentException insufficientQuantity(int amount, Integer available) {
+    return new IllegalArgumentException("Cannot decrease quantity by " + amount +
+        ". Current quantity is only " + available);
   }
 
   public List<PhoneInventoryItem> getAll() {
     return repository.findAll();
   }
+
+  public PhoneInventoryPage getPage(String after, Integer size) {
+    int pageSize = size == null ? defaultPageSize : Math.min(Math.max(size, 1), maxPageSize);
+    String afterId = after == null || after.trim().isEmpty() ? null : UUID.fromString(after).toString();
+
+    // Fetch one extra item to know whether another page follows
+    List<PhoneInventoryItem> items = repository.findPageAfter(afterId, pageSize + 1);
+    if (items.size() <= pageSize) {
+      return new PhoneInventoryPage(items, null);
+    }
+    List<PhoneInventoryItem> page = new ArrayList<>(items.subList(0, pageSize));
+    return new PhoneInventoryPage(page, page.get(pageSize - 1).getId().toString());
+  }
+
+  public Stream<PhoneInventoryItem> streamAll() {
+    return repository.streamAll(streamBatchSize);
+  }
+
   public List<PhoneInventoryItem> getPhonesByStoreId(String storeId) {
-    return repository.findByStoreId(storeId);
+    return storeInventoryView.getPhones(storeId);
+  }
+
+  public StoreInventory getStoreInventory(String storeId) {
+    return storeInventoryView.getSummary(storeId).orElse(null);
+  }
+
+  public StoreInventoryRebuildResult rebuildStoreInventory(String storeId) {
+    return storeInventoryView.rebuild(storeId);
   }
 
   public void deletePhonesByStoreId(String storeId) {
@@ -176,6 +498,9 @@ public class PhoneInventoryService {
 
       // Delete all phones for the store
       repository.deleteByStoreId(storeId);
+      phoneCache.invalidateStore(storeId);
+      shardedStock.removeStore(storeId);
+      storeInventoryView.storeRemoved(storeId);
 
     } catch (IllegalArgumentException e) {
       // Re-throw our custom exception
@@ -0,0 +1,177 @@
+package com.phonestore.service;
+
+import com.phonestore.model.PhoneInventoryItem;
+import com.phonestore.repository.AdjustmentOutcome;
+import com.phonestore.repository.PhoneRepository;
+import com.phonestore.repository.StockShard;
+import com.phonestore.repository.StockShardRepository;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Sharded stock for the hot phones listed in {@code inventory.sharded-stock.phone-ids}, e.g. on a
+ * launch day. Their stock lives in {@link StockShard} documents and is read by summing them; the
+ * phone document's quantity is a rollup refreshed every {@code rollup-interval}, which is also
+ * when stock is moved from the fullest shard to the emptiest one.
+ *
+ * <p>Phones are split when the application starts, before the listeners do, and phones dropped
+ * from the list or split into another number of shards are merged back first. Every instance must
+ * therefore run with the same list and shard count. Stock is
+ * moved between shards in a transaction, so MongoDB must run as a replica set.
+ */
+@Component
+@Slf4j
+public class ShardedStock implements SmartInitializingSingleton {
+
+  private final StockShardRepository shardRepository;
+  private final PhoneRepository phoneRepository;
+  private final StoreInventoryView storeInventoryView;
+  private final Set<String> configuredIds;
+  private final int shards;
+  private final Set<String> shardedIds = ConcurrentHashMap.newKeySet();
+
+  public ShardedStock(StockShardRepository shardRepository, PhoneRepository phoneRepository,
+      StoreInventoryView storeInventoryView,
+      @Value("${inventory.sharded-stock.phone-ids:}") List<String> phoneIds,
+      @Value("${inventory.sharded-stock.shards:8}") int shards) {
+    if (shards < 1) {
+      throw new IllegalArgumentException("Sharded stock needs at least one shard");
+    }
+    this.shardRepository = shardRepository;
+    this.phoneRepository = phoneRepository;
+    this.storeInventoryView = storeInventoryView;
+    this.configuredIds = phoneIds.stream().map(String::trim).filter(id -> !id.isEmpty()).collect(Collectors.toSet());
+    this.shards = shards;
+  }
+
+  @Override
+  public void afterSingletonsInstantiated() {
+    for (String phoneId : shardRepository.findShardedPhoneIds()) {
+      if (!configuredIds.contains(phoneId)) {
+        merge(phoneId);
+      }
+    }
+
+    for (String phoneId : configuredIds) {
+      List<StockShard> existing = shardRepository.findByPhoneId(phoneId);
+      // Shards written before the count was kept can only be told apart by how many there are
+      if (existing.stream().anyMatch(shard -> (shard.getShards() != 0 ? shard.getShards() : existing.size()) != shards)) {
+        // Split with another shard count before
+        merge(phoneId);
+      } else if (existing.size() == shards) {
+        shardedIds.add(phoneId);
+        continue;
+      }
+      // Otherwise the split is new or was interrupted, e.g. by another instance starting: the
+      // upserts create only the missing shards, from the quantity the phone still holds
+      Optional<PhoneInventoryItem> phone = phoneRepository.findById(phoneId);
+      if (phone.isEmpty()) {
+        log.warn("Phone {} is listed for sharded stock but does not exist", phoneId);
+        continue;
+      }
+      shardRepository.split(phoneId, phone.get().getStoreId(), phone.get().getQuantity(), shards);
+      shardedIds.add(phoneId);
+      log.info("Split the stock of phone {} ({} units) over {} shards", phoneId, phone.get().getQuantity(), shards);
+    }
+  }
+
+  public boolean isSharded(String phoneId) {
+    return shardedIds.contains(phoneId);
+  }
+
+  /**
+   * Same contract as {@code PhoneRepository.adjustQuantities} for a single sharded phone.
+   */
+  public AdjustmentOutcome adjust(String phoneId, String storeId, int delta) {
+    return delta >= 0
+        ? shardRepository.increment(phoneId, storeId, delta, shards)
+        : shardRepository.decrement(phoneId, storeId, -delta, shards);
+  }
+
+  public int quantity(String phoneId) {
+    return shardRepository.findByPhoneId(phoneId).stream().mapToInt(StockShard::getQuantity).sum();
+  }
+
+  /** Replaces the rolled-up quantity of a freshly loaded sharded phone with the live one. */
+  public PhoneInventoryItem withLiveQuantity(PhoneInventoryItem item) {
+    int quantity = quantity(item.getId().toString());
+    item.setQuantity(quantity);
+    item.setIsAvailable(quantity > 0);
+    return item;
+  }
+
+  /** Drops the shards of deleted phones. */
+  public void remove(Collection<String> phoneIds) {
+    List<String> sharded = phoneIds.stream().filter(this::isSharded).collect(Collectors.toList());
+    if (!sharded.isEmpty()) {
+      shardRepository.deleteByPhoneIdIn(sharded);
+      shardedIds.removeAll(sharded);
+    }
+  }
+
+  public void removeStore(String storeId) {
+    if (!shardedIds.isEmpty()) {
+      remove(shardRepository.findByStoreId(storeId).stream().map(StockShard::getPhoneId).collect(Collectors.toSet()));
+    }
+  }
+
+  @Scheduled(fixedDelayString = "${inventory.sharded-stock.rollup-interval:1s}")
+  public void rollUp() {
+    for (String phoneId : shardedIds) {
+      try {
+        List<StockShard> current = shardRepository.findByPhoneId(phoneId);
+        int total = current.stream().mapToInt(StockShard::getQuantity).sum();
+        rolledUp(phoneId, total);
+        rebalance(phoneId, current, total);
+      } catch (RuntimeException e) {
+        log.warn("Could not roll up the sharded stock of phone {}", phoneId, e);
+      }
+    }
+  }
+
+  // The summaries take the change from the quantity this overwrite replaced, so rollups of several
+  // instances add up whatever order their updates land in
+  private void rolledUp(String phoneId, int total) {
+    phoneRepository.overwriteQuantity(phoneId, total)
+        .map(previous -> total - previous.getQuantity())
+        .filter(delta -> delta != 0)
+        .ifPresent(delta -> storeInventoryView.quantitiesAdjusted(Map.of(phoneId, delta)));
+  }
+
+  // One move per rollup, once the emptiest shard holds less than half of its fair share
+  private void rebalance(String phoneId, List<StockShard> current, int total) {
+    if (current.size() < 2) {
+      return;
+    }
+    int fairShare = total / current.size();
+    StockShard fullest = current.stream().max(Comparator.comparingInt(StockShard::getQuantity)).get();
+    StockShard emptiest = current.stream().min(Comparator.comparingInt(StockShard::getQuantity)).get();
+    if (emptiest.getQuantity() * 2 >= fairShare) {
+      return;
+    }
+    int amount = Math.min(fullest.getQuantity() - fairShare, fairShare - emptiest.getQuantity());
+    if (shardRepository.transfer(phoneId, fullest.getShard(), emptiest.getShard(), amount)) {
+      log.debug("Moved {} units of phone {} from shard {} to shard {}", amount, phoneId,
+          fullest.getShard(), emptiest.getShard());
+    }
+  }
+
+  private void merge(String phoneId) {
+    int total = quantity(phoneId);
+    rolledUp(phoneId, total);
+    shardRepository.deleteByPhoneIdIn(List.of(phoneId));
+    shardedIds.remove(phoneId);
+    log.info("Merged the sharded stock of phone {} back into its document ({} units)", phoneId, total);
+  }
+}
@@ -0,0 +1,13 @@
+package com.phonestore.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StoreInventoryRebuildResult {
+  private int stores;
+  private long phones;
+}
@@ -0,0 +1,189 @@
+package com.phonestore.service;
+
+import com.phonestore.model.PhoneInventoryItem;
+import com.phonestore.repository.PhoneRepository;
+import com.phonestore.repository.StoreInventory;
+import com.phonestore.repository.StoreInventoryRepository;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+/**
+ * Read model of the phones per store, enabled with {@code inventory.store-summary.enabled}. A
+ * store's {@link StoreInventory} summary is built from the phone collection on its first read and
+ * then kept up to date by the write paths of {@link PhoneInventoryService}, so later reads of the
+ * store are a single document fetch. Stores with {@code max-phones} phones or more are read from
+ * the phone collection instead, so that a summary stays well below the document size limit.
+ *
+ * <p>The phone collection stays the source of truth. A summary update that fails drops the
+ * summaries concerned instead of failing the write. The updates apply deltas, so they may land in
+ * any order, but a write racing a build of its store can be missed or counted twice: a summary is
+ * therefore built again on the first read after {@code max-age}, and {@link #rebuild} regenerates
+ * the summaries at once. Sharded phones follow their rollups, as their phone documents do.
+ */
+@Component
+@Slf4j
+public class StoreInventoryView {
+
+  private final StoreInventoryRepository summaryRepository;
+  private final PhoneRepository phoneRepository;
+  private final MongoTemplate mongoTemplate;
+  private final boolean enabled;
+  private final int maxPhones;
+  private final Duration maxAge;
+
+  public StoreInventoryView(StoreInventoryRepository summaryRepository, PhoneRepository phoneRepository,
+      MongoTemplate mongoTemplate, @Value("${inventory.store-summary.enabled:true}") boolean enabled,
+      @Value("${inventory.store-summary.max-phones:5000}") int maxPhones,
+      @Value("${inventory.store-summary.max-age:10m}") Duration maxAge) {
+    this.summaryRepository = summaryRepository;
+    this.phoneRepository = phoneRepository;
+    this.mongoTemplate = mongoTemplate;
+    this.enabled = enabled;
+    this.maxPhones = maxPhones;
+    this.maxAge = maxAge;
+  }
+
+  public List<PhoneInventoryItem> getPhones(String storeId) {
+    if (storeId == null) {
+      return new ArrayList<>();
+    }
+    if (!enabled) {
+      return phoneRepository.findByStoreId(storeId);
+    }
+    return getSummary(storeId).map(summary -> new ArrayList<>(summary.getItems().values()))
+        .orElseGet(ArrayList::new);
+  }
+
+  /**
+   * The store's summary, built first if the store has none yet; empty when the store has no phones
+   * or no store is given.
+   */
+  public Optional<StoreInventory> getSummary(String storeId) {
+    if (storeId == null) {
+      return Optional.empty();
+    }
+    if (!enabled) {
+      List<PhoneInventoryItem> phones = phoneRepository.findByStoreId(storeId);
+      return phones.isEmpty() ? Optional.empty() : Optional.of(StoreInventory.of(storeId, phones));
+    }
+
+    Optional<StoreInventory> summary = summaryRepository.findById(storeId);
+    if (summary.isPresent() && !isExpired(summary.get())) {
+      return summary;
+    }
+    List<PhoneInventoryItem> phones = phoneRepository.findByStoreId(storeId);
+    StoreInventory built = phones.isEmpty() ? null : StoreInventory.of(storeId, phones);
+    try {
+      if (built == null || phones.size() >= maxPhones) {
+        // Nothing worth keeping: an expired summary is dropped, a missing one stays missing
+        summary.ifPresent(summaryRepository::delete);
+      } else if (summary.isPresent()) {
+        summaryRepository.save(built);
+        log.debug("Rebuilt the expired inventory summary of store {} ({} phones)", storeId, phones.size());
+      } else if (summaryRepository.create(built)) {
+        log.debug("Built the inventory summary of store {} ({} phones)", storeId, phones.size());
+      }
+    } catch (RuntimeException e) {
+      // The phones were read all the same
+      log.warn("Could not store the inventory summary of store {}", storeId, e);
+    }
+    return Optional.ofNullable(built);
+  }
+
+  public void phonesAdded(Collection<PhoneInventoryItem> phones) {
+    Map<String, List<PhoneInventoryItem>> byStore = phones.stream()
+        .filter(phone -> phone.getStoreId() != null)
+        .collect(Collectors.groupingBy(PhoneInventoryItem::getStoreId, LinkedHashMap::new, Collectors.toList()));
+    List<String> phoneIds = phones.stream().map(phone -> phone.getId().toString()).collect(Collectors.toList());
+    // New phones are in no summary yet, so a failure drops their stores' summaries instead
+    update(phoneIds, repository -> byStore.forEach((storeId, storePhones) ->
+            repository.addItems(storeId, storePhones, maxPhones)),
+        () -> summaryRepository.deleteAllById(byStore.keySet()));
+  }
+
+  public void quantitiesAdjusted(Map<String, Integer> deltasByPhoneId) {
+    update(deltasByPhoneId.keySet(), repository -> repository.adjustQuantities(deltasByPhoneId),
+        () -> summaryRepository.deleteContaining(deltasByPhoneId.keySet()));
+  }
+
+  public void phonesRemoved(Collection<String> phoneIds) {
+    update(phoneIds, repository -> repository.removeItems(phoneIds),
+        () -> summaryRepository.deleteContaining(phoneIds));
+  }
+
+  public void storeRemoved(String storeId) {
+    if (enabled) {
+      summaryRepository.deleteById(storeId);
+    }
+  }
+
+  /**
+   * Regenerates the summary of {@code storeId}, or of every store when it is null, from the phone
+   * collection. Summaries of stores that no longer have phones, or have too many, are dropped.
+   */
+  public StoreInventoryRebuildResult rebuild(String storeId) {
+    if (!enabled) {
+      throw new IllegalStateException("The store inventory summaries are disabled");
+    }
+
+    List<String> storeIds = storeId != null ? List.of(storeId)
+        : mongoTemplate.findDistinct("storeId", PhoneInventoryItem.class, String.class);
+    long phones = 0;
+    Set<String> rebuilt = new HashSet<>();
+    for (String id : storeIds) {
+      List<PhoneInventoryItem> storePhones = phoneRepository.findByStoreId(id);
+      if (storePhones.isEmpty() || storePhones.size() >= maxPhones) {
+        summaryRepository.deleteById(id);
+        continue;
+      }
+      summaryRepository.save(StoreInventory.of(id, storePhones));
+      rebuilt.add(id);
+      phones += storePhones.size();
+    }
+    if (storeId == null) {
+      List<String> stale = mongoTemplate.findDistinct(new Query(), "_id", StoreInventory.class, String.class).stream()
+          .filter(id -> !rebuilt.contains(id))
+          .collect(Collectors.toList());
+      summaryRepository.deleteAllById(stale);
+    }
+
+    log.info("Rebuilt the inventory summaries of {} stores ({} phones)", rebuilt.size(), phones);
+    return new StoreInventoryRebuildResult(rebuilt.size(), phones);
+  }
+
+  private boolean isExpired(StoreInventory summary) {
+    return summary.getBuiltAt() == null || summary.getBuiltAt().plus(maxAge).isBefore(Instant.now());
+  }
+
+  // The phone collection is already written, so a failed update only costs the summaries a rebuild
+  private void update(Collection<String> phoneIds, Consumer<StoreInventoryRepository> update, Runnable drop) {
+    if (!enabled || phoneIds.isEmpty()) {
+      return;
+    }
+    try {
+      update.accept(summaryRepository);
+    } catch (RuntimeException e) {
+      log.warn("Could not update the store summaries of phones {}, dropping them", phoneIds, e);
+      try {
+        drop.run();
+      } catch (RuntimeException deleteFailure) {
+        log.error("Could not drop the store summaries of phones {}, they need a rebuild", phoneIds, deleteFailure);
+      }
+    }
+  }
+}
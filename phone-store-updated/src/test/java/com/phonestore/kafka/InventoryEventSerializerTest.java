@@ -0,0 +1,44 @@
+package com.phonestore.kafka;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.Test;
+
+class InventoryEventSerializerTest {
+
+  private final ObjectMapper mapper = new ObjectMapper();
+  private final InventoryEventDeserializer deserializer = new InventoryEventDeserializer();
+  private final InventoryEventSerializer serializer = new InventoryEventSerializer();
+
+  @Test
+  void headerRoutedEventWithMalformedPayload_ShouldBeForwardedAsReceived() {
+    byte[] value = "{\"action\":\"INCREASE_QUANTITY\",\"payload\":{\"phoneId\":".getBytes(StandardCharsets.UTF_8);
+    RecordHeaders headers = new RecordHeaders();
+    headers.add(InventoryHeaders.ACTION, "INCREASE_QUANTITY".getBytes(StandardCharsets.UTF_8));
+
+    PhoneInventoryEvent event = deserializer.deserialize("phone-inventory-update", headers, value);
+    assertThatThrownBy(() -> event.getPayload().bind(mapper, mapper.constructType(JsonNode.class)))
+        .isInstanceOf(IOException.class);
+
+    // Forwarding to the retry topic or DLT must not read the payload again
+    assertThat(serializer.serialize("phone-inventory-update-dlt", headers, event)).isEqualTo(value);
+    assertThat(serializer.serialize("phone-inventory-update-dlt", headers, event)).isEqualTo(value);
+  }
+
+  @Test
+  void parsedEvent_ShouldBeWrittenAsJson() throws IOException {
+    byte[] value = "{\"action\":\"INCREASE_QUANTITY\",\"payload\":{\"quantity\":3}}".getBytes(StandardCharsets.UTF_8);
+
+    PhoneInventoryEvent event = deserializer.deserialize("phone-inventory-update", new RecordHeaders(), value);
+    JsonNode written = mapper.readTree(serializer.serialize("phone-inventory-update-dlt", new RecordHeaders(), event));
+
+    assertThat(written.get("action").asText()).isEqualTo("INCREASE_QUANTITY");
+    assertThat(written.get("payload").get("quantity").asInt()).isEqualTo(3);
+  }
+}
@@ -0,0 +1,157 @@
+package com.phonestore.kafka;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.phonestore.kafka.handler.DecreaseQuantityHandler;
+import com.phonestore.kafka.handler.IncreaseQuantityHandler;
+import com.phonestore.kafka.handler.InventoryEventHandlerRegistry;
+import com.phonestore.model.PhoneInventoryItem;
+import com.phonestore.repository.AdjustmentOutcome;
+import com.phonestore.repository.PhoneRepository;
+import com.phonestore.repository.QuantityAdjustment;
+import com.phonestore.service.PhoneCache;
+import com.phonestore.service.PhoneInventoryService;
+import com.phonestore.service.ShardedStock;
+import com.phonestore.service.StoreInventoryView;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class InventoryUpdateBatchConsumerTest {
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+  private final PhoneRepository repository = mock(PhoneRepository.class);
+  private final InventoryOutcomePublisher outcomePublisher = mock(InventoryOutcomePublisher.class);
+  private final ProcessedRequests processedRequests = new ProcessedRequests(1000, Duration.ofMinutes(1));
+  private final Map<String, Integer> stock = new HashMap<>();
+
+  private InventoryUpdateBatchConsumer consumer;
+
+  @BeforeEach
+  void setUp() {
+    PhoneInventoryService service = new PhoneInventoryService();
+    ReflectionTestUtils.setField(service, "repository", repository);
+    ReflectionTestUtils.setField(service, "phoneCache", new PhoneCache(1000, Duration.ofMinutes(1)));
+    ReflectionTestUtils.setField(service, "shardedStock", mock(ShardedStock.class));
+    ReflectionTestUtils.setField(service, "storeInventoryView", mock(StoreInventoryView.class));
+
+    // The repository holds the stock in a map and guards adjustments like Mongo does
+    when(repository.adjustQuantities(anyList())).thenAnswer(invocation -> {
+      Map<String, AdjustmentOutcome> outcomes = new LinkedHashMap<>();
+      List<QuantityAdjustment> adjustments = invocation.getArgument(0);
+      for (QuantityAdjustment adjustment : adjustments) {
+        int quantity = stock.getOrDefault(adjustment.getPhoneId(), 0);
+        if (quantity + adjustment.getLowest() < 0) {
+          outcomes.put(adjustment.getPhoneId(), AdjustmentOutcome.INSUFFICIENT_QUANTITY);
+        } else {
+          stock.put(adjustment.getPhoneId(), quantity + adjustment.getDelta());
+          outcomes.put(adjustment.getPhoneId(), AdjustmentOutcome.APPLIED);
+        }
+      }
+      return outcomes;
+    });
+    when(repository.findById(anyString())).thenAnswer(invocation -> {
+      PhoneInventoryItem phone = new PhoneInventoryItem();
+      phone.setQuantity(stock.getOrDefault(invocation.<String>getArgument(0), 0));
+      return Optional.of(phone);
+    });
+
+    InventoryMetrics metrics = new InventoryMetrics(new SimpleMeterRegistry());
+    InventoryEventHandlerRegistry registry = new InventoryEventHandlerRegistry(List.of(
+        new IncreaseQuantityHandler(service, outcomePublisher),
+        new DecreaseQuantityHandler(service, outcomePublisher)), objectMapper, metrics);
+    consumer = new InventoryUpdateBatchConsumer(service, mock(InventoryKafkaConsumer.class), registry,
+        outcomePublisher, metrics, processedRequests);
+  }
+
+  @Test
+  void eventsThatCancelOut_ShouldStillBeCompleted() throws IOException {
+    String phoneId = UUID.randomUUID().toString();
+    PhoneInventoryEvent increase = quantityEvent("INCREASE_QUANTITY", phoneId, 2);
+    PhoneInventoryEvent decrease = quantityEvent("DECREASE_QUANTITY", phoneId, 2);
+
+    consumer.handleUpdateBatch(List.of(increase, decrease));
+
+    verify(outcomePublisher).completed(eq(increase), anyString(), anyMap());
+    verify(outcomePublisher).completed(eq(decrease), anyString(), anyMap());
+    assertThat(processedRequests.isProcessed(increase.getRequestId())).isTrue();
+    assertThat(processedRequests.isProcessed(decrease.getRequestId())).isTrue();
+    // Nothing to write, and nothing replayed one by one either
+    verify(repository, never()).increaseQuantity(anyString(), anyInt());
+    verify(repository, never()).decreaseQuantityIfAvailable(anyString(), anyInt());
+  }
+
+  @Test
+  void netZeroPhone_ShouldRejectTheDecreaseItsStockCannotCover() throws IOException {
+    String balancedPhoneId = UUID.randomUUID().toString();
+    String changedPhoneId = UUID.randomUUID().toString();
+    PhoneInventoryEvent decrease = quantityEvent("DECREASE_QUANTITY", balancedPhoneId, 1);
+    PhoneInventoryEvent changed = quantityEvent("INCREASE_QUANTITY", changedPhoneId, 3);
+    PhoneInventoryEvent increase = quantityEvent("INCREASE_QUANTITY", balancedPhoneId, 1);
+
+    consumer.handleUpdateBatch(List.of(decrease, changed, increase));
+
+    // Out of stock, the decrease fails on its own even though the increase balances it
+    verify(outcomePublisher).failed(eq(decrease), anyString());
+    verify(outcomePublisher, never()).completed(eq(decrease), anyString(), anyMap());
+    verify(outcomePublisher).completed(eq(changed), anyString(), anyMap());
+    verify(outcomePublisher).completed(eq(increase), anyString(), anyMap());
+    verify(repository).adjustQuantities(List.of(
+        new QuantityAdjustment(balancedPhoneId, null, 0, -1),
+        new QuantityAdjustment(changedPhoneId, null, 3)));
+    verify(repository).increaseQuantity(balancedPhoneId, 1);
+  }
+
+  @Test
+  void decreaseCoveredOnlyByALaterIncrease_ShouldBeRejected() throws IOException {
+    String phoneId = UUID.randomUUID().toString();
+    PhoneInventoryEvent decrease = quantityEvent("DECREASE_QUANTITY", phoneId, 3);
+    PhoneInventoryEvent increase = quantityEvent("INCREASE_QUANTITY", phoneId, 10);
+
+    consumer.handleUpdateBatch(List.of(decrease, increase));
+
+    verify(outcomePublisher).failed(eq(decrease), anyString());
+    verify(outcomePublisher).completed(eq(increase), anyString(), anyMap());
+    verify(repository).increaseQuantity(phoneId, 10);
+  }
+
+  @Test
+  void decreaseCoveredByStock_ShouldBeAppliedInTheBulk() throws IOException {
+    String phoneId = UUID.randomUUID().toString();
+    stock.put(phoneId, 3);
+    PhoneInventoryEvent decrease = quantityEvent("DECREASE_QUANTITY", phoneId, 3);
+    PhoneInventoryEvent increase = quantityEvent("INCREASE_QUANTITY", phoneId, 10);
+
+    consumer.handleUpdateBatch(List.of(decrease, increase));
+
+    verify(outcomePublisher).completed(eq(decrease), anyString(), anyMap());
+    verify(outcomePublisher).completed(eq(increase), anyString(), anyMap());
+    verify(repository, never()).increaseQuantity(anyString(), anyInt());
+    assertThat(stock.get(phoneId)).isEqualTo(10);
+  }
+
+  private PhoneInventoryEvent quantityEvent(String action, String phoneId, int quantity) throws IOException {
+    EventPayload payload = objectMapper.readValue(
+        "{\"phoneId\":\"" + phoneId + "\",\"quantity\":" + quantity + "}", EventPayload.class);
+    return new PhoneInventoryEvent(action, "store-001", payload, null, UUID.randomUUID().toString());
+  }
+}
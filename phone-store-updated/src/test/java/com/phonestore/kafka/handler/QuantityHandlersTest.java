@@ -0,0 +1,96 @@
+package com.phonestore.kafka.handler;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.phonestore.kafka.InventoryOutcomePublisher;
+import com.phonestore.kafka.PhoneInventoryEvent;
+import com.phonestore.kafka.payload.QuantityPayload;
+import com.phonestore.model.PhoneInventoryItem;
+import com.phonestore.repository.PhoneRepository;
+import com.phonestore.repository.StoreInventoryRepository;
+import com.phonestore.service.PhoneCache;
+import com.phonestore.service.PhoneInventoryService;
+import com.phonestore.service.ShardedStock;
+import com.phonestore.service.StoreInventoryView;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class QuantityHandlersTest {
+
+  private final PhoneRepository repository = mock(PhoneRepository.class);
+  private final StoreInventoryRepository summaryRepository = mock(StoreInventoryRepository.class);
+  private final InventoryOutcomePublisher outcomePublisher = mock(InventoryOutcomePublisher.class);
+  private final String phoneId = UUID.randomUUID().toString();
+
+  private PhoneInventoryService service;
+
+  @BeforeEach
+  void setUp() {
+    service = new PhoneInventoryService();
+    ReflectionTestUtils.setField(service, "repository", repository);
+    ReflectionTestUtils.setField(service, "phoneCache", new PhoneCache(1000, Duration.ofMinutes(1)));
+    ReflectionTestUtils.setField(service, "shardedStock", mock(ShardedStock.class));
+    ReflectionTestUtils.setField(service, "storeInventoryView",
+        new StoreInventoryView(summaryRepository, mock(PhoneRepository.class), null, true, 5000, Duration.ofMinutes(10)));
+
+    // Spring Data rejects a null id, as it would for an event that names no store
+    when(summaryRepository.findById(isNull())).thenThrow(new IllegalArgumentException("The given id must not be null"));
+    PhoneInventoryItem phone = new PhoneInventoryItem();
+    phone.setId(UUID.fromString(phoneId));
+    phone.setQuantity(5);
+    phone.setIsAvailable(true);
+    when(repository.increaseQuantity(phoneId, 2)).thenReturn(Optional.of(phone));
+    when(repository.decreaseQuantityIfAvailable(phoneId, 2)).thenReturn(Optional.of(phone));
+  }
+
+  @Test
+  void increaseWithoutStore_ShouldBeCompleted() {
+    PhoneInventoryEvent event = eventWithoutStore("INCREASE_QUANTITY");
+
+    assertThat(new IncreaseQuantityHandler(service, outcomePublisher).handle(event, payload())).isEmpty();
+
+    verify(outcomePublisher).completed(eq(event), anyString(), anyMap());
+    verify(outcomePublisher, never()).failed(any(), anyString());
+  }
+
+  @Test
+  void decreaseWithoutStore_ShouldBeCompleted() {
+    PhoneInventoryEvent event = eventWithoutStore("DECREASE_QUANTITY");
+
+    assertThat(new DecreaseQuantityHandler(service, outcomePublisher).handle(event, payload())).isEmpty();
+
+    verify(outcomePublisher).completed(eq(event), anyString(), anyMap());
+    verify(outcomePublisher, never()).failed(any(), anyString());
+  }
+
+  @Test
+  void storeInventoryWithoutStore_ShouldBeEmpty() {
+    assertThat(service.getPhonesByStoreId(null)).isEmpty();
+    assertThat(service.getStoreInventory(null)).isNull();
+  }
+
+  private QuantityPayload payload() {
+    QuantityPayload payload = new QuantityPayload();
+    payload.setPhoneId(phoneId);
+    payload.setQuantity(2);
+    return payload;
+  }
+
+  // What chainstore sends for quantity commands: the phone id is the key, there is no store
+  private static PhoneInventoryEvent eventWithoutStore(String action) {
+    return new PhoneInventoryEvent(action, null, null, null, UUID.randomUUID().toString());
+  }
+}
@@ -0,0 +1,188 @@
+package com.phonestore.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+/**
+ * Hammers a single phone document from many threads. Runs against the Mongo given by
+ * {@code -Dinventory.test.mongo-uri} (default {@code mongodb://localhost:27017}) and is skipped
+ * when no server is reachable.
+ */
+class PhoneRepositoryConcurrencyTest {
+
+  private static final String DATABASE = "phone-store-concurrency-test";
+  private static final String COLLECTION = "phoneInventoryItem";
+  private static final int THREADS = 16;
+  private static final int OPERATIONS_PER_THREAD = 200;
+
+  private static MongoClient client;
+  private static MongoTemplate mongoTemplate;
+  private static PhoneRepositoryCustomImpl repository;
+
+  private MongoCollection<Document> collection;
+  private String phoneId;
+
+  @BeforeAll
+  static void connect() {
+    String uri = System.getProperty("inventory.test.mongo-uri", "mongodb://localhost:27017");
+    client = MongoClients.create(MongoClientSettings.builder()
+        .applyConnectionString(new ConnectionString(uri))
+        .applyToClusterSettings(cluster -> cluster.serverSelectionTimeout(2, TimeUnit.SECONDS))
+        .build());
+    try {
+      client.getDatabase("admin").runCommand(new Document("ping", 1));
+    } catch (Exception e) {
+      client.close();
+      assumeTrue(false, "MongoDB is not reachable at " + uri);
+    }
+    mongoTemplate = new MongoTemplate(client, DATABASE);
+    repository = new PhoneRepositoryCustomImpl(mongoTemplate);
+  }
+
+  @AfterAll
+  static void disconnect() {
+    if (client != null) {
+      client.getDatabase(DATABASE).drop();
+      client.close();
+    }
+  }
+
+  @BeforeEach
+  void seedPhone() {
+    collection = mongoTemplate.getCollection(COLLECTION);
+    collection.deleteMany(new Document());
+    phoneId = UUID.randomUUID().toString();
+    collection.insertOne(new Document("_id", phoneId)
+        .append("type", "iPhone 16")
+        .append("model", "APPLE")
+        .append("price", 999.99)
+        .append("quantity", 0)
+        .append("isAvailable", false)
+        .append("storeId", "store-001"));
+  }
+
+  @Test
+  void concurrentIncreases_ShouldNotLoseUpdates() throws Exception {
+    runConcurrently(() -> repository.increaseQuantity(phoneId, 1));
+
+    Document phone = collection.find(Filters.eq("_id", phoneId)).first();
+    assertThat(phone.getInteger("quantity")).isEqualTo(THREADS * OPERATIONS_PER_THREAD);
+    assertThat(phone.getBoolean("isAvailable")).isTrue();
+  }
+
+  @Test
+  void concurrentDecreases_ShouldNeverOversell() throws Exception {
+    int stock = THREADS * OPERATIONS_PER_THREAD / 2;
+    resetQuantity(stock);
+    AtomicInteger fulfilled = new AtomicInteger();
+
+    runConcurrently(() -> {
+      if (repository.decreaseQuantityIfAvailable(phoneId, "store-001", 1).isPresent()) {
+        fulfilled.incrementAndGet();
+      }
+    });
+
+    Document phone = collection.find(Filters.eq("_id", phoneId)).first();
+    assertThat(fulfilled.get()).isEqualTo(stock);
+    assertThat(phone.getInteger("quantity")).isZero();
+    assertThat(phone.getBoolean("isAvailable")).isFalse();
+  }
+
+  @Test
+  void concurrentAdjustments_ShouldReportExactlyWhatWasApplied() throws Exception {
+    int stock = THREADS * OPERATIONS_PER_THREAD / 2;
+    resetQuantity(stock);
+    String otherPhoneId = UUID.randomUUID().toString();
+    collection.insertOne(new Document("_id", otherPhoneId)
+        .append("quantity", 0)
+        .append("isAvailable", false)
+        .append("storeId", "store-001"));
+    AtomicInteger applied = new AtomicInteger();
+    AtomicInteger insufficient = new AtomicInteger();
+
+    // Every call decrements the contended phone and increments the other one
+    runConcurrently(() -> {
+      Map<String, AdjustmentOutcome> outcomes = repository.adjustQuantities(List.of(
+          new QuantityAdjustment(phoneId, "store-001", -1),
+          new QuantityAdjustment(otherPhoneId, null, 1)));
+      assertThat(outcomes.get(otherPhoneId)).isEqualTo(AdjustmentOutcome.APPLIED);
+      if (outcomes.get(phoneId) == AdjustmentOutcome.APPLIED) {
+        applied.incrementAndGet();
+      } else {
+        assertThat(outcomes.get(phoneId)).isEqualTo(AdjustmentOutcome.INSUFFICIENT_QUANTITY);
+        insufficient.incrementAndGet();
+      }
+    });
+
+    // An applied line reported as refused would be replayed by the batch consumer, i.e. applied twice
+    assertThat(applied.get()).isEqualTo(stock);
+    assertThat(insufficient.get()).isEqualTo(THREADS * OPERATIONS_PER_THREAD - stock);
+    assertThat(collection.find(Filters.eq("_id", phoneId)).first().getInteger("quantity")).isZero();
+    assertThat(collection.find(Filters.eq("_id", otherPhoneId)).first().getInteger("quantity"))
+        .isEqualTo(THREADS * OPERATIONS_PER_THREAD);
+    assertThat(collection.countDocuments(Filters.exists("adjustmentIds.0"))).isZero();
+  }
+
+  @Test
+  void adjustQuantities_ShouldTellMissingPhonesFromOtherStores() {
+    resetQuantity(5);
+
+    Map<String, AdjustmentOutcome> outcomes = repository.adjustQuantities(List.of(
+        new QuantityAdjustment(phoneId, "store-002", -1),
+        new QuantityAdjustment(UUID.randomUUID().toString(), null, 1)));
+
+    assertThat(outcomes.values()).containsOnly(AdjustmentOutcome.NOT_FOUND);
+    assertThat(collection.find(Filters.eq("_id", phoneId)).first().getInteger("quantity")).isEqualTo(5);
+  }
+
+  private void runConcurrently(Runnable operation) throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<?>> futures = new ArrayList<>();
+    try {
+      for (int t = 0; t < THREADS; t++) {
+        futures.add(executor.submit(() -> {
+          start.await();
+          for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+            operation.run();
+          }
+          return null;
+        }));
+      }
+      start.countDown();
+      for (Future<?> future : futures) {
+        future.get(2, TimeUnit.MINUTES);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private void resetQuantity(int quantity) {
+    collection.updateOne(Filters.eq("_id", phoneId),
+        new Document("$set", new Document("quantity", quantity).append("isAvailable", quantity > 0)));
+  }
+}
@@ -0,0 +1,187 @@
+package com.phonestore.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.MongoTransactionManager;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+/**
+ * Splits and moves a phone's sharded stock from many threads. Runs against the Mongo given by
+ * {@code -Dinventory.test.mongo-uri} (default {@code mongodb://localhost:27017}) and is skipped
+ * when no server is reachable; the transfer tests also need it to run as a replica set.
+ */
+class StockShardRepositoryTest {
+
+  private static final String DATABASE = "phone-store-shard-test";
+  private static final String STORE_ID = "store-001";
+  private static final int SHARDS = 4;
+  private static final int THREADS = 8;
+
+  private static MongoClient client;
+  private static MongoTemplate mongoTemplate;
+  private static StockShardRepositoryCustomImpl repository;
+  private static boolean replicaSet;
+
+  private String phoneId;
+
+  @BeforeAll
+  static void connect() {
+    String uri = System.getProperty("inventory.test.mongo-uri", "mongodb://localhost:27017");
+    client = MongoClients.create(MongoClientSettings.builder()
+        .applyConnectionString(new ConnectionString(uri))
+        .applyToClusterSettings(cluster -> cluster.serverSelectionTimeout(2, TimeUnit.SECONDS))
+        .build());
+    try {
+      replicaSet = client.getDatabase("admin").runCommand(new Document("hello", 1)).containsKey("setName");
+    } catch (Exception e) {
+      client.close();
+      assumeTrue(false, "MongoDB is not reachable at " + uri);
+    }
+    mongoTemplate = new MongoTemplate(client, DATABASE);
+    repository = new StockShardRepositoryCustomImpl(mongoTemplate,
+        new MongoTransactionManager(mongoTemplate.getMongoDatabaseFactory()));
+  }
+
+  @AfterAll
+  static void disconnect() {
+    if (client != null) {
+      client.getDatabase(DATABASE).drop();
+      client.close();
+    }
+  }
+
+  @BeforeEach
+  void newPhone() {
+    mongoTemplate.remove(new Query(), StockShard.class);
+    phoneId = UUID.randomUUID().toString();
+  }
+
+  @Test
+  void concurrentSplits_ShouldCreateEachShardOnce() throws Exception {
+    runConcurrently(1, () -> repository.split(phoneId, STORE_ID, 10, SHARDS));
+
+    assertThat(shards()).hasSize(SHARDS);
+    assertThat(total()).isEqualTo(10);
+  }
+
+  @Test
+  void split_ShouldLeaveExistingShardsAlone() {
+    repository.split(phoneId, STORE_ID, 10, SHARDS);
+    assertThat(repository.decrement(phoneId, STORE_ID, 3, SHARDS)).isEqualTo(AdjustmentOutcome.APPLIED);
+
+    repository.split(phoneId, STORE_ID, 10, SHARDS);
+
+    assertThat(total()).isEqualTo(7);
+  }
+
+  @Test
+  void interruptedSplit_ShouldBeFinishedWithTheMissingShares() {
+    repository.split(phoneId, STORE_ID, 10, SHARDS);
+    mongoTemplate.remove(new Query(Criteria.where("phoneId").is(phoneId).and("shard").gte(2)), StockShard.class);
+
+    repository.split(phoneId, STORE_ID, 10, SHARDS);
+
+    assertThat(shards()).hasSize(SHARDS).allMatch(shard -> shard.getShards() == SHARDS);
+    assertThat(total()).isEqualTo(10);
+  }
+
+  @Test
+  void transfer_ShouldMoveStockBetweenShards() {
+    assumeTrue(replicaSet, "Moving stock between shards needs a replica set");
+    repository.split(phoneId, STORE_ID, 8, SHARDS);
+
+    assertThat(repository.transfer(phoneId, 0, 1, 2)).isTrue();
+    assertThat(repository.transfer(phoneId, 0, 1, 1)).isFalse();
+
+    assertThat(quantity(0)).isZero();
+    assertThat(quantity(1)).isEqualTo(4);
+    assertThat(total()).isEqualTo(8);
+  }
+
+  @Test
+  void transferToMissingShard_ShouldGiveTheStockBack() {
+    assumeTrue(replicaSet, "Moving stock between shards needs a replica set");
+    repository.split(phoneId, STORE_ID, 8, SHARDS);
+
+    assertThat(repository.transfer(phoneId, 0, SHARDS, 2)).isFalse();
+
+    assertThat(quantity(0)).isEqualTo(2);
+    assertThat(total()).isEqualTo(8);
+  }
+
+  @Test
+  void concurrentDecrementsAndTransfers_ShouldNeitherLoseNorCreateStock() throws Exception {
+    assumeTrue(replicaSet, "Moving stock between shards needs a replica set");
+    int stock = 400;
+    repository.split(phoneId, STORE_ID, stock, SHARDS);
+    AtomicInteger fulfilled = new AtomicInteger();
+
+    // Decrements of 3 units drain the shards unevenly, so later ones have to gather stock
+    runConcurrently(100, () -> {
+      if (repository.decrement(phoneId, STORE_ID, 3, SHARDS) == AdjustmentOutcome.APPLIED) {
+        fulfilled.incrementAndGet();
+      }
+      int from = (int) (Math.random() * SHARDS);
+      repository.transfer(phoneId, from, (from + 1) % SHARDS, 1);
+    });
+
+    assertThat(shards()).hasSize(SHARDS).allMatch(shard -> shard.getQuantity() >= 0);
+    assertThat(total()).isEqualTo(stock - 3 * fulfilled.get());
+  }
+
+  private void runConcurrently(int operationsPerThread, Runnable operation) throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<?>> futures = new ArrayList<>();
+    try {
+      for (int t = 0; t < THREADS; t++) {
+        futures.add(executor.submit(() -> {
+          start.await();
+          for (int i = 0; i < operationsPerThread; i++) {
+            operation.run();
+          }
+          return null;
+        }));
+      }
+      start.countDown();
+      for (Future<?> future : futures) {
+        future.get(2, TimeUnit.MINUTES);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private List<StockShard> shards() {
+    return mongoTemplate.find(new Query(Criteria.where("phoneId").is(phoneId)), StockShard.class);
+  }
+
+  private int total() {
+    return shards().stream().mapToInt(StockShard::getQuantity).sum();
+  }
+
+  private int quantity(int shard) {
+    return mongoTemplate.findById(StockShard.id(phoneId, shard), StockShard.class).getQuantity();
+  }
+}
@@ -0,0 +1,214 @@
+package com.phonestore.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.phonestore.model.PhoneInventoryItem;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.bson.Document;
+import org.bson.UuidRepresentation;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+/**
+ * Keeps a store summary up to date from many threads and compares it with what a rebuild from
+ * the phone collection would produce. Runs against the Mongo given by
+ * {@code -Dinventory.test.mongo-uri} (default {@code mongodb://localhost:27017}) and is skipped
+ * when no server is reachable.
+ */
+class StoreInventoryRepositoryTest {
+
+  private static final String DATABASE = "phone-store-summary-test";
+  private static final String STORE_ID = "store-001";
+  private static final int PHONES = 10;
+  private static final int THREADS = 8;
+  private static final int OPERATIONS_PER_THREAD = 200;
+
+  private static MongoClient client;
+  private static MongoTemplate mongoTemplate;
+  private static PhoneRepositoryCustomImpl phoneRepository;
+  private static StoreInventoryRepositoryCustomImpl summaryRepository;
+
+  private MongoCollection<Document> phones;
+  private MongoCollection<Document> summaries;
+  private List<String> phoneIds;
+
+  @BeforeAll
+  static void connect() {
+    String uri = System.getProperty("inventory.test.mongo-uri", "mongodb://localhost:27017");
+    client = MongoClients.create(MongoClientSettings.builder()
+        .applyConnectionString(new ConnectionString(uri))
+        .applyToClusterSettings(cluster -> cluster.serverSelectionTimeout(2, TimeUnit.SECONDS))
+        .uuidRepresentation(UuidRepresentation.STANDARD)
+        .build());
+    try {
+      client.getDatabase("admin").runCommand(new Document("ping", 1));
+    } catch (Exception e) {
+      client.close();
+      assumeTrue(false, "MongoDB is not reachable at " + uri);
+    }
+    mongoTemplate = new MongoTemplate(client, DATABASE);
+    phoneRepository = new PhoneRepositoryCustomImpl(mongoTemplate);
+    summaryRepository = new StoreInventoryRepositoryCustomImpl(mongoTemplate);
+  }
+
+  @AfterAll
+  static void disconnect() {
+    if (client != null) {
+      client.getDatabase(DATABASE).drop();
+      client.close();
+    }
+  }
+
+  // A store of PHONES phones with 20 units each, and its summary as a build would write it
+  @BeforeEach
+  void seedStore() {
+    phones = mongoTemplate.getCollection("phoneInventoryItem");
+    summaries = mongoTemplate.getCollection("store_inventory");
+    phones.deleteMany(new Document());
+    summaries.deleteMany(new Document());
+
+    phoneIds = new ArrayList<>();
+    for (int i = 0; i < PHONES; i++) {
+      String phoneId = UUID.randomUUID().toString();
+      phoneIds.add(phoneId);
+      phones.insertOne(new Document("_id", phoneId)
+          .append("quantity", 20)
+          .append("isAvailable", true)
+          .append("storeId", STORE_ID));
+    }
+    summaries.insertOne(rebuild().append("builtAt", new Date()));
+  }
+
+  @Test
+  void concurrentDeltas_ShouldLeaveTheSummaryEqualToARebuild() throws Exception {
+    // Each thread applies what its own guarded update applied; threads race, so the summary
+    // updates land in a different order than the phone updates did
+    runConcurrently(() -> {
+      String phoneId = phoneIds.get(ThreadLocalRandom.current().nextInt(PHONES));
+      int delta = ThreadLocalRandom.current().nextInt(-5, 4);
+      Map<String, AdjustmentOutcome> outcomes =
+          phoneRepository.adjustQuantities(List.of(new QuantityAdjustment(phoneId, STORE_ID, delta)));
+      if (outcomes.get(phoneId) == AdjustmentOutcome.APPLIED) {
+        summaryRepository.adjustQuantities(Map.of(phoneId, delta));
+      }
+    });
+
+    assertMatchesRebuild();
+  }
+
+  @Test
+  void removedPhones_ShouldLeaveTheSummaryEqualToARebuild() {
+    summaryRepository.adjustQuantities(Map.of(phoneIds.get(0), -20, phoneIds.get(1), -7));
+    phones.updateOne(Filters.eq("_id", phoneIds.get(0)),
+        new Document("$set", new Document("quantity", 0).append("isAvailable", false)));
+    phones.updateOne(Filters.eq("_id", phoneIds.get(1)), new Document("$set", new Document("quantity", 13)));
+
+    List<String> removed = List.of(phoneIds.get(0), phoneIds.get(2));
+    phones.deleteMany(Filters.in("_id", removed));
+    summaryRepository.removeItems(removed);
+
+    assertMatchesRebuild();
+  }
+
+  @Test
+  void addItems_ShouldDropASummaryThatIsFull() {
+    summaryRepository.addItems(STORE_ID, List.of(phone(5)), PHONES + 2);
+    assertThat(summaries.find(Filters.eq("_id", STORE_ID)).first().getInteger("phoneCount")).isEqualTo(PHONES + 1);
+
+    summaryRepository.addItems(STORE_ID, List.of(phone(5), phone(5)), PHONES + 2);
+
+    assertThat(summaries.countDocuments(Filters.eq("_id", STORE_ID))).isZero();
+  }
+
+  private void assertMatchesRebuild() {
+    Document summary = summaries.find(Filters.eq("_id", STORE_ID)).first();
+    Document expected = rebuild();
+    assertThat(summary.getInteger("phoneCount")).isEqualTo(expected.getInteger("phoneCount"));
+    assertThat(((Number) summary.get("totalQuantity")).longValue())
+        .isEqualTo(((Number) expected.get("totalQuantity")).longValue());
+    assertThat(summary.getInteger("availableCount")).isEqualTo(expected.getInteger("availableCount"));
+    assertThat(summary.getList("phoneIds", String.class))
+        .containsExactlyInAnyOrderElementsOf(expected.getList("phoneIds", String.class));
+    Document items = summary.get("items", Document.class);
+    expected.get("items", Document.class).forEach((phoneId, item) -> {
+      assertThat(items.get(phoneId, Document.class).getInteger("quantity"))
+          .isEqualTo(((Document) item).getInteger("quantity"));
+      assertThat(items.get(phoneId, Document.class).getBoolean("isAvailable"))
+          .isEqualTo(((Document) item).getBoolean("isAvailable"));
+    });
+  }
+
+  // The summary StoreInventory.of would build from the phone collection, as a raw document
+  private Document rebuild() {
+    Document items = new Document();
+    long totalQuantity = 0;
+    int availableCount = 0;
+    for (Document phone : phones.find(Filters.eq("storeId", STORE_ID))) {
+      int quantity = phone.getInteger("quantity");
+      items.append(phone.getString("_id"), new Document("_id", phone.getString("_id"))
+          .append("quantity", quantity)
+          .append("isAvailable", quantity > 0)
+          .append("storeId", STORE_ID));
+      totalQuantity += quantity;
+      availableCount += quantity > 0 ? 1 : 0;
+    }
+    return new Document("_id", STORE_ID)
+        .append("phoneIds", new ArrayList<>(items.keySet()))
+        .append("items", items)
+        .append("phoneCount", items.size())
+        .append("totalQuantity", totalQuantity)
+        .append("availableCount", availableCount);
+  }
+
+  private static PhoneInventoryItem phone(int quantity) {
+    PhoneInventoryItem phone = new PhoneInventoryItem();
+    phone.setId(UUID.randomUUID());
+    phone.setQuantity(quantity);
+    phone.setIsAvailable(quantity > 0);
+    phone.setStoreId(STORE_ID);
+    return phone;
+  }
+
+  private void runConcurrently(Runnable operation) throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<?>> futures = new ArrayList<>();
+    try {
+      for (int t = 0; t < THREADS; t++) {
+        futures.add(executor.submit(() -> {
+          start.await();
+          for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+            operation.run();
+          }
+          return null;
+        }));
+      }
+      start.countDown();
+      for (Future<?> future : futures) {
+        future.get(2, TimeUnit.MINUTES);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+}
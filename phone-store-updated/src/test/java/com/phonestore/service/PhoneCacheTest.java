@@ -0,0 +1,64 @@
+package com.phonestore.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.phonestore.model.PhoneInventoryItem;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import org.junit.jupiter.api.Test;
+
+class PhoneCacheTest {
+
+  private final PhoneCache cache = new PhoneCache(100, Duration.ofMinutes(1));
+  private final AtomicInteger loads = new AtomicInteger();
+
+  @Test
+  void getAll_ShouldLoadOnlyTheMissingPhones() {
+    PhoneInventoryItem cached = phone(5);
+    cache.get(cached.getId().toString(), id -> cached);
+    PhoneInventoryItem missing = phone(7);
+
+    List<String> ids = List.of(cached.getId().toString(), missing.getId().toString());
+    assertThat(cache.getAll(ids, load(missing)).values()).containsExactlyInAnyOrder(cached, missing);
+    assertThat(cache.getAll(ids, load(missing)).values()).containsExactlyInAnyOrder(cached, missing);
+
+    assertThat(loads.get()).isEqualTo(1);
+  }
+
+  @Test
+  void loadThatRacesAWrite_ShouldNotBeKept() {
+    PhoneInventoryItem before = phone(5);
+    String id = before.getId().toString();
+
+    // The phone is written, and its entry dropped, after the load has read it
+    cache.getAll(List.of(id), ids -> {
+      loads.incrementAndGet();
+      cache.invalidate(id);
+      return List.of(before);
+    });
+
+    PhoneInventoryItem after = phone(4);
+    after.setId(before.getId());
+    assertThat(cache.get(id, key -> after)).isSameAs(after);
+  }
+
+  private Function<Set<String>, List<PhoneInventoryItem>> load(PhoneInventoryItem phone) {
+    return ids -> {
+      loads.incrementAndGet();
+      return new ArrayList<>(List.of(phone));
+    };
+  }
+
+  private static PhoneInventoryItem phone(int quantity) {
+    PhoneInventoryItem phone = new PhoneInventoryItem();
+    phone.setId(UUID.randomUUID());
+    phone.setQuantity(quantity);
+    phone.setIsAvailable(quantity > 0);
+    return phone;
+  }
+}
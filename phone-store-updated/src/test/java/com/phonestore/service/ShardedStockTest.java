@@ -0,0 +1,95 @@
+package com.phonestore.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.phonestore.model.PhoneInventoryItem;
+import com.phonestore.repository.PhoneRepository;
+import com.phonestore.repository.StockShard;
+import com.phonestore.repository.StockShardRepository;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ShardedStockTest {
+
+  private static final String STORE_ID = "store-001";
+  private static final int SHARDS = 4;
+
+  private final StockShardRepository shardRepository = mock(StockShardRepository.class);
+  private final PhoneRepository phoneRepository = mock(PhoneRepository.class);
+  private final String phoneId = UUID.randomUUID().toString();
+
+  @BeforeEach
+  void setUp() {
+    PhoneInventoryItem phone = new PhoneInventoryItem();
+    phone.setId(UUID.fromString(phoneId));
+    phone.setQuantity(10);
+    phone.setStoreId(STORE_ID);
+    when(phoneRepository.findById(phoneId)).thenReturn(Optional.of(phone));
+    when(shardRepository.findShardedPhoneIds()).thenReturn(List.of(phoneId));
+  }
+
+  @Test
+  void interruptedSplit_ShouldBeFinishedWithoutMerging() {
+    // Another instance created two of the four shards so far; one of them already sold a unit
+    when(shardRepository.findByPhoneId(phoneId)).thenReturn(List.of(shard(0, SHARDS, 2), shard(1, SHARDS, 3)));
+
+    ShardedStock shardedStock = shardedStock(SHARDS);
+    shardedStock.afterSingletonsInstantiated();
+
+    verify(shardRepository, never()).deleteByPhoneIdIn(anyCollection());
+    verify(phoneRepository, never()).overwriteQuantity(phoneId, 5);
+    verify(shardRepository).split(phoneId, STORE_ID, 10, SHARDS);
+    assertThat(shardedStock.isSharded(phoneId)).isTrue();
+  }
+
+  @Test
+  void shardsOfAnotherCount_ShouldBeMergedBeforeTheSplit() {
+    when(shardRepository.findByPhoneId(phoneId)).thenReturn(List.of(shard(0, 2, 4), shard(1, 2, 6)));
+
+    ShardedStock shardedStock = shardedStock(SHARDS);
+    shardedStock.afterSingletonsInstantiated();
+
+    verify(phoneRepository).overwriteQuantity(phoneId, 10);
+    verify(shardRepository).deleteByPhoneIdIn(List.of(phoneId));
+    verify(shardRepository).split(phoneId, STORE_ID, 10, SHARDS);
+  }
+
+  @Test
+  void completeSplit_ShouldBeUsedAsItIs() {
+    List<StockShard> shards = new ArrayList<>();
+    for (int shard = 0; shard < SHARDS; shard++) {
+      shards.add(shard(shard, SHARDS, 1));
+    }
+    when(shardRepository.findByPhoneId(phoneId)).thenReturn(shards);
+
+    ShardedStock shardedStock = shardedStock(SHARDS);
+    shardedStock.afterSingletonsInstantiated();
+
+    verify(shardRepository, never()).split(phoneId, STORE_ID, 10, SHARDS);
+    assertThat(shardedStock.isSharded(phoneId)).isTrue();
+  }
+
+  private ShardedStock shardedStock(int shards) {
+    return new ShardedStock(shardRepository, phoneRepository, mock(StoreInventoryView.class), List.of(phoneId), shards);
+  }
+
+  private StockShard shard(int shard, int shards, int quantity) {
+    StockShard stockShard = new StockShard();
+    stockShard.setId(StockShard.id(phoneId, shard));
+    stockShard.setPhoneId(phoneId);
+    stockShard.setStoreId(STORE_ID);
+    stockShard.setShard(shard);
+    stockShard.setShards(shards);
+    stockShard.setQuantity(quantity);
+    return stockShard;
+  }
+}
@@ -0,0 +1,88 @@
+package com.phonestore.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.phonestore.model.PhoneInventoryItem;
+import com.phonestore.repository.PhoneRepository;
+import com.phonestore.repository.StoreInventory;
+import com.phonestore.repository.StoreInventoryRepository;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+class StoreInventoryViewTest {
+
+  private static final String STORE_ID = "store-001";
+  private static final int MAX_PHONES = 3;
+
+  private final StoreInventoryRepository summaryRepository = mock(StoreInventoryRepository.class);
+  private final PhoneRepository phoneRepository = mock(PhoneRepository.class);
+  private final StoreInventoryView view =
+      new StoreInventoryView(summaryRepository, phoneRepository, null, true, MAX_PHONES, Duration.ofMinutes(10));
+
+  @Test
+  void freshSummary_ShouldBeServedWithoutReadingThePhones() {
+    StoreInventory summary = StoreInventory.of(STORE_ID, phones(2));
+    when(summaryRepository.findById(STORE_ID)).thenReturn(Optional.of(summary));
+
+    assertThat(view.getSummary(STORE_ID)).contains(summary);
+    verify(phoneRepository, never()).findByStoreId(STORE_ID);
+  }
+
+  @Test
+  void expiredSummary_ShouldBeRebuiltFromThePhones() {
+    StoreInventory expired = StoreInventory.of(STORE_ID, phones(2));
+    expired.setBuiltAt(Instant.now().minus(Duration.ofHours(1)));
+    expired.setTotalQuantity(999);
+    List<PhoneInventoryItem> phones = phones(2);
+    when(summaryRepository.findById(STORE_ID)).thenReturn(Optional.of(expired));
+    when(phoneRepository.findByStoreId(STORE_ID)).thenReturn(phones);
+
+    StoreInventory summary = view.getSummary(STORE_ID).orElseThrow();
+
+    assertThat(summary.getTotalQuantity()).isEqualTo(10);
+    verify(summaryRepository).save(summary);
+  }
+
+  @Test
+  void summaryThatCannotBeStored_ShouldStillBeRead() {
+    when(summaryRepository.findById(STORE_ID)).thenReturn(Optional.empty());
+    when(phoneRepository.findByStoreId(STORE_ID)).thenReturn(phones(2));
+    when(summaryRepository.create(any(StoreInventory.class)))
+        .thenThrow(new DataAccessResourceFailureException("Primary stepped down"));
+
+    assertThat(view.getPhones(STORE_ID)).hasSize(2);
+  }
+
+  @Test
+  void storeWithTooManyPhones_ShouldBeReadWithoutASummary() {
+    when(summaryRepository.findById(STORE_ID)).thenReturn(Optional.empty());
+    when(phoneRepository.findByStoreId(STORE_ID)).thenReturn(phones(MAX_PHONES));
+
+    assertThat(view.getPhones(STORE_ID)).hasSize(MAX_PHONES);
+    verify(summaryRepository, never()).create(any(StoreInventory.class));
+  }
+
+  private static List<PhoneInventoryItem> phones(int count) {
+    List<PhoneInventoryItem> phones = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      PhoneInventoryItem phone = new PhoneInventoryItem();
+      phone.setId(UUID.randomUUID());
+      phone.setQuantity(5);
+      phone.setIsAvailable(true);
+      phone.setStoreId(STORE_ID);
+      phones.add(phone);
+    }
+    return phones;
+  }
+}